@@ -0,0 +1,11 @@
+-- 聊天记录按会话键集分页的索引
+-- 分页条件都是 “会话 + id < 游标 order by id desc limit n”，索引以会话字段开头、id 结尾，
+-- 每页只扫描 n 行，不使用 OFFSET
+
+alter table chat
+    -- 大厅：chatType = 3
+    add index idx_chatType_id (chatType, id),
+    -- 队伍：teamId = ?
+    add index idx_teamId_id (teamId, id),
+    -- 私聊：双方各查一次 fromId = ? and toId = ?，再合并
+    add index idx_fromId_toId_id (fromId, toId, id);
@@ -0,0 +1,39 @@
+-- 队伍成员关系表
+-- 取代 team.usersId / user.teamIds 两个 JSON 列，按 (teamId, userId) 和 (userId, teamId) 双向建索引
+
+create table if not exists team_member
+(
+    id       bigint auto_increment comment 'id' primary key,
+    teamId   bigint                             not null comment '队伍id',
+    userId   bigint                             not null comment '用户id',
+    role     tinyint  default 0                 not null comment '角色 0-成员 1-队长',
+    joinTime datetime default CURRENT_TIMESTAMP null comment '加入时间',
+    unique key uk_teamId_userId (teamId, userId),
+    key idx_userId_teamId (userId, teamId)
+) comment '队伍成员';
+
+-- 历史数据回填（MySQL 8.0+，依赖 JSON_TABLE），可重复执行
+-- 1. 以 team.usersId 为准
+insert ignore into team_member (teamId, userId, role, joinTime)
+select t.id, jt.userId, if(jt.userId = t.userId, 1, 0), t.createTime
+from team t,
+     json_table(t.usersId, '$[*]' columns (userId bigint path '$')) jt
+where t.isDelete = 0
+  and json_valid(t.usersId);
+
+-- 2. 队长一定是成员
+insert ignore into team_member (teamId, userId, role, joinTime)
+select t.id, t.userId, 1, t.createTime
+from team t
+where t.isDelete = 0;
+
+-- 3. 补齐只记录在 user.teamIds 中的关系
+insert ignore into team_member (teamId, userId, role, joinTime)
+select t.id, u.id, 0, t.createTime
+from user u,
+     json_table(u.teamIds, '$[*]' columns (teamId bigint path '$')) jt,
+     team t
+where u.isDelete = 0
+  and json_valid(u.teamIds)
+  and t.id = jt.teamId
+  and t.isDelete = 0;
@@ -0,0 +1,21 @@
+-- 队伍标签画像表
+-- 记录每个队伍成员标签的计数（标签 -> 拥有该标签的成员数），成员加入、退出、修改标签时增量维护
+
+create table if not exists team_tag
+(
+    id          bigint auto_increment comment 'id' primary key,
+    teamId      bigint                             not null comment '队伍id',
+    tagName     varchar(64)                        not null comment '标签名（首字母大写）',
+    memberCount int      default 0                 not null comment '拥有该标签的成员数',
+    updateTime  datetime default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间',
+    unique key uk_teamId_tagName (teamId, tagName)
+) comment '队伍标签画像';
+
+-- 历史数据回填（依赖 team_member.sql、user_tag.sql 已执行），可重复执行
+insert into team_tag (teamId, tagName, memberCount)
+select tm.teamId, t.tagName, count(*)
+from team_member tm
+         join user_tag ut on ut.userId = tm.userId
+         join tag t on t.id = ut.tagId
+group by tm.teamId, t.tagName
+on duplicate key update memberCount = values(memberCount);
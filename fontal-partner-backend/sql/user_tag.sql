@@ -0,0 +1,40 @@
+-- 用户标签规范化表
+-- 将 user.tags 中的 JSON 数组拆成 tag / user_tag 两张表，便于按标签走索引查询
+
+-- 标签字典表
+create table if not exists tag
+(
+    id         bigint auto_increment comment 'id' primary key,
+    tagName    varchar(64)                        not null comment '标签名（首字母大写）',
+    createTime datetime default CURRENT_TIMESTAMP null comment '创建时间',
+    unique key uk_tagName (tagName)
+) comment '标签';
+
+-- 用户标签关系表
+create table if not exists user_tag
+(
+    id         bigint auto_increment comment 'id' primary key,
+    userId     bigint                             not null comment '用户id',
+    tagId      bigint                             not null comment '标签id',
+    createTime datetime default CURRENT_TIMESTAMP null comment '创建时间',
+    unique key uk_userId_tagId (userId, tagId),
+    key idx_tagId_userId (tagId, userId)
+) comment '用户标签关系';
+
+-- 历史数据回填（MySQL 8.0+，依赖 JSON_TABLE），可重复执行
+insert ignore into tag (tagName)
+select distinct concat(upper(left(jt.tagName, 1)), substring(jt.tagName, 2))
+from user u,
+     json_table(u.tags, '$[*]' columns (tagName varchar(64) path '$')) jt
+where u.isDelete = 0
+  and json_valid(u.tags)
+  and trim(jt.tagName) != '';
+
+insert ignore into user_tag (userId, tagId)
+select u.id, t.id
+from user u,
+     json_table(u.tags, '$[*]' columns (tagName varchar(64) path '$')) jt,
+     tag t
+where u.isDelete = 0
+  and json_valid(u.tags)
+  and t.tagName = concat(upper(left(jt.tagName, 1)), substring(jt.tagName, 2));
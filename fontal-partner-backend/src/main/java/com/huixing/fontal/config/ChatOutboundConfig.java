@@ -0,0 +1,72 @@
+package com.huixing.fontal.config;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 出站消息配置
+ * 每个连接一个有界发送队列，由写线程池异步发送，慢客户端不会阻塞接收消息的线程和其他连接
+ *
+ * @author fontal
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fontal.chat.outbound")
+@Data
+public class ChatOutboundConfig {
+
+    /**
+     * 每个连接最多排队的消息数
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 写线程数
+     */
+    private int writerThreads = 4;
+
+    /**
+     * 单条消息发送超时（毫秒），超时视为连接异常并断开
+     */
+    private long sendTimeoutMillis = 10000;
+
+    /**
+     * 队列满时的处理方式
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    public enum OverflowPolicy {
+
+        /**
+         * 丢弃最早排队的消息
+         */
+        DROP_OLDEST,
+
+        /**
+         * 带合并 key 的消息替换队列中同 key 的旧消息（只保留最新状态），队列满时丢弃最早的消息
+         */
+        COALESCE,
+
+        /**
+         * 断开慢客户端，客户端重连后从历史记录补齐
+         */
+        DISCONNECT
+    }
+
+    /**
+     * WebSocket 写线程池
+     * 同一连接同时最多只有一个发送任务，排队任务数不超过连接数
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor chatWriterExecutor() {
+        return new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                ThreadFactoryBuilder.create().setNamePrefix("chat-writer-").setDaemon(true).build());
+    }
+}
@@ -0,0 +1,23 @@
+package com.huixing.fontal.config;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.huixing.fontal.manager.IdWorkerLease;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 雪花 id 生成器配置
+ * 需要在写库前确定 id 的数据（如聊天消息）使用 MyBatis-Plus 的雪花算法生成 id；
+ * 10 位机器号（5 位数据中心 + 5 位工作机器）默认在启动时从 Redis 租用（见 {@link IdWorkerLease}），
+ * 也可以用 fontal.id.worker-id 固定。
+ *
+ * @author fontal
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public IdentifierGenerator identifierGenerator(IdWorkerLease idWorkerLease) {
+        return entity -> idWorkerLease.nextId();
+    }
+}
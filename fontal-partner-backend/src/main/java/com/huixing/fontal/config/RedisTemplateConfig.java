@@ -1,5 +1,10 @@
 package com.huixing.fontal.config;
 
+import com.huixing.fontal.utils.JdkRedisValueCodec;
+import com.huixing.fontal.utils.RedisValueCodec;
+import com.huixing.fontal.utils.SmileRedisValueCodec;
+import com.huixing.fontal.utils.VersionedRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -12,11 +17,27 @@ import org.springframework.data.redis.serializer.RedisSerializer;
 @Configuration
 public class RedisTemplateConfig {
 
+    /**
+     * 缓存值写入格式：jdk | smile
+     * 默认 jdk，与旧版本写入的字节完全一致；全部节点都能读取 smile 后再通过配置切换
+     */
+    @Value("${fontal.redis.value-codec:jdk}")
+    private String valueCodec;
+
+    /**
+     * 缓存值超过该字节数时 LZ4 压缩，0 表示不压缩
+     */
+    @Value("${fontal.redis.compress-threshold:1024}")
+    private int compressThreshold;
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
         redisTemplate.setConnectionFactory(connectionFactory);
         redisTemplate.setKeySerializer(RedisSerializer.string());
+        SmileRedisValueCodec smileCodec = new SmileRedisValueCodec();
+        RedisValueCodec writeCodec = "smile".equalsIgnoreCase(valueCodec) ? smileCodec : new JdkRedisValueCodec();
+        redisTemplate.setValueSerializer(new VersionedRedisSerializer(writeCodec, compressThreshold, smileCodec));
         return redisTemplate;
     }
 }
@@ -0,0 +1,30 @@
+package com.huixing.fontal.config;
+
+import com.huixing.fontal.utils.SessionAttributeSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Spring Session 配置
+ *
+ * @author fontal
+ */
+@Configuration
+public class SessionConfig {
+
+    /**
+     * 是否使用紧凑格式写入会话属性，默认不使用（旧节点能读取），所有节点升级后再单独开启
+     */
+    @Value("${fontal.session.compact-serializer:false}")
+    private boolean compactSerializer;
+
+    /**
+     * Spring Session 按名称 springSessionDefaultRedisSerializer 查找会话属性的序列化器
+     */
+    @Bean("springSessionDefaultRedisSerializer")
+    public RedisSerializer<Object> springSessionDefaultRedisSerializer() {
+        return new SessionAttributeSerializer(compactSerializer);
+    }
+}
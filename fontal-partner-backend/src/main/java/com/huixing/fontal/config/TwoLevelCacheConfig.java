@@ -0,0 +1,99 @@
+package com.huixing.fontal.config;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.huixing.fontal.manager.CacheNamespace;
+import com.huixing.fontal.manager.TeamRoster;
+import com.huixing.fontal.manager.TwoLevelCache;
+import com.huixing.fontal.manager.UserTagIndex;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存配置（Caffeine 一级 + Redis 二级）
+ *
+ * @author fontal
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fontal.cache")
+@Data
+public class TwoLevelCacheConfig {
+
+    /**
+     * 一级缓存默认最大条目数
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 一级缓存默认写入后过期时间（秒），应明显短于 Redis 中的过期时间
+     */
+    private long expireSeconds = 30;
+
+    /**
+     * 后台提前刷新线程数
+     */
+    private int refreshThreads = 2;
+
+    /**
+     * 后台提前刷新队列容量，队列满时放弃刷新
+     */
+    private int refreshQueueCapacity = 64;
+
+    /**
+     * XFetch 提前刷新系数，越大越早刷新，1.0 为默认值
+     */
+    private double refreshBeta = 1.0;
+
+    /**
+     * 按缓存名覆盖默认配置
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    @Data
+    public static class Spec {
+
+        private Long maximumSize;
+
+        private Long expireSeconds;
+    }
+
+    /**
+     * 缓存后台提前刷新线程池（有界队列）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor cacheRefreshExecutor() {
+        return new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(refreshQueueCapacity),
+                ThreadFactoryBuilder.create().setNamePrefix("cache-refresh-").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 订阅缓存失效频道，其他节点删除缓存、命名空间代数变化、队伍成员变化时同步清理本机的一级缓存，
+     * 用户标签变化时更新本机的标签索引
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                          TwoLevelCache twoLevelCache,
+                                                                          CacheNamespace cacheNamespace,
+                                                                          TeamRoster teamRoster,
+                                                                          UserTagIndex userTagIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(twoLevelCache, new ChannelTopic(TwoLevelCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(cacheNamespace, new ChannelTopic(CacheNamespace.GENERATION_CHANNEL));
+        container.addMessageListener(teamRoster, new ChannelTopic(TeamRoster.INVALIDATION_CHANNEL));
+        container.addMessageListener(userTagIndex, new ChannelTopic(UserTagIndex.CHANGE_CHANNEL));
+        return container;
+    }
+}
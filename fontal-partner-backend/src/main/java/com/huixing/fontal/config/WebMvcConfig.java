@@ -33,6 +33,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
                         "/user/register",
                         // 用户登录
                         "/user/login",
+                        // 刷新登录令牌（访问令牌可能已过期）
+                        "/user/token/refresh",
                         // 用户搜索（允许游客访问）
                         "/user/search",
                         // 按标签搜索用户
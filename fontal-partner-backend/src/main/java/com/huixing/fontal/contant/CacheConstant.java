@@ -0,0 +1,54 @@
+package com.huixing.fontal.contant;
+
+/**
+ * 二级缓存名（对应 fontal.cache.specs 下的配置）和缓存命名空间
+ *
+ * @author fontal
+ */
+public interface CacheConstant {
+    /**
+     * 队伍详情（含成员） fontal:team:getUsersByTeamId:{teamId}
+     */
+    String TEAM_DETAIL = "teamDetail";
+    /**
+     * 队伍基础信息 fontal:team:basic:{teamId}
+     */
+    String TEAM_BASIC = "teamBasic";
+    /**
+     * 队伍卡片 fontal:team:card:{teamId}
+     */
+    String TEAM_CARD = "teamCard";
+    /**
+     * 推荐队伍 fontal:team:recommend:{userId}:{limit}:g{代数}
+     */
+    String TEAM_RECOMMEND = "teamRecommend";
+    /**
+     * 按标签查询队伍 fontal:team:tags:{tags}:{limit}:g{代数}
+     */
+    String TEAM_TAGS = "teamTags";
+    /**
+     * 最新队伍 fontal:team:new:{limit}:g{代数}
+     */
+    String TEAM_NEW = "teamNew";
+    /**
+     * 用户推荐 fontal:user:search:{userId}
+     */
+    String USER_SEARCH = "userSearch";
+    /**
+     * 登录用户资料（脱敏） fontal:user:profile:{userId}
+     */
+    String USER_PROFILE = "userProfile";
+
+    /**
+     * 命名空间：最新队伍列表
+     */
+    String NS_TEAM_NEW = "team:new";
+    /**
+     * 命名空间：按标签查询的队伍列表
+     */
+    String NS_TEAM_TAGS = "team:tags";
+    /**
+     * 命名空间：所有用户的推荐队伍列表
+     */
+    String NS_TEAM_RECOMMEND = "team:recommend";
+}
@@ -20,10 +20,29 @@ public interface ChatConstant {
      */
     int HALL_CHAT = 3;
 
-    String CACHE_CHAT_HALL = "jujiaoyuan:chat:chat_records:chat_hall";
+    /**
+     * 大厅最近消息（Redis 定长列表，最新的在最前）
+     */
+    String CACHE_CHAT_HALL = "fontal:chat:recent:hall";
+
+    /**
+     * 私聊最近消息，参数为双方用户id（小的在前）
+     */
+    String CACHE_CHAT_PRIVATE = "fontal:chat:recent:private:%s:%s";
+
+    /**
+     * 队伍最近消息，参数为队伍id
+     */
+    String CACHE_CHAT_TEAM = "fontal:chat:recent:team:%s";
 
-    String CACHE_CHAT_PRIVATE = "jujiaoyuan:chat:chat_records:chat_private";
+    /**
+     * 每个会话在 Redis 中保留的最近消息数
+     */
+    int RECENT_SIZE = 100;
 
-    String CACHE_CHAT_TEAM = "jujiaoyuan:chat:chat_records:chat_team";
+    /**
+     * 聊天记录每页最大条数
+     */
+    int MAX_PAGE_SIZE = 100;
 
 }
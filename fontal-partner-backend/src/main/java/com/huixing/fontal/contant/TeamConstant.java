@@ -24,4 +24,13 @@ public interface TeamConstant {
      * 候补人数
      */
     int NUMBER_OF_PLACES_TO_BE_FILLED = 2;
+
+    /**
+     * 队伍成员角色：普通成员
+     */
+    int MEMBER_ROLE_MEMBER = 0;
+    /**
+     * 队伍成员角色：队长
+     */
+    int MEMBER_ROLE_LEADER = 1;
 }
@@ -8,10 +8,28 @@ package com.huixing.fontal.contant;
  */
 public interface UserConstant {
     /**
-     * 用户登录态键值
+     * 用户登录态键值（旧版本，会话中保存完整的用户对象），只用于读取旧会话
      */
     String LOGIN_USER_STATUS = "loginUserStatus";
 
+    /**
+     * 登录身份键值（会话中保存 LoginPrincipal）
+     * 与旧版本使用不同的名称，滚动发布期间旧节点只会认为未登录，不会把登录身份当作用户对象读取
+     */
+    String LOGIN_PRINCIPAL = "loginPrincipal";
+
+    /**
+     * 访问令牌请求头（令牌鉴权模式），值为 Bearer + 空格 + 令牌
+     */
+    String AUTHORIZATION_HEADER = "Authorization";
+
+    String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * 刷新令牌请求/响应头（令牌鉴权模式）
+     */
+    String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
+
     /**
      * 用户缓存键名称
      */
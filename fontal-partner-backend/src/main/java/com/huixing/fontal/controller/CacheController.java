@@ -0,0 +1,49 @@
+package com.huixing.fontal.controller;
+
+import com.huixing.fontal.common.BaseResponse;
+import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.common.ResultUtil;
+import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.TwoLevelCache;
+import com.huixing.fontal.model.vo.CacheStatsVO;
+import com.huixing.fontal.service.UserService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+
+/**
+ * 缓存监控控制器
+ *
+ * @author fontal
+ */
+@RestController
+@Slf4j
+@RequestMapping("/cache")
+@Api(tags = "缓存监控")
+public class CacheController {
+
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private TwoLevelCache twoLevelCache;
+
+    /**
+     * 查看各缓存的命中、未命中、淘汰次数（仅管理员）
+     */
+    @ApiOperation("查看缓存统计")
+    @GetMapping("/stats")
+    public BaseResponse<List<CacheStatsVO>> getCacheStats(HttpServletRequest request) {
+        if (!userService.isAdmin(request)) {
+            throw new BusinessException(ErrorCode.NO_AUTH, "无权限");
+        }
+        return ResultUtil.success(twoLevelCache.stats());
+    }
+}
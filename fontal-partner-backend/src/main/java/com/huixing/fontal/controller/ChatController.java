@@ -0,0 +1,106 @@
+package com.huixing.fontal.controller;
+
+import com.huixing.fontal.common.BaseResponse;
+import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.common.ResultUtil;
+import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.ChatWriteBehind;
+import com.huixing.fontal.model.vo.ChatHistoryVO;
+import com.huixing.fontal.model.vo.ChatOutboundStatsVO;
+import com.huixing.fontal.model.vo.ChatPersistStatsVO;
+import com.huixing.fontal.service.ChatService;
+import com.huixing.fontal.service.UserService;
+import com.huixing.fontal.ws.ChatOutbound;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 聊天控制器
+ *
+ * @author fontal
+ */
+@RestController
+@Slf4j
+@RequestMapping("/chat")
+@Api(tags = "聊天")
+public class ChatController {
+
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private ChatOutbound chatOutbound;
+
+    @Resource
+    private ChatWriteBehind chatWriteBehind;
+
+    @Resource
+    private ChatService chatService;
+
+    /**
+     * 大厅聊天记录，按游标向前翻页
+     */
+    @ApiOperation("获取大厅聊天记录")
+    @GetMapping("/hall/history")
+    public BaseResponse<ChatHistoryVO> getHallHistory(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      HttpServletRequest request) {
+        return ResultUtil.success(chatService.getHallHistory(cursor, size, request));
+    }
+
+    /**
+     * 队伍聊天记录，按游标向前翻页
+     */
+    @ApiOperation("获取队伍聊天记录")
+    @GetMapping("/team/history")
+    public BaseResponse<ChatHistoryVO> getTeamHistory(@RequestParam long teamId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      HttpServletRequest request) {
+        return ResultUtil.success(chatService.getTeamHistory(teamId, cursor, size, request));
+    }
+
+    /**
+     * 私聊记录，按游标向前翻页
+     */
+    @ApiOperation("获取私聊记录")
+    @GetMapping("/private/history")
+    public BaseResponse<ChatHistoryVO> getPrivateHistory(@RequestParam long toId,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         HttpServletRequest request) {
+        return ResultUtil.success(chatService.getPrivateHistory(toId, cursor, size, request));
+    }
+
+    /**
+     * 查看本节点 WebSocket 发送队列的长度和丢弃情况（仅管理员）
+     */
+    @ApiOperation("查看发送队列统计")
+    @GetMapping("/outbound/stats")
+    public BaseResponse<ChatOutboundStatsVO> getOutboundStats(HttpServletRequest request) {
+        if (!userService.isAdmin(request)) {
+            throw new BusinessException(ErrorCode.NO_AUTH, "无权限");
+        }
+        return ResultUtil.success(chatOutbound.stats());
+    }
+
+    /**
+     * 查看聊天记录异步写库的积压和延迟（仅管理员）
+     */
+    @ApiOperation("查看聊天写库统计")
+    @GetMapping("/persist/stats")
+    public BaseResponse<ChatPersistStatsVO> getPersistStats(HttpServletRequest request) {
+        if (!userService.isAdmin(request)) {
+            throw new BusinessException(ErrorCode.NO_AUTH, "无权限");
+        }
+        return ResultUtil.success(chatWriteBehind.stats());
+    }
+}
@@ -14,6 +14,7 @@ import com.huixing.fontal.model.request.TeamJoinRequest;
 import com.huixing.fontal.model.request.TeamUpdateRequest;
 import com.huixing.fontal.model.request.TransferTeamRequest;
 import com.huixing.fontal.model.vo.TeamBasicVO;
+import com.huixing.fontal.model.vo.TeamFeedVO;
 import com.huixing.fontal.model.vo.TeamJoinApplyVO;
 import com.huixing.fontal.model.vo.TeamMembershipVO;
 import com.huixing.fontal.model.vo.TeamUserVo;
@@ -104,6 +105,17 @@ public class TeamController {
         return ResultUtil.success(teams);
     }
 
+    /**
+     * 队伍发现页（游标分页）
+     */
+    @ApiOperation("队伍发现页分页查询")
+    @GetMapping(value = "/team", params = "size")
+    public BaseResponse<TeamFeedVO> getTeamFeed(@RequestParam(required = false) String cursor,
+                                                @RequestParam int size, HttpServletRequest request) {
+        TeamFeedVO teamFeedVO = teamService.getTeamFeed(cursor, size, request);
+        return ResultUtil.success(teamFeedVO);
+    }
+
     /**
      * 通过队伍Id获取队伍列表
      */
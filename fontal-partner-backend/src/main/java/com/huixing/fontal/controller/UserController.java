@@ -1,28 +1,35 @@
 package com.huixing.fontal.controller;
 
+import com.google.gson.Gson;
 import com.huixing.fontal.common.BaseResponse;
 import com.huixing.fontal.common.ErrorCode;
 import com.huixing.fontal.common.PageResult;
 import com.huixing.fontal.common.ResultUtil;
+import com.huixing.fontal.contant.CacheConstant;
 import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.TwoLevelCache;
 import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.model.request.*;
+import com.huixing.fontal.model.vo.AuthTokenVO;
 import com.huixing.fontal.model.vo.UserDetailVO;
 import com.huixing.fontal.model.vo.UserVO;
+import com.huixing.fontal.service.TeamMemberService;
 import com.huixing.fontal.service.UserService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static com.huixing.fontal.contant.UserConstant.*;
+
 /**
  * @Author fontal
  * @Date 2025/12/31
@@ -35,7 +42,11 @@ public class UserController {
     @Resource
     private UserService userService;
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCache twoLevelCache;
+    @Resource
+    private TeamMemberService teamMemberService;
+
+    private static final Gson GSON = new Gson();
 
     /**
      * 智能搜索/推荐用户列表
@@ -98,7 +109,8 @@ public class UserController {
 
     @ApiOperation("用户登录")
     @PostMapping("/login")
-    public BaseResponse<User> login(@RequestBody UserLoginRequest loginRequest, HttpServletRequest request) {
+    public BaseResponse<User> login(@RequestBody UserLoginRequest loginRequest, HttpServletRequest request,
+                                    HttpServletResponse response) {
         //进行参数校验
         if (loginRequest == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
@@ -106,9 +118,24 @@ public class UserController {
         String userAccount = loginRequest.getUserAccount();
         String userPassword = loginRequest.getUserPassword();
         User user = userService.userLogin(userAccount, userPassword, request);
+        // 令牌鉴权模式下令牌放在响应头中，响应体与会话模式保持一致
+        AuthTokenVO token = userService.createLoginToken(user);
+        if (token != null) {
+            response.setHeader(AUTHORIZATION_HEADER, BEARER_PREFIX + token.getAccessToken());
+            response.setHeader(REFRESH_TOKEN_HEADER, token.getRefreshToken());
+        }
         return ResultUtil.success(user, "登入成功");
     }
 
+    @ApiOperation("刷新登录令牌（令牌鉴权模式）")
+    @PostMapping("/token/refresh")
+    public BaseResponse<AuthTokenVO> refreshToken(@RequestBody TokenRefreshRequest refreshRequest) {
+        if (refreshRequest == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        return ResultUtil.success(userService.refreshLoginToken(refreshRequest.getRefreshToken()));
+    }
+
     @ApiOperation("用户注册")
     @PostMapping("/register")
     public BaseResponse<Long> register(@RequestBody UserRegisterRequest registerRequest) {
@@ -132,7 +159,10 @@ public class UserController {
         User currentUser = userService.getLoginUser(request);
         Long userId = currentUser.getId();
         User user = userService.getById(userId);
-        return ResultUtil.success(userService.getSafetyUser(user));
+        User safetyUser = userService.getSafetyUser(user);
+        // 已加入的队伍以 team_member 表为准
+        safetyUser.setTeamIds(GSON.toJson(teamMemberService.listTeamIds(userId)));
+        return ResultUtil.success(safetyUser);
     }
 
     @ApiOperation("用户退出登录")
@@ -191,7 +221,7 @@ public class UserController {
         boolean result = userService.updateUser(updateUserRequest, currentUser);
 
         // 4. 清除缓存
-        redisTemplate.delete(userService.redisFormat(currentUser.getId()));
+        twoLevelCache.evict(CacheConstant.USER_SEARCH, userService.redisFormat(currentUser.getId()));
 
         // 5. 返回结果
         return ResultUtil.success(result, "更新成功");
@@ -234,7 +264,7 @@ public class UserController {
         }
         boolean remove = userService.removeById(id);
         if (remove) {
-            redisTemplate.delete(userService.redisFormat(id));
+            twoLevelCache.evict(CacheConstant.USER_SEARCH, userService.redisFormat(id));
         }
         return ResultUtil.success(remove);
     }
@@ -295,7 +325,7 @@ public class UserController {
         }
         User currentUser = userService.getLoginUser(request);
         int updateTag = userService.updateTageById(tagRequest, currentUser);
-        redisTemplate.delete(userService.redisFormat(tagRequest.getId()));
+        twoLevelCache.evict(CacheConstant.USER_SEARCH, userService.redisFormat(tagRequest.getId()));
         return ResultUtil.success(updateTag);
     }
 
@@ -2,7 +2,6 @@ package com.huixing.fontal.interceptor;
 
 import com.huixing.fontal.common.ErrorCode;
 import com.huixing.fontal.exception.BusinessException;
-import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -36,12 +35,9 @@ public class LoginInterceptor implements HandlerInterceptor {
      */
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        // 获取当前登录用户
+        // 只校验会话中的登录凭证，不加载用户资料
         try {
-            User loginUser = userService.getLoginUser(request);
-            if (loginUser == null) {
-                throw new BusinessException(ErrorCode.NOT_LOGIN, "用户未登录");
-            }
+            userService.getLoginUserId(request);
             // 登录成功，放行
             return true;
         } catch (BusinessException e) {
@@ -1,14 +1,21 @@
 package com.huixing.fontal.job;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.huixing.fontal.contant.CacheConstant;
+import com.huixing.fontal.manager.IdBloomFilter;
+import com.huixing.fontal.manager.TeamFeedIndex;
+import com.huixing.fontal.manager.TeamHotRank;
+import com.huixing.fontal.manager.TwoLevelCache;
+import com.huixing.fontal.manager.UserTagIndex;
 import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.service.TeamMatchService;
+import com.huixing.fontal.service.TeamTagService;
 import com.huixing.fontal.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -27,11 +34,26 @@ public class PreCacheJob {
     private TeamMatchService teamMatchService;
 
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCache twoLevelCache;
 
     @Resource
     private RedissonClient redissonClient; // 注入 Redisson 客户端
 
+    @Resource
+    private UserTagIndex userTagIndex;
+
+    @Resource
+    private TeamHotRank teamHotRank;
+
+    @Resource
+    private TeamFeedIndex teamFeedIndex;
+
+    @Resource
+    private TeamTagService teamTagService;
+
+    @Resource
+    private IdBloomFilter idBloomFilter;
+
     /**
      * 第一步：获取我们的主要的用户
      * 获取前4个正常状态的用户ID用于预热缓存
@@ -77,8 +99,6 @@ public class PreCacheJob {
                     if (mainUser == null) continue;
 
                     String cacheKey = userService.redisFormat(userId);
-                    ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-
                     // 这里注意：定时任务里尽量不要直接调用 Controller，建议逻辑下沉到 Service
                     List<User> userList = userService.computeMatchUsers(mainUser);
 
@@ -86,7 +106,7 @@ public class PreCacheJob {
                             .map(userService::getSafetyUser)
                             .collect(Collectors.toList());
 
-                    valueOperations.set(cacheKey, safetyUserList, 24, TimeUnit.HOURS);
+                    twoLevelCache.put(CacheConstant.USER_SEARCH, cacheKey, safetyUserList, 24, TimeUnit.HOURS);
                     log.info("预热成功，用户ID: {}", userId);
                 }
             }
@@ -102,26 +122,19 @@ public class PreCacheJob {
     }
 
     /**
-     * 每小时预热热门队伍
-     * 预热前20个热门队伍到缓存
+     * 每小时重算热门队伍排行榜
+     * 刷新超过 30 天队伍的时间分，并清理过期、已删除的队伍
      */
     @Scheduled(cron = "0 0 * * * ?")
-    public void preCacheHotTeams() {
-        RLock lock = redissonClient.getLock("fontal:precachejob:precacheHotTeams:lock");
+    public void rescaleHotTeams() {
+        RLock lock = redissonClient.getLock("fontal:precachejob:rescaleHotTeams:lock");
 
         try {
             if (lock.tryLock(0, 30, TimeUnit.SECONDS)) {
-                log.info("开始预热热门队伍缓存");
-                long startTime = System.currentTimeMillis();
-                
-                // 调用队伍匹配服务获取热门队伍
-                int limit = 20;
-                teamMatchService.getHotTeams(limit);
-                
-                log.info("预热热门队伍缓存成功，耗时: {}ms", System.currentTimeMillis() - startTime);
+                teamHotRank.rebuild();
             }
         } catch (InterruptedException e) {
-            log.error("preCacheHotTeams error", e);
+            log.error("rescaleHotTeams error", e);
         } finally {
             if (lock.isHeldByCurrentThread()) {
                 lock.unlock();
@@ -156,4 +169,98 @@ public class PreCacheJob {
             }
         }
     }
+
+    /**
+     * 每天凌晨3点重建用户标签倒排索引
+     * 索引是每台机器的本地内存，因此每个节点都要执行，不加分布式锁
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void rebuildUserTagIndex() {
+        userTagIndex.rebuild();
+    }
+
+    /**
+     * 每天凌晨3点半重建用户、队伍 id 布隆过滤器，去掉已删除的 id
+     * 过滤器是每台机器的本地内存，因此每个节点都要执行，不加分布式锁
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void rebuildIdBloomFilter() {
+        idBloomFilter.rebuild();
+    }
+
+    /**
+     * 每天凌晨3点45分按成员和用户标签重算队伍标签画像，在重建倒排表之前完成
+     * team_tag 表是共享的，多台机器只需一台执行；队伍较多时耗时较长，锁不设固定租期，由看门狗续期
+     */
+    @Scheduled(cron = "0 45 3 * * ?")
+    public void recomputeTeamTagProfiles() {
+        RLock lock = redissonClient.getLock("fontal:precachejob:recomputeTeamTagProfiles:lock");
+
+        try {
+            if (lock.tryLock(0, TimeUnit.SECONDS)) {
+                teamTagService.recomputeProfiles();
+            }
+        } catch (InterruptedException e) {
+            log.error("recomputeTeamTagProfiles error", e);
+        } catch (Exception e) {
+            log.error("队伍标签画像重算失败", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 启动时若 标签 -> 队伍 倒排表不存在则构建（首次上线或 Redis 数据丢失）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initTeamTagTeams() {
+        if (!teamTagService.isTagTeamsReady()) {
+            rebuildTeamTagTeams();
+        }
+    }
+
+    /**
+     * 每天凌晨4点重建 标签 -> 队伍 倒排表，修正增量维护中可能出现的偏差
+     * 倒排表存放在 Redis 中，多台机器只需一台执行
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void rebuildTeamTagTeams() {
+        RLock lock = redissonClient.getLock("fontal:precachejob:rebuildTeamTagTeams:lock");
+
+        try {
+            if (lock.tryLock(0, 60, TimeUnit.SECONDS)) {
+                teamTagService.rebuildTagTeams();
+            }
+        } catch (InterruptedException e) {
+            log.error("rebuildTeamTagTeams error", e);
+        } catch (Exception e) {
+            log.error("标签队伍倒排表构建失败，推荐将回退到全量打分", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 每天凌晨4点半重建队伍发现页索引，清理已过期的队伍
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void rebuildTeamFeedIndex() {
+        RLock lock = redissonClient.getLock("fontal:precachejob:rebuildTeamFeedIndex:lock");
+
+        try {
+            if (lock.tryLock(0, 60, TimeUnit.SECONDS)) {
+                teamFeedIndex.rebuild();
+            }
+        } catch (InterruptedException e) {
+            log.error("rebuildTeamFeedIndex error", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
 }
@@ -0,0 +1,273 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.model.session.LoginPrincipal;
+import com.huixing.fontal.model.vo.AuthTokenVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * 登录令牌（令牌鉴权模式）
+ * 令牌格式：Base64Url(数据) + "." + Base64Url(HMAC-SHA256 签名)，
+ * 数据为定长二进制：类型(1) + 格式版本(1) + 用户ID(8) + 角色(4) + 状态(4) + 资料版本(8) + 令牌ID(8) + 签发时间(8) + 过期时间(8)。
+ * 访问令牌有效期短，只在本地校验签名和过期时间，请求链路不访问 Redis；
+ * 刷新令牌只能使用一次，使用过的令牌ID和按用户批量作废的时间点记录在 Redis 中，只在刷新时检查。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class AuthTokenManager {
+
+    public static final String MODE_TOKEN = "token";
+
+    private static final String REVOKED_KEY = "fontal:auth:revoked:%s";
+
+    private static final String REVOKE_BEFORE_KEY = "fontal:auth:revoke-before:%s";
+
+    private static final byte TYPE_ACCESS = 'A';
+
+    private static final byte TYPE_REFRESH = 'R';
+
+    private static final byte FORMAT = 1;
+
+    private static final int PAYLOAD_LENGTH = 50;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * 鉴权模式：session（Redis 会话）| token（签名令牌）
+     */
+    @Value("${fontal.auth.mode:session}")
+    private String mode;
+
+    @Value("${fontal.auth.token-secret:}")
+    private String tokenSecret;
+
+    @Value("${fontal.auth.access-token-seconds:900}")
+    private long accessTokenSeconds;
+
+    @Value("${fontal.auth.refresh-token-days:30}")
+    private long refreshTokenDays;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SecretKeySpec key;
+
+    /**
+     * Mac 不是线程安全的，每个线程一个
+     */
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        byte[] secret = tokenSecret.getBytes(StandardCharsets.UTF_8);
+        if (secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("令牌鉴权模式下 fontal.auth.token-secret 至少需要 " + MIN_SECRET_LENGTH + " 字节");
+        }
+        key = new SecretKeySpec(secret, ALGORITHM);
+        log.info("使用令牌鉴权模式，访问令牌有效期 {} 秒", accessTokenSeconds);
+    }
+
+    /**
+     * 是否启用令牌鉴权模式
+     */
+    public boolean isEnabled() {
+        return MODE_TOKEN.equalsIgnoreCase(mode);
+    }
+
+    /**
+     * 签发访问令牌和刷新令牌
+     *
+     * @param principal 登录身份
+     * @return 令牌
+     */
+    public AuthTokenVO issue(LoginPrincipal principal) {
+        long now = System.currentTimeMillis();
+        AuthTokenVO token = new AuthTokenVO();
+        token.setAccessToken(sign(TYPE_ACCESS, principal, RANDOM.nextLong(), now,
+                now + TimeUnit.SECONDS.toMillis(accessTokenSeconds)));
+        token.setExpiresIn(accessTokenSeconds);
+        token.setRefreshToken(sign(TYPE_REFRESH, principal, RANDOM.nextLong(), now,
+                now + TimeUnit.DAYS.toMillis(refreshTokenDays)));
+        return token;
+    }
+
+    /**
+     * 本地校验访问令牌
+     *
+     * @param accessToken 访问令牌
+     * @return 登录身份，令牌无效或已过期时返回 null
+     */
+    public LoginPrincipal verifyAccessToken(String accessToken) {
+        ByteBuffer payload = verify(accessToken, TYPE_ACCESS);
+        return payload == null ? null : readPrincipal(payload);
+    }
+
+    /**
+     * 用刷新令牌换一组新令牌，旧的刷新令牌随即作废
+     *
+     * @param refreshToken    刷新令牌
+     * @param principalLoader 按用户ID读取最新的登录身份（角色、状态可能已变化），用户不存在时返回 null
+     * @return 新令牌
+     */
+    public AuthTokenVO refresh(String refreshToken, LongFunction<LoginPrincipal> principalLoader) {
+        ByteBuffer payload = verify(refreshToken, TYPE_REFRESH);
+        if (payload == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN, "登录已过期，请重新登录");
+        }
+        LoginPrincipal principal = readPrincipal(payload);
+        long tokenId = payload.getLong();
+        long issuedAt = payload.getLong();
+        long expireAt = payload.getLong();
+        String revokeBefore = stringRedisTemplate.opsForValue().get(String.format(REVOKE_BEFORE_KEY, principal.getUserId()));
+        if (revokeBefore != null && issuedAt < Long.parseLong(revokeBefore)) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN, "登录已失效，请重新登录");
+        }
+        // 令牌ID只能登记一次，并发或重放的刷新请求只有一个能成功
+        if (!markRevoked(tokenId, expireAt)) {
+            log.warn("刷新令牌重复使用, userId: {}", principal.getUserId());
+            throw new BusinessException(ErrorCode.NOT_LOGIN, "登录已失效，请重新登录");
+        }
+        LoginPrincipal latest = principalLoader.apply(principal.getUserId());
+        if (latest == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN, "用户不存在");
+        }
+        return issue(latest);
+    }
+
+    /**
+     * 作废刷新令牌（退出登录），令牌无效时忽略
+     *
+     * @param refreshToken 刷新令牌
+     */
+    public void revoke(String refreshToken) {
+        ByteBuffer payload = verify(refreshToken, TYPE_REFRESH);
+        if (payload == null) {
+            return;
+        }
+        readPrincipal(payload);
+        long tokenId = payload.getLong();
+        payload.getLong();
+        markRevoked(tokenId, payload.getLong());
+    }
+
+    /**
+     * 作废用户此前签发的全部刷新令牌（修改密码、删除用户时），已签发的访问令牌在有效期内仍可使用
+     *
+     * @param userId 用户ID
+     */
+    public void revokeAll(long userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        stringRedisTemplate.opsForValue().set(String.format(REVOKE_BEFORE_KEY, userId),
+                String.valueOf(System.currentTimeMillis()), refreshTokenDays, TimeUnit.DAYS);
+    }
+
+    private boolean markRevoked(long tokenId, long expireAt) {
+        long ttl = Math.max(expireAt - System.currentTimeMillis(), 1);
+        Boolean marked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(String.format(REVOKED_KEY, tokenId), "1", ttl, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(marked);
+    }
+
+    private String sign(byte type, LoginPrincipal principal, long tokenId, long issuedAt, long expireAt) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .put(type)
+                .put(FORMAT)
+                .putLong(principal.getUserId())
+                .putInt(principal.getUserRole())
+                .putInt(principal.getUserStatus())
+                .putLong(principal.getVersion())
+                .putLong(tokenId)
+                .putLong(issuedAt)
+                .putLong(expireAt)
+                .array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(payload));
+    }
+
+    /**
+     * 校验签名、类型和过期时间
+     *
+     * @return 定位在用户ID处的数据，校验失败时返回 null
+     */
+    private ByteBuffer verify(String token, byte type) {
+        if (key == null || token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(mac(payload), signature)) {
+            return null;
+        }
+        if (payload[0] != type || payload[1] != FORMAT) {
+            return null;
+        }
+        long expireAt = ByteBuffer.wrap(payload, PAYLOAD_LENGTH - 8, 8).getLong();
+        if (expireAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        buffer.position(2);
+        return buffer;
+    }
+
+    private static LoginPrincipal readPrincipal(ByteBuffer payload) {
+        return new LoginPrincipal(payload.getLong(), payload.getInt(), payload.getInt(), payload.getLong());
+    }
+
+    private byte[] mac(byte[] payload) {
+        Mac mac = macs.get();
+        mac.reset();
+        return mac.doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化令牌签名失败", e);
+        }
+    }
+}
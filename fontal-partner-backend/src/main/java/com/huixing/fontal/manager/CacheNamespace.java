@@ -0,0 +1,123 @@
+package com.huixing.fontal.manager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存命名空间（代数计数器）
+ * 每个命名空间在 Redis 中有一个代数，缓存 key 中带上当前代数；
+ * 修改数据时把代数加一，整个命名空间下的 key（不论 limit、userId 是什么）立即全部失效，
+ * 旧代数的 key 不再被读取，由过期时间自然清理。
+ * 代数在本地缓存几秒，加一时通过 Redis 发布/订阅通知其他节点立即重新读取。
+ * 在事务中调用时提交后再加一，否则其他节点可能在提交前用新代数缓存旧数据。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class CacheNamespace implements MessageListener {
+
+    /**
+     * 代数变化通知频道
+     */
+    public static final String GENERATION_CHANNEL = "fontal:cache:generation";
+
+    private static final String GENERATION_KEY = "fontal:cache:generation:%s";
+
+    /**
+     * 本地代数缓存时间（秒），通知丢失时最多延迟这么久感知到新代数
+     */
+    private static final long LOCAL_EXPIRE_SECONDS = 5;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final LoadingCache<String, Long> generations = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(LOCAL_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build(this::loadGeneration);
+
+    /**
+     * 生成带当前代数的缓存 key
+     *
+     * @param namespace 命名空间
+     * @param key       原始 key
+     * @return 带代数的 key
+     */
+    public String key(String namespace, String key) {
+        return key + ":g" + generation(namespace);
+    }
+
+    /**
+     * 当前代数
+     */
+    public long generation(String namespace) {
+        Long generation = generations.get(namespace);
+        return generation == null ? 0 : generation;
+    }
+
+    /**
+     * 使命名空间失效（代数加一），在事务中调用时提交后执行
+     *
+     * @param namespaces 命名空间
+     */
+    public void bump(String... namespaces) {
+        if (namespaces.length == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        doBump(namespaces);
+                    } catch (Exception e) {
+                        log.error("提交后更新缓存代数失败, namespaces: {}", Arrays.toString(namespaces), e);
+                    }
+                }
+            });
+        } else {
+            doBump(namespaces);
+        }
+    }
+
+    private void doBump(String... namespaces) {
+        for (String namespace : namespaces) {
+            Long generation = stringRedisTemplate.opsForValue().increment(String.format(GENERATION_KEY, namespace));
+            if (generation != null) {
+                generations.put(namespace, generation);
+            }
+            try {
+                stringRedisTemplate.convertAndSend(GENERATION_CHANNEL, namespace);
+            } catch (Exception e) {
+                // 通知失败时其他节点的本地代数会在几秒后过期
+                log.error("发布缓存代数变化通知失败, namespace: {}", namespace, e);
+            }
+        }
+    }
+
+    /**
+     * 收到代数变化通知，下次读取时重新加载
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        generations.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private Long loadGeneration(String namespace) {
+        String value = stringRedisTemplate.opsForValue().get(String.format(GENERATION_KEY, namespace));
+        return value == null ? 0L : Long.parseLong(value);
+    }
+}
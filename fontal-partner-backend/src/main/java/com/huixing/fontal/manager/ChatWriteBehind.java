@@ -0,0 +1,386 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.huixing.fontal.mapper.ChatMapper;
+import com.huixing.fontal.model.entity.Chat;
+import com.huixing.fontal.model.vo.ChatPersistStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聊天记录异步批量写库（write-behind）
+ * 消息提交时先分配雪花 id 并追加到本地日志文件，随即返回由调用方推送，不等待数据库；
+ * 后台线程按条数或时间间隔把消息用多行 insert 批量写库，写库成功后删除对应的日志段。
+ * 进程崩溃后，启动时把残留的日志段重新写库（按 id insert ignore，重复写入无影响）；
+ * 写库失败的日志段保留在磁盘上，稍后按顺序重试，内存中只保留当前未写库的一批。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class ChatWriteBehind {
+
+    private static final String SEGMENT_PREFIX = "chat-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * 写库失败后的重试间隔（毫秒）
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 1000;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 日志中时间按毫秒数保存
+     */
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (src, type, context) -> new JsonPrimitive(src.getTime()))
+            .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, context) -> new Date(json.getAsLong()))
+            .create();
+
+    /**
+     * 一批写库的最大条数，缓冲达到该条数时立即写库
+     */
+    @Value("${fontal.chat.persist.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 最长写库间隔（毫秒）
+     */
+    @Value("${fontal.chat.persist.flush-interval-millis:200}")
+    private long flushIntervalMillis;
+
+    /**
+     * 本地日志目录
+     */
+    @Value("${fontal.chat.persist.journal-dir:data/chat-journal}")
+    private String journalDir;
+
+    @Resource
+    private ChatMapper chatMapper;
+
+    @Resource
+    private IdentifierGenerator identifierGenerator;
+
+    private final Object lock = new Object();
+
+    /**
+     * 当前未写库的消息，和当前日志段一一对应（受 lock 保护）
+     */
+    private List<Chat> buffer = new ArrayList<>();
+
+    private Path segmentPath;
+
+    private BufferedWriter segmentWriter;
+
+    private long segmentSeq;
+
+    /**
+     * 已封存待写库的日志段（只由写库线程修改）
+     */
+    private final Deque<Segment> sealedSegments = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 最早的已封存未写库消息的创建时间，没有时为 0
+     */
+    private volatile long sealedOldestTime;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    private final LongAdder submittedCount = new LongAdder();
+
+    private final LongAdder persistedCount = new LongAdder();
+
+    private final LongAdder replayedCount = new LongAdder();
+
+    private final LongAdder failedFlushCount = new LongAdder();
+
+    private volatile long lastFlushTime;
+
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        // 上次进程残留的日志段按序号排队，由写库线程先重放
+        List<Path> leftovers = listSegments(dir);
+        for (Path path : leftovers) {
+            sealedSegments.add(new Segment(path, null));
+            segmentSeq = Math.max(segmentSeq, parseSeq(path));
+        }
+        if (!leftovers.isEmpty()) {
+            log.warn("发现 {} 个未写库的聊天日志段，开始重放", leftovers.size());
+        }
+        synchronized (lock) {
+            openSegment();
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (!flusher.isAlive()) {
+            // 把最后一批写库，失败时留在日志中，下次启动重放
+            flush();
+        }
+        synchronized (lock) {
+            closeSegment();
+        }
+    }
+
+    /**
+     * 提交一条聊天记录：分配 id、记录创建时间并写入本地日志，不等待写库
+     *
+     * @param chat 聊天记录
+     */
+    public void submit(Chat chat) {
+        chat.setId(identifierGenerator.nextId(chat).longValue());
+        if (chat.getCreateTime() == null) {
+            chat.setCreateTime(new Date());
+        }
+        String line = toJson(chat);
+        synchronized (lock) {
+            try {
+                segmentWriter.write(line);
+                segmentWriter.newLine();
+                // 写到操作系统即可，进程崩溃不会丢失
+                segmentWriter.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("写入聊天日志失败", e);
+            }
+            buffer.add(chat);
+            if (buffer.size() >= batchSize) {
+                lock.notifyAll();
+            }
+        }
+        submittedCount.increment();
+    }
+
+    /**
+     * 聊天记录的日志行格式（时间为毫秒数），最近消息列表也使用同一格式
+     */
+    public static String toJson(Chat chat) {
+        return GSON.toJson(chat);
+    }
+
+    public static Chat fromJson(String json) {
+        return GSON.fromJson(json, Chat.class);
+    }
+
+    public ChatPersistStatsVO stats() {
+        int pending;
+        long oldest;
+        synchronized (lock) {
+            pending = buffer.size();
+            oldest = buffer.isEmpty() ? 0 : buffer.get(0).getCreateTime().getTime();
+        }
+        long sealedOldest = sealedOldestTime;
+        if (sealedOldest > 0) {
+            oldest = sealedOldest;
+        }
+        ChatPersistStatsVO vo = new ChatPersistStatsVO();
+        vo.setPendingCount(pending);
+        vo.setSealedSegmentCount(sealedSegments.size());
+        vo.setFlushLagMillis(oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest));
+        vo.setSubmittedCount(submittedCount.sum());
+        vo.setPersistedCount(persistedCount.sum());
+        vo.setReplayedCount(replayedCount.sum());
+        vo.setFailedFlushCount(failedFlushCount.sum());
+        vo.setLastFlushTime(lastFlushTime == 0 ? null : new Date(lastFlushTime));
+        vo.setLastFlushMillis(lastFlushMillis);
+        return vo;
+    }
+
+    private void runFlusher() {
+        while (running) {
+            try {
+                synchronized (lock) {
+                    if (running && buffer.size() < batchSize) {
+                        lock.wait(flushIntervalMillis);
+                    }
+                }
+                if (!flush()) {
+                    Thread.sleep(RETRY_INTERVAL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("聊天记录写库线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 封存当前一批并按顺序写库
+     *
+     * @return 是否全部写库成功
+     */
+    private boolean flush() {
+        synchronized (lock) {
+            if (!buffer.isEmpty()) {
+                Path sealed = segmentPath;
+                List<Chat> batch = buffer;
+                closeSegment();
+                buffer = new ArrayList<>();
+                openSegment();
+                sealedSegments.add(new Segment(sealed, batch));
+            }
+        }
+        while (!sealedSegments.isEmpty()) {
+            Segment segment = sealedSegments.peekFirst();
+            boolean replay = segment.chats == null;
+            List<Chat> chats = replay ? readSegment(segment.path) : segment.chats;
+            if (!chats.isEmpty()) {
+                sealedOldestTime = chats.get(0).getCreateTime().getTime();
+            }
+            long startTime = System.currentTimeMillis();
+            try {
+                for (int from = 0; from < chats.size(); from += batchSize) {
+                    chatMapper.insertIgnoreBatch(chats.subList(from, Math.min(from + batchSize, chats.size())));
+                }
+            } catch (Exception e) {
+                // 失败时后面的段也写不进去，所有已封存的段只保留在磁盘上，重试时重新读取，
+                // 数据库长时间不可用时内存不会随封存的段增长
+                for (Segment pending : sealedSegments) {
+                    pending.chats = null;
+                }
+                failedFlushCount.increment();
+                log.error("聊天记录写库失败，{} 条消息保留在日志 {} 中稍后重试", chats.size(), segment.path, e);
+                return false;
+            }
+            lastFlushTime = System.currentTimeMillis();
+            lastFlushMillis = lastFlushTime - startTime;
+            persistedCount.add(chats.size());
+            if (replay) {
+                replayedCount.add(chats.size());
+            }
+            sealedSegments.pollFirst();
+            sealedOldestTime = 0;
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                // 残留的段下次启动会重放，insert ignore 不会重复写入
+                log.warn("删除聊天日志 {} 失败", segment.path, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取日志段，进程崩溃时最后一行可能不完整，跳过无法解析的行
+     */
+    private List<Chat> readSegment(Path path) {
+        List<Chat> chats = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    chats.add(fromJson(line));
+                } catch (JsonParseException e) {
+                    log.warn("跳过聊天日志 {} 中无法解析的记录: {}", path, line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取聊天日志失败: " + path, e);
+        }
+        return chats;
+    }
+
+    /**
+     * 打开新的日志段，调用方持有 lock
+     */
+    private void openSegment() {
+        segmentSeq++;
+        segmentPath = Paths.get(journalDir, SEGMENT_PREFIX + segmentSeq + SEGMENT_SUFFIX);
+        try {
+            segmentWriter = Files.newBufferedWriter(segmentPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建聊天日志失败: " + segmentPath, e);
+        }
+    }
+
+    /**
+     * 关闭当前日志段，调用方持有 lock
+     */
+    private void closeSegment() {
+        try {
+            segmentWriter.close();
+        } catch (IOException e) {
+            log.warn("关闭聊天日志 {} 失败", segmentPath, e);
+        }
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort(Comparator.comparingLong(ChatWriteBehind::parseSeq));
+        return segments;
+    }
+
+    private static long parseSeq(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static class Segment {
+
+        private final Path path;
+
+        /**
+         * 段内消息，为 null 时从磁盘读取
+         */
+        private List<Chat> chats;
+
+        Segment(Path path, List<Chat> chats) {
+            this.path = path;
+            this.chats = chats;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.mapper.TeamMapper;
+import com.huixing.fontal.mapper.UserMapper;
+import com.huixing.fontal.model.entity.Team;
+import com.huixing.fontal.model.entity.User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 请求内的实体身份映射
+ * 同一个请求内按 id 读取 User、Team 时只查一次库，之后返回同一个对象（查不到的 id 也会记住）；
+ * 映射保存在请求属性中，请求结束即丢弃，不存在跨请求的数据过期问题。
+ * 不在 Web 请求中（定时任务、后台线程）时直接查库。
+ * 加锁后需要最新数据的地方调用 reload 系列方法强制查库，并用结果替换映射中的对象。
+ *
+ * @author fontal
+ */
+@Component
+public class EntityIdentityMap {
+
+    private static final String ATTRIBUTE = EntityIdentityMap.class.getName();
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private TeamMapper teamMapper;
+
+    public User getUser(long userId) {
+        return get(User.class, userId, userMapper::selectById);
+    }
+
+    public Team getTeam(long teamId) {
+        return get(Team.class, teamId, teamMapper::selectById);
+    }
+
+    /**
+     * 批量读取用户，映射中没有的 id 用一条 IN 查询加载
+     *
+     * @param userIds 用户ID
+     * @return 存在的用户（顺序不保证）
+     */
+    public List<User> listUsers(Collection<Long> userIds) {
+        return list(User.class, userIds, userMapper::selectBatchIds, User::getId);
+    }
+
+    public List<Team> listTeams(Collection<Long> teamIds) {
+        return list(Team.class, teamIds, teamMapper::selectBatchIds, Team::getId);
+    }
+
+    /**
+     * 强制从数据库重新读取（用于加锁后的再次校验）
+     */
+    public User reloadUser(long userId) {
+        return reload(User.class, userId, userMapper::selectById);
+    }
+
+    public Team reloadTeam(long teamId) {
+        return reload(Team.class, teamId, teamMapper::selectById);
+    }
+
+    /**
+     * 数据被修改后移除映射中的对象（修改的不是映射中的同一个对象时需要调用）
+     */
+    public void evictUser(long userId) {
+        evict(User.class, userId);
+    }
+
+    public void evictTeam(long teamId) {
+        evict(Team.class, teamId);
+    }
+
+    private <T> T get(Class<T> type, long id, Function<Long, T> loader) {
+        Map<Long, Optional<Object>> entities = entities(type);
+        if (entities == null) {
+            return loader.apply(id);
+        }
+        Optional<Object> cached = entities.get(id);
+        if (cached != null) {
+            return type.cast(cached.orElse(null));
+        }
+        T entity = loader.apply(id);
+        entities.put(id, Optional.ofNullable(entity));
+        return entity;
+    }
+
+    private <T> List<T> list(Class<T> type, Collection<Long> ids, Function<Collection<Long>, List<T>> loader,
+                             ToLongFunction<T> idGetter) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Optional<Object>> entities = entities(type);
+        if (entities == null) {
+            return loader.apply(ids);
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        Set<Long> missIds = new LinkedHashSet<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Optional<Object> cached = entities.get(id);
+            if (cached == null) {
+                missIds.add(id);
+            } else {
+                cached.ifPresent(entity -> result.add(type.cast(entity)));
+            }
+        }
+        if (!missIds.isEmpty()) {
+            for (T entity : loader.apply(missIds)) {
+                long id = idGetter.applyAsLong(entity);
+                entities.put(id, Optional.of(entity));
+                missIds.remove(id);
+                result.add(entity);
+            }
+            for (Long id : missIds) {
+                entities.put(id, Optional.empty());
+            }
+        }
+        return result;
+    }
+
+    private <T> T reload(Class<T> type, long id, Function<Long, T> loader) {
+        T entity = loader.apply(id);
+        Map<Long, Optional<Object>> entities = entities(type);
+        if (entities != null) {
+            entities.put(id, Optional.ofNullable(entity));
+        }
+        return entity;
+    }
+
+    private void evict(Class<?> type, long id) {
+        Map<Long, Optional<Object>> entities = entities(type);
+        if (entities != null) {
+            entities.remove(id);
+        }
+    }
+
+    /**
+     * 当前请求中某个类型的映射，不在请求中时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Optional<Object>> entities(Class<?> type) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Class<?>, Map<Long, Optional<Object>>> identityMap =
+                (Map<Class<?>, Map<Long, Optional<Object>>>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (identityMap == null) {
+            identityMap = new HashMap<>(4);
+            attributes.setAttribute(ATTRIBUTE, identityMap, RequestAttributes.SCOPE_REQUEST);
+        }
+        return identityMap.computeIfAbsent(type, k -> new HashMap<>());
+    }
+}
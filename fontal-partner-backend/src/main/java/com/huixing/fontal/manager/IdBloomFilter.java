@@ -0,0 +1,198 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.huixing.fontal.mapper.TeamMapper;
+import com.huixing.fontal.mapper.UserMapper;
+import com.huixing.fontal.model.entity.Team;
+import com.huixing.fontal.model.entity.User;
+import com.huixing.fontal.utils.LongBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * 用户、队伍 id 的布隆过滤器（防缓存穿透）
+ * 每个节点在本地内存中维护表中已有 id 的布隆过滤器，按 id 查询前先判断，一定不存在的 id 不再查库；
+ * 布隆过滤器判断可能存在但数据库中没有的 id（误判、已删除）记入短期的本地空值缓存。
+ * 自增 id 大于构建时最大 id 的一律放行（可能是其他节点刚创建的），由空值缓存兜底，因此不会误拒新数据。
+ * 启动时构建，本节点创建数据时增量加入，每天全量重建一次；构建完成前全部放行。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class IdBloomFilter {
+
+    /**
+     * 全量构建时每批加载的 id 数
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private static final double FPP = 0.01;
+
+    /**
+     * 为重建之间新增的数据预留的容量
+     */
+    private static final long RESERVED_CAPACITY = 10000;
+
+    /**
+     * 空值缓存时间（秒）
+     */
+    private static final long MISSING_EXPIRE_SECONDS = 60;
+
+    private static final long MISSING_MAXIMUM_SIZE = 100000;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private TeamMapper teamMapper;
+
+    private final IdFilter users = new IdFilter("user");
+
+    private final IdFilter teams = new IdFilter("team");
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建（按 id 分批加载，只查 id）
+     */
+    public synchronized void rebuild() {
+        users.rebuild(userMapper, User::getId);
+        teams.rebuild(teamMapper, Team::getId);
+    }
+
+    /**
+     * 用户 id 是否可能存在，返回 false 时一定不存在
+     */
+    public boolean mightExistUser(long userId) {
+        return users.mightExist(userId);
+    }
+
+    public boolean mightExistTeam(long teamId) {
+        return teams.mightExist(teamId);
+    }
+
+    /**
+     * 新增用户（注册时调用）
+     */
+    public void addUser(long userId) {
+        users.add(userId);
+    }
+
+    public void addTeam(long teamId) {
+        teams.add(teamId);
+    }
+
+    /**
+     * 记录查库未找到（或已被删除）的用户 id
+     */
+    public void markUserMissing(long userId) {
+        users.markMissing(userId);
+    }
+
+    public void markTeamMissing(long teamId) {
+        teams.markMissing(teamId);
+    }
+
+    private static class IdFilter {
+
+        private final String name;
+
+        /**
+         * 构建完成前为 null，全部放行
+         */
+        private volatile LongBloomFilter filter;
+
+        /**
+         * 重建中的过滤器，重建期间新增的 id 同时写入
+         */
+        private volatile LongBloomFilter building;
+
+        /**
+         * 构建时从数据库加载到的最大 id，大于它的 id 不经过滤器判断
+         * （本节点增量加入的 id 不能抬高它，否则其他节点在两者之间新建的 id 会被误拒）
+         */
+        private volatile long loadedMaxId;
+
+        private final Cache<Long, Boolean> missing = Caffeine.newBuilder()
+                .maximumSize(MISSING_MAXIMUM_SIZE)
+                .expireAfterWrite(MISSING_EXPIRE_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        IdFilter(String name) {
+            this.name = name;
+        }
+
+        boolean mightExist(long id) {
+            if (missing.getIfPresent(id) != null) {
+                return false;
+            }
+            LongBloomFilter current = filter;
+            return current == null || id > loadedMaxId || current.mightContain(id);
+        }
+
+        void add(long id) {
+            missing.invalidate(id);
+            LongBloomFilter current = filter;
+            if (current != null) {
+                current.add(id);
+            }
+            LongBloomFilter next = building;
+            if (next != null) {
+                next.add(id);
+            }
+        }
+
+        void markMissing(long id) {
+            missing.put(id, Boolean.TRUE);
+        }
+
+        <T> void rebuild(BaseMapper<T> mapper, ToLongFunction<T> idGetter) {
+            long startTime = System.currentTimeMillis();
+            try {
+                long count = mapper.selectCount(new QueryWrapper<>());
+                LongBloomFilter next = new LongBloomFilter(count * 2 + RESERVED_CAPACITY, FPP);
+                building = next;
+                long lastId = 0;
+                while (true) {
+                    QueryWrapper<T> queryWrapper = new QueryWrapper<>();
+                    queryWrapper.select("id")
+                            .gt("id", lastId)
+                            .orderByAsc("id")
+                            .last("LIMIT " + LOAD_BATCH_SIZE);
+                    List<T> batch = mapper.selectList(queryWrapper);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    for (T row : batch) {
+                        next.add(idGetter.applyAsLong(row));
+                    }
+                    lastId = idGetter.applyAsLong(batch.get(batch.size() - 1));
+                }
+                // 重建期间本节点新增的 id 已同时写入 next，其他节点新增的 id 大于 lastId 时直接放行；
+                // 先替换过滤器再提高最大 id，读取方不会用旧过滤器判断新区间
+                filter = next;
+                loadedMaxId = lastId;
+                log.info("{} id 布隆过滤器构建完成：{} 条，{} KB，耗时 {}ms", name, count,
+                        next.sizeInBytes() / 1024, System.currentTimeMillis() - startTime);
+            } catch (Exception e) {
+                log.error("{} id 布隆过滤器构建失败，继续使用旧的过滤器", name, e);
+            } finally {
+                building = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.incrementer.DefaultIdentifierGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花 id 机器号租约
+ * 启动时用 SET NX EX 在 Redis 中占用一个空闲的机器号（fontal:id:worker:<n>），运行期间定时续期，关闭时释放；
+ * 同一时刻每个机器号只属于一个节点，全部被占用时启动失败。
+ * 续期时发现机器号已被其他节点占用（如 Redis 长时间不可用导致租约过期），改用新的空闲机器号。
+ * 配置了 fontal.id.worker-id 时使用固定机器号，不申请租约。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class IdWorkerLease {
+
+    private static final String WORKER_KEY = "fontal:id:worker:%d";
+
+    /**
+     * 申请时的起始序号，多个节点同时启动时从不同位置开始尝试
+     */
+    private static final String WORKER_SEQUENCE_KEY = "fontal:id:worker-seq";
+
+    /**
+     * 机器号个数（2^10）
+     */
+    private static final int MAX_WORKERS = 1024;
+
+    private static final long LEASE_SECONDS = 30;
+
+    private static final long RENEW_INTERVAL_MILLIS = 10000;
+
+    /**
+     * 仍由本节点持有时续期；租约已过期且无人占用时重新占用；已被其他节点占用时返回 0
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('get', KEYS[1]) " +
+                    "if owner == ARGV[1] then redis.call('expire', KEYS[1], ARGV[2]) return 1 end " +
+                    "if not owner then redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2]) return 1 end " +
+                    "return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+                    "return 0", Long.class);
+
+    /**
+     * 固定的机器号（0-1023），小于 0 时从 Redis 申请租约
+     */
+    @Value("${fontal.id.worker-id:-1}")
+    private long fixedWorkerId;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 本节点的租约标识
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile long workerId = -1;
+
+    private volatile DefaultIdentifierGenerator generator;
+
+    @PostConstruct
+    public void init() {
+        if (fixedWorkerId >= MAX_WORKERS) {
+            throw new IllegalStateException("fontal.id.worker-id 必须在 0-1023 之间");
+        }
+        if (fixedWorkerId >= 0) {
+            use(fixedWorkerId);
+            return;
+        }
+        use(acquire());
+    }
+
+    /**
+     * 生成雪花 id
+     */
+    public long nextId() {
+        return generator.nextId(null);
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    @Scheduled(fixedDelay = RENEW_INTERVAL_MILLIS, initialDelay = RENEW_INTERVAL_MILLIS)
+    public void renew() {
+        if (fixedWorkerId >= 0) {
+            return;
+        }
+        Long renewed;
+        try {
+            renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(workerKey(workerId)),
+                    owner, String.valueOf(LEASE_SECONDS));
+        } catch (Exception e) {
+            // 租约在过期前还有几次重试机会，过期后无人占用时会重新占用
+            log.error("续期雪花机器号 {} 失败", workerId, e);
+            return;
+        }
+        if (renewed == null || renewed == 0) {
+            long lost = workerId;
+            try {
+                use(acquire());
+            } catch (Exception e) {
+                log.error("雪花机器号 {} 已被其他节点占用，且申请新的机器号失败，生成的 id 可能重复", lost, e);
+                return;
+            }
+            log.error("雪花机器号 {} 已被其他节点占用，改用 {}", lost, workerId);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (fixedWorkerId >= 0 || workerId < 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(workerKey(workerId)), owner);
+        } catch (Exception e) {
+            // 租约到期后自动释放
+            log.warn("释放雪花机器号 {} 失败", workerId, e);
+        }
+    }
+
+    /**
+     * 从起始序号开始依次尝试占用空闲的机器号
+     */
+    private long acquire() {
+        Long sequence = stringRedisTemplate.opsForValue().increment(WORKER_SEQUENCE_KEY);
+        if (sequence == null) {
+            throw new IllegalStateException("分配雪花机器号失败");
+        }
+        long start = Math.floorMod(sequence, MAX_WORKERS);
+        for (int i = 0; i < MAX_WORKERS; i++) {
+            long candidate = (start + i) % MAX_WORKERS;
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(workerKey(candidate), owner,
+                    LEASE_SECONDS, TimeUnit.SECONDS))) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("没有空闲的雪花机器号，" + MAX_WORKERS + " 个机器号均被占用");
+    }
+
+    private void use(long id) {
+        generator = new DefaultIdentifierGenerator(id & 31, id >> 5);
+        workerId = id;
+        log.info("雪花 id 机器号：{}", id);
+    }
+
+    private static String workerKey(long id) {
+        return String.format(WORKER_KEY, id);
+    }
+}
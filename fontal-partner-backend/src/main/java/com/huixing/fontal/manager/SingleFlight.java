@@ -0,0 +1,168 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 缓存未命中时的请求合并
+ * 同一个 key 在本节点同时只有一个调用方执行加载，其余调用方等待同一个结果；
+ * 跨节点模式下再用一把短租期的分布式锁保证各节点之间也只计算一次，拿不到锁的节点优先返回旧数据。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+    private static final String LOCK_KEY = "fontal:singleflight:lock:%s";
+
+    /**
+     * 分布式锁租期（秒），加载超过该时间时锁自动释放，其他节点可以接手
+     */
+    private static final long LOCK_LEASE_SECONDS = 10;
+
+    /**
+     * 本节点等待其他线程加载结果的最长时间（秒），超时后自己加载
+     */
+    private static final long LOCAL_WAIT_SECONDS = 10;
+
+    /**
+     * 没有旧数据时等待其他节点加载完成的最长时间（毫秒）及轮询间隔
+     */
+    private static final long REMOTE_WAIT_MILLIS = 3000;
+
+    private static final long REMOTE_POLL_MILLIS = 50;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    /**
+     * 本节点内合并同一个 key 的并发加载
+     *
+     * @param key    合并的 key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return (T) await(key, existing, loader);
+        }
+        try {
+            T value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 跨节点合并同一个 key 的并发加载
+     * 拿到分布式锁的节点先重新读一次缓存，仍未命中才加载；
+     * 拿不到锁的节点返回旧数据，没有旧数据时短暂等待其他节点写好缓存，超时后自己加载。
+     *
+     * @param key    合并的 key
+     * @param cached 读取缓存（其他节点加载完成后能读到）
+     * @param stale  读取旧数据，没有时返回 null
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    public <T> T executeAcrossNodes(String key, Supplier<T> cached, Supplier<T> stale, Supplier<T> loader) {
+        return execute(key, () -> {
+            RLock lock = redissonClient.getLock(String.format(LOCK_KEY, key));
+            boolean locked = false;
+            try {
+                locked = lock.tryLock(0, LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+                if (locked) {
+                    T value = cached.get();
+                    return value != null ? value : loader.get();
+                }
+                T staleValue = stale.get();
+                if (staleValue != null) {
+                    return staleValue;
+                }
+                long deadline = System.currentTimeMillis() + REMOTE_WAIT_MILLIS;
+                while (System.currentTimeMillis() < deadline) {
+                    Thread.sleep(REMOTE_POLL_MILLIS);
+                    T value = cached.get();
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                log.warn("等待其他节点加载超时，本节点自行加载, key: {}", key);
+                return loader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加载数据被中断");
+            } finally {
+                if (locked && lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 跨节点互斥执行，其他节点正在执行同一个 key 时直接放弃（用于后台刷新）
+     *
+     * @param key  互斥的 key
+     * @param task 任务
+     * @return 是否执行了任务
+     */
+    public boolean tryRunExclusive(String key, Runnable task) {
+        RLock lock = redissonClient.getLock(String.format(LOCK_KEY, key));
+        boolean locked = false;
+        try {
+            locked = lock.tryLock(0, LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+            if (!locked) {
+                return false;
+            }
+            task.run();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Object await(String key, CompletableFuture<Object> future, Supplier<?> loader) {
+        try {
+            return future.get(LOCAL_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("等待加载结果超时，本线程自行加载, key: {}", key);
+            return loader.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加载数据失败");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加载数据被中断");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.huixing.fontal.manager;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 标签字典
+ * 为每个标准化后的标签分配一个从 0 开始递增的整数编号，作为标签位图中的位下标。
+ * 编号只增不减，进程内稳定。
+ *
+ * @author fontal
+ */
+@Component
+public class TagDictionary {
+
+    private final Map<String, Integer> tagIds = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * 获取标签编号，不存在时分配新编号
+     */
+    public int idOf(String tag) {
+        return tagIds.computeIfAbsent(tag, k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * 查询标签编号，不存在时返回 -1（不分配新编号）
+     */
+    public int lookup(String tag) {
+        Integer id = tagIds.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return nextId.get();
+    }
+
+    /**
+     * 将标签集合编码为位图，缺失的标签会分配新编号
+     */
+    public long[] encode(Collection<String> tags) {
+        long[] words = new long[0];
+        for (String tag : tags) {
+            words = setBit(words, idOf(tag));
+        }
+        return words;
+    }
+
+    /**
+     * 将标签集合编码为位图，字典中不存在的标签直接忽略（用于查询）
+     */
+    public long[] encodeExisting(Collection<String> tags) {
+        long[] words = new long[0];
+        for (String tag : tags) {
+            int id = lookup(tag);
+            if (id >= 0) {
+                words = setBit(words, id);
+            }
+        }
+        return words;
+    }
+
+    private static long[] setBit(long[] words, int bit) {
+        int wordIndex = bit >>> 6;
+        if (wordIndex >= words.length) {
+            long[] grown = new long[wordIndex + 1];
+            System.arraycopy(words, 0, grown, 0, words.length);
+            words = grown;
+        }
+        words[wordIndex] |= 1L << bit;
+        return words;
+    }
+}
@@ -0,0 +1,247 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.huixing.fontal.mapper.TeamMapper;
+import com.huixing.fontal.model.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 队伍发现页索引
+ * Redis ZSET 按队伍id排序保存所有有效队伍（score = 队伍id），
+ * 创建队伍时加入、解散队伍时移除，已过期的队伍由读取方发现后移除，每天全量重建一次。
+ * 重建期间加入、移除的队伍记入脏集合，写完快照后按数据库的最新状态补算这些队伍，确认没有新的变化后再原子替换。
+ * 分页按 id 做 keyset 查询，单次读取的代价只与页大小有关。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class TeamFeedIndex {
+
+    private static final String INDEX_KEY = "fontal:team:feed:index";
+
+    private static final String REBUILD_KEY = "fontal:team:feed:index:rebuild";
+
+    /**
+     * 重建进行中标记，带过期时间，重建的节点宕机后自动失效
+     */
+    private static final String REBUILDING_KEY = "fontal:team:feed:index:rebuilding";
+
+    /**
+     * 重建期间加入、移除的队伍id
+     */
+    private static final String DIRTY_KEY = "fontal:team:feed:index:dirty";
+
+    private static final long REBUILDING_EXPIRE_MINUTES = 10;
+
+    /**
+     * 重建结束时补算脏队伍的最大轮数，超过后直接替换，偏差由读取方或下一次重建修正
+     */
+    private static final int MAX_CATCH_UP_ROUNDS = 10;
+
+    /**
+     * 加入队伍：重建进行中时记录脏队伍
+     * KEYS: 索引、重建标记、脏集合；ARGV: 队伍id
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 1 then redis.call('sadd', KEYS[3], ARGV[1]) end " +
+                    "return redis.call('zadd', KEYS[1], ARGV[1], ARGV[1])", Long.class);
+
+    /**
+     * 移除队伍：重建进行中时记录脏队伍
+     * KEYS: 索引、重建标记、脏集合；ARGV: 队伍id 列表
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 1 then redis.call('sadd', KEYS[3], unpack(ARGV)) end " +
+                    "return redis.call('zrem', KEYS[1], unpack(ARGV))", Long.class);
+
+    /**
+     * 结束重建：没有未处理的脏队伍（或强制结束）时用新索引替换，并清除重建标记
+     * KEYS: 新索引、索引、脏集合、重建标记；ARGV: 是否强制（1/0）
+     */
+    private static final RedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>(
+            "if ARGV[1] ~= '1' and redis.call('scard', KEYS[3]) > 0 then return 0 end " +
+                    "if redis.call('exists', KEYS[1]) == 1 then redis.call('rename', KEYS[1], KEYS[2]) " +
+                    "else redis.call('del', KEYS[2]) end " +
+                    "redis.call('del', KEYS[3], KEYS[4]) " +
+                    "return 1", Long.class);
+
+    /**
+     * 重建时每批加载的队伍数
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Resource
+    private TeamMapper teamMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SingleFlight singleFlight;
+
+    public void add(long teamId) {
+        stringRedisTemplate.execute(ADD_SCRIPT, Arrays.asList(INDEX_KEY, REBUILDING_KEY, DIRTY_KEY),
+                String.valueOf(teamId));
+    }
+
+    public void remove(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.execute(REMOVE_SCRIPT, Arrays.asList(INDEX_KEY, REBUILDING_KEY, DIRTY_KEY),
+                teamIds.stream().map(String::valueOf).toArray());
+    }
+
+    public void remove(long teamId) {
+        remove(Collections.singletonList(teamId));
+    }
+
+    /**
+     * 读取 id 位于 (afterId, beforeId) 区间内的队伍id，按 id 升序
+     *
+     * @param afterId  起始id（不包含）
+     * @param beforeId 结束id（不包含），不限制时传 Long.MAX_VALUE
+     * @param count    数量
+     * @return 队伍id
+     */
+    public List<Long> range(long afterId, long beforeId, int count) {
+        ensureBuilt();
+        Set<String> members = stringRedisTemplate.opsForZSet()
+                .rangeByScore(INDEX_KEY, afterId + 1, (double) beforeId - 1, 0, count);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::parseLong).collect(Collectors.toList());
+    }
+
+    /**
+     * 最小、最大的队伍id，索引为空时返回 null
+     */
+    public long[] bounds() {
+        ensureBuilt();
+        Set<ZSetOperations.TypedTuple<String>> first = stringRedisTemplate.opsForZSet().rangeWithScores(INDEX_KEY, 0, 0);
+        Set<ZSetOperations.TypedTuple<String>> last = stringRedisTemplate.opsForZSet().reverseRangeWithScores(INDEX_KEY, 0, 0);
+        if (first == null || first.isEmpty() || last == null || last.isEmpty()) {
+            return null;
+        }
+        return new long[]{
+                Long.parseLong(first.iterator().next().getValue()),
+                Long.parseLong(last.iterator().next().getValue())
+        };
+    }
+
+    /**
+     * 读取全部队伍id
+     */
+    public List<Long> listAll() {
+        ensureBuilt();
+        Set<String> members = stringRedisTemplate.opsForZSet().range(INDEX_KEY, 0, -1);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::parseLong).collect(Collectors.toList());
+    }
+
+    /**
+     * 从数据库全量重建索引，写入临时 key，补算重建期间变化的队伍后原子替换
+     */
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        stringRedisTemplate.delete(Arrays.asList(REBUILD_KEY, DIRTY_KEY));
+        stringRedisTemplate.opsForValue().set(REBUILDING_KEY, String.valueOf(startTime),
+                REBUILDING_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        int teamCount = 0;
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<Team> queryWrapper = validTeamQuery();
+            queryWrapper.gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + LOAD_BATCH_SIZE);
+            List<Team> batch = teamMapper.selectList(queryWrapper);
+            if (batch.isEmpty()) {
+                break;
+            }
+            stringRedisTemplate.opsForZSet().add(REBUILD_KEY, toTuples(batch));
+            teamCount += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        // 补算重建期间加入、移除的队伍，直到替换时没有新的变化
+        int round = 0;
+        while (true) {
+            boolean force = ++round > MAX_CATCH_UP_ROUNDS;
+            Long finished = stringRedisTemplate.execute(FINISH_SCRIPT,
+                    Arrays.asList(REBUILD_KEY, INDEX_KEY, DIRTY_KEY, REBUILDING_KEY), force ? "1" : "0");
+            if (Long.valueOf(1).equals(finished)) {
+                break;
+            }
+            List<String> dirtyIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, LOAD_BATCH_SIZE);
+            if (dirtyIds != null && !dirtyIds.isEmpty()) {
+                recheck(dirtyIds);
+            }
+        }
+        log.info("队伍发现页索引重建完成：{} 个队伍，补算 {} 轮，耗时 {}ms",
+                teamCount, round - 1, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 按数据库最新状态把指定队伍加入或移出新索引
+     */
+    private void recheck(List<String> teamIds) {
+        QueryWrapper<Team> queryWrapper = validTeamQuery();
+        queryWrapper.in("id", teamIds);
+        List<Team> teams = teamMapper.selectList(queryWrapper);
+        if (!teams.isEmpty()) {
+            stringRedisTemplate.opsForZSet().add(REBUILD_KEY, toTuples(teams));
+        }
+        Set<String> invalidIds = new HashSet<>(teamIds);
+        teams.forEach(team -> invalidIds.remove(String.valueOf(team.getId())));
+        if (!invalidIds.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(REBUILD_KEY, invalidIds.toArray());
+        }
+    }
+
+    private static QueryWrapper<Team> validTeamQuery() {
+        QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id")
+                .eq("isDelete", 0)
+                .gt("expireTime", new Date());
+        return queryWrapper;
+    }
+
+    private static Set<ZSetOperations.TypedTuple<String>> toTuples(List<Team> teams) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (Team team : teams) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(team.getId()), (double) team.getId()));
+        }
+        return tuples;
+    }
+
+    /**
+     * 索引不存在时重建，多个节点、多个线程同时发现时只重建一次
+     */
+    private void ensureBuilt() {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(INDEX_KEY))) {
+            return;
+        }
+        singleFlight.executeAcrossNodes(INDEX_KEY, this::builtOrNull, () -> null, () -> {
+            rebuild();
+            return Boolean.TRUE;
+        });
+    }
+
+    private Boolean builtOrNull() {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(INDEX_KEY)) ? Boolean.TRUE : null;
+    }
+}
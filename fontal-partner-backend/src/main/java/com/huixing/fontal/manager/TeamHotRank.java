@@ -0,0 +1,290 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.huixing.fontal.mapper.TeamMapper;
+import com.huixing.fontal.mapper.TeamMemberMapper;
+import com.huixing.fontal.model.entity.Team;
+import com.huixing.fontal.model.entity.TeamMember;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 热门队伍排行榜
+ * Redis ZSET 保存每个有效队伍的热度分数：成员数 * 6 + 时间分 * 4
+ * （即原来的 成员数 * 0.6 + 时间分 * 0.4 放大 10 倍，保证增量累加时没有浮点误差）。
+ * 成员数部分在成员加入、退出（事务提交后）时原子累加，排行榜不存在时不累加，避免生成只有一个队伍的排行榜；
+ * 时间分是 30 天内为 1、之后为 0 的阶梯函数，由定时任务周期性重算，同时清理已过期、已删除的队伍。
+ * 重算期间发生变化的队伍记入脏集合，写完快照后按数据库的最新状态重算这些队伍，确认没有新的变化后再原子替换。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class TeamHotRank {
+
+    private static final String RANK_KEY = "fontal:team:hot:rank";
+
+    private static final String REBUILD_KEY = "fontal:team:hot:rank:rebuild";
+
+    /**
+     * 重算进行中标记，带过期时间，重算的节点宕机后自动失效
+     */
+    private static final String REBUILDING_KEY = "fontal:team:hot:rank:rebuilding";
+
+    /**
+     * 重算期间分数发生变化的队伍id
+     */
+    private static final String DIRTY_KEY = "fontal:team:hot:rank:dirty";
+
+    private static final long REBUILDING_EXPIRE_MINUTES = 10;
+
+    /**
+     * 重算结束时补算脏队伍的最大轮数，超过后直接替换，偏差在下一次重算时修正
+     */
+    private static final int MAX_CATCH_UP_ROUNDS = 10;
+
+    /**
+     * 累加分数：重算进行中时记录脏队伍；排行榜不存在时不累加
+     * KEYS: 排行榜、重算标记、脏集合；ARGV: 队伍id、增量
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 1 then redis.call('sadd', KEYS[3], ARGV[1]) end " +
+                    "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+                    "redis.call('zincrby', KEYS[1], ARGV[2], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    /**
+     * 移除队伍：重算进行中时记录脏队伍
+     * KEYS: 排行榜、重算标记、脏集合；ARGV: 队伍id
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 1 then redis.call('sadd', KEYS[3], ARGV[1]) end " +
+                    "return redis.call('zrem', KEYS[1], ARGV[1])", Long.class);
+
+    /**
+     * 结束重算：没有未处理的脏队伍（或强制结束）时用新排行榜替换，并清除重算标记
+     * KEYS: 新排行榜、排行榜、脏集合、重算标记；ARGV: 是否强制（1/0）
+     */
+    private static final RedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>(
+            "if ARGV[1] ~= '1' and redis.call('scard', KEYS[3]) > 0 then return 0 end " +
+                    "if redis.call('exists', KEYS[1]) == 1 then redis.call('rename', KEYS[1], KEYS[2]) " +
+                    "else redis.call('del', KEYS[2]) end " +
+                    "redis.call('del', KEYS[3], KEYS[4]) " +
+                    "return 1", Long.class);
+
+    private static final int MEMBER_WEIGHT = 6;
+
+    private static final int TIME_WEIGHT = 4;
+
+    private static final long TIME_DECAY_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * 重算时每批加载的队伍数
+     */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Resource
+    private TeamMapper teamMapper;
+
+    @Resource
+    private TeamMemberMapper teamMemberMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SingleFlight singleFlight;
+
+    /**
+     * 新建队伍时计入时间分
+     *
+     * @param teamId 队伍id
+     */
+    public void onTeamCreated(long teamId) {
+        afterCommit(() -> increment(teamId, TIME_WEIGHT));
+    }
+
+    /**
+     * 成员数变化时累加成员分
+     *
+     * @param teamId 队伍id
+     * @param delta  成员数变化量
+     */
+    public void onMemberChanged(long teamId, int delta) {
+        afterCommit(() -> increment(teamId, delta * MEMBER_WEIGHT));
+    }
+
+    /**
+     * 从排行榜移除队伍（解散队伍时调用）
+     *
+     * @param teamId 队伍id
+     */
+    public void remove(long teamId) {
+        afterCommit(() -> stringRedisTemplate.execute(REMOVE_SCRIPT,
+                Arrays.asList(RANK_KEY, REBUILDING_KEY, DIRTY_KEY), String.valueOf(teamId)));
+    }
+
+    /**
+     * 按热度降序分页读取队伍id，排行榜不存在时先重算
+     *
+     * @param offset 起始位置
+     * @param count  数量
+     * @return 队伍id
+     */
+    public List<Long> range(long offset, int count) {
+        ensureBuilt();
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(RANK_KEY, offset, offset + count - 1);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::parseLong).collect(Collectors.toList());
+    }
+
+    /**
+     * 从数据库重算全部有效队伍的热度分数，写入临时 key，补算重算期间变化的队伍后原子替换
+     */
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        stringRedisTemplate.delete(Arrays.asList(REBUILD_KEY, DIRTY_KEY));
+        stringRedisTemplate.opsForValue().set(REBUILDING_KEY, String.valueOf(startTime),
+                REBUILDING_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        int teamCount = 0;
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<Team> queryWrapper = validTeamQuery();
+            queryWrapper.gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + LOAD_BATCH_SIZE);
+            List<Team> batch = teamMapper.selectList(queryWrapper);
+            if (batch.isEmpty()) {
+                break;
+            }
+            stringRedisTemplate.opsForZSet().add(REBUILD_KEY, score(batch));
+            teamCount += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        // 补算重算期间变化的队伍，直到替换时没有新的变化
+        int round = 0;
+        while (true) {
+            boolean force = ++round > MAX_CATCH_UP_ROUNDS;
+            Long finished = stringRedisTemplate.execute(FINISH_SCRIPT,
+                    Arrays.asList(REBUILD_KEY, RANK_KEY, DIRTY_KEY, REBUILDING_KEY), force ? "1" : "0");
+            if (Long.valueOf(1).equals(finished)) {
+                break;
+            }
+            List<String> dirtyIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, LOAD_BATCH_SIZE);
+            if (dirtyIds != null && !dirtyIds.isEmpty()) {
+                rescore(dirtyIds);
+            }
+        }
+        log.info("热门队伍排行榜重算完成：{} 个队伍，补算 {} 轮，耗时 {}ms",
+                teamCount, round - 1, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 按数据库最新状态重算指定队伍在新排行榜中的分数，已失效的队伍移除
+     */
+    private void rescore(List<String> teamIds) {
+        QueryWrapper<Team> queryWrapper = validTeamQuery();
+        queryWrapper.in("id", teamIds);
+        List<Team> teams = teamMapper.selectList(queryWrapper);
+        if (!teams.isEmpty()) {
+            stringRedisTemplate.opsForZSet().add(REBUILD_KEY, score(teams));
+        }
+        Set<String> invalidIds = new HashSet<>(teamIds);
+        teams.forEach(team -> invalidIds.remove(String.valueOf(team.getId())));
+        if (!invalidIds.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(REBUILD_KEY, invalidIds.toArray());
+        }
+    }
+
+    private static QueryWrapper<Team> validTeamQuery() {
+        QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "createTime")
+                .eq("isDelete", 0)
+                .gt("expireTime", new Date());
+        return queryWrapper;
+    }
+
+    private Set<ZSetOperations.TypedTuple<String>> score(List<Team> teams) {
+        long now = System.currentTimeMillis();
+        Map<Long, Integer> memberCounts = countMembers(teams.stream().map(Team::getId).collect(Collectors.toList()));
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (Team team : teams) {
+            int memberCount = memberCounts.getOrDefault(team.getId(), 0);
+            int timeScore = now - team.getCreateTime().getTime() < TIME_DECAY_MILLIS ? 1 : 0;
+            double score = memberCount * MEMBER_WEIGHT + timeScore * TIME_WEIGHT;
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(team.getId()), score));
+        }
+        return tuples;
+    }
+
+    private void increment(long teamId, int delta) {
+        stringRedisTemplate.execute(INCREMENT_SCRIPT, Arrays.asList(RANK_KEY, REBUILDING_KEY, DIRTY_KEY),
+                String.valueOf(teamId), String.valueOf(delta));
+    }
+
+    /**
+     * 在事务中调用时提交后再更新排行榜，回滚的加入、退出不计分；排行榜更新失败不影响主流程
+     */
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("更新热门队伍排行榜失败，将在下一次重算时修正", e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    private Map<Long, Integer> countMembers(List<Long> teamIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("teamId", "count(*) as memberCount")
+                .in("teamId", teamIds)
+                .groupBy("teamId");
+        for (Map<String, Object> row : teamMemberMapper.selectMaps(queryWrapper)) {
+            result.put(((Number) row.get("teamId")).longValue(), ((Number) row.get("memberCount")).intValue());
+        }
+        return result;
+    }
+
+    /**
+     * 排行榜不存在时重算，多个节点、多个线程同时发现时只重算一次
+     */
+    private void ensureBuilt() {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(RANK_KEY))) {
+            return;
+        }
+        singleFlight.executeAcrossNodes(RANK_KEY, this::builtOrNull, () -> null, () -> {
+            rebuild();
+            return Boolean.TRUE;
+        });
+    }
+
+    private Boolean builtOrNull() {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(RANK_KEY)) ? Boolean.TRUE : null;
+    }
+}
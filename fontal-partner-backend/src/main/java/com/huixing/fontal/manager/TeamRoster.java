@@ -0,0 +1,126 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.huixing.fontal.mapper.TeamMemberMapper;
+import com.huixing.fontal.model.entity.TeamMember;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 队伍成员名单（本地缓存）
+ * 队伍聊天按名单只推送给在线成员，名单第一次使用时从 team_member 表加载，
+ * 成员加入、退出、被踢、队伍解散时清除，并通过 Redis 频道通知其他节点一起清除。
+ * 在事务中修改成员时，提交后会再清除一次，避免提交前被其他请求重新加载到旧名单。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class TeamRoster implements MessageListener {
+
+    /**
+     * 名单失效通知频道，消息内容为队伍id
+     */
+    public static final String INVALIDATION_CHANNEL = "fontal:team:roster";
+
+    /**
+     * 名单缓存时间（分钟），通知丢失时最多延迟这么久感知到成员变化
+     */
+    private static final long EXPIRE_MINUTES = 5;
+
+    private static final long MAXIMUM_SIZE = 10000;
+
+    @Resource
+    private TeamMemberMapper teamMemberMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final LoadingCache<Long, Set<Long>> rosters = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build(this::loadMemberIds);
+
+    /**
+     * 队伍成员id（只读）
+     *
+     * @param teamId 队伍id
+     * @return 成员id，队伍不存在或没有成员时为空集合
+     */
+    public Set<Long> getMemberIds(long teamId) {
+        Set<Long> memberIds = rosters.get(teamId);
+        return memberIds == null ? Collections.emptySet() : memberIds;
+    }
+
+    /**
+     * 用户是否是队伍成员
+     */
+    public boolean isMember(long teamId, long userId) {
+        return getMemberIds(teamId).contains(userId);
+    }
+
+    /**
+     * 清除队伍名单（成员变化时调用）
+     *
+     * @param teamId 队伍id
+     */
+    public void invalidate(long teamId) {
+        rosters.invalidate(teamId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rosters.invalidate(teamId);
+                    publish(teamId);
+                }
+            });
+        } else {
+            publish(teamId);
+        }
+    }
+
+    /**
+     * 收到其他节点的名单失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            rosters.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("无效的队伍名单失效通知: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void publish(long teamId) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(teamId));
+        } catch (Exception e) {
+            // 通知失败时其他节点的名单会在几分钟后过期
+            log.error("发布队伍名单失效通知失败, teamId: {}", teamId, e);
+        }
+    }
+
+    private Set<Long> loadMemberIds(Long teamId) {
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("userId").eq("teamId", teamId);
+        Set<Long> memberIds = new HashSet<>();
+        for (TeamMember member : teamMemberMapper.selectList(queryWrapper)) {
+            memberIds.add(member.getUserId());
+        }
+        return Collections.unmodifiableSet(memberIds);
+    }
+}
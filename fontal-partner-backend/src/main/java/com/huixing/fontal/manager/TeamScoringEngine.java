@@ -0,0 +1,110 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.model.entity.Team;
+import com.huixing.fontal.utils.TopKHeap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 队伍批量打分引擎
+ * 读取预先维护好的队伍标签画像（见 TeamTagService），在内存中完成全部队伍的打分，
+ * 不再为每个队伍查询成员和成员标签，前 K 个结果用定长小顶堆（{@link TopKHeap}，id 为候选下标）保留。
+ *
+ * @author fontal
+ */
+@Component
+public class TeamScoringEngine {
+
+    private static final long TIME_DECAY_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * 计算推荐分数最高的前 K 个队伍（混合策略）
+     * 标签匹配: 60%，活跃度(成员数): 20%，时间因素: 20%
+     * 分数相同时保持 teams 中的原有顺序
+     *
+     * @param teams          候选队伍
+     * @param memberCounts   队伍ID -> 成员数
+     * @param profiles       队伍ID -> 队伍标签画像
+     * @param userTags       用户标签
+     * @param excludeTeamIds 需要排除的队伍（通常是已加入的队伍）
+     * @param k              返回数量
+     * @return 按分数降序排列的队伍
+     */
+    public List<Team> recommend(List<Team> teams, Map<Long, Integer> memberCounts,
+                                Map<Long, Map<String, Integer>> profiles,
+                                Collection<String> userTags, Set<Long> excludeTeamIds, int k) {
+        Set<String> queryTags = UserTagIndex.normalize(userTags);
+        if (k <= 0 || queryTags.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long now = System.currentTimeMillis();
+        TopKHeap heap = new TopKHeap(k);
+        for (int i = 0; i < teams.size(); i++) {
+            Team team = teams.get(i);
+            int memberCount = memberCounts.getOrDefault(team.getId(), 0);
+            if (memberCount == 0 || excludeTeamIds.contains(team.getId())) {
+                continue;
+            }
+            int matchCount = countMatches(profiles.get(team.getId()), queryTags);
+            double tagScore = (double) matchCount / queryTags.size() * 60;
+            double activityScore = Math.min(memberCount / 6.0, 1.0) * 20;
+            long timeDiff = now - team.getCreateTime().getTime();
+            double timeScore = Math.max(0, 1 - timeDiff / TIME_DECAY_MILLIS) * 20;
+            double score = tagScore + activityScore + timeScore;
+            if (score > 0) {
+                heap.offer(i, score);
+            }
+        }
+        long[] order = heap.toSortedIds();
+        List<Team> result = new ArrayList<>(order.length);
+        for (long index : order) {
+            result.add(teams.get((int) index));
+        }
+        return result;
+    }
+
+    /**
+     * 按顺序返回标签画像与给定标签有交集的前 limit 个队伍
+     *
+     * @param teams    候选队伍
+     * @param profiles 队伍ID -> 队伍标签画像
+     * @param tags     查询标签
+     * @param limit    返回数量
+     * @return 命中的队伍
+     */
+    public List<Team> matchAny(List<Team> teams, Map<Long, Map<String, Integer>> profiles,
+                               Collection<String> tags, int limit) {
+        Set<String> queryTags = UserTagIndex.normalize(tags);
+        if (limit <= 0 || queryTags.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Team> result = new ArrayList<>();
+        for (Team team : teams) {
+            if (countMatches(profiles.get(team.getId()), queryTags) > 0) {
+                result.add(team);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 统计队伍画像中出现的查询标签数
+     */
+    private static int countMatches(Map<String, Integer> profile, Set<String> queryTags) {
+        if (profile == null || profile.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (String tag : queryTags) {
+            Integer memberCount = profile.get(tag);
+            if (memberCount != null && memberCount > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
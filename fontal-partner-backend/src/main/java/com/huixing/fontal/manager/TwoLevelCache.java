@@ -0,0 +1,451 @@
+package com.huixing.fontal.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.huixing.fontal.config.TwoLevelCacheConfig;
+import com.huixing.fontal.model.vo.CacheStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 二级缓存
+ * 一级为进程内 Caffeine（有容量上限和较短的过期时间），二级为 Redis。
+ * 读取先查本地，未命中再查 Redis 并回填本地；删除时同时删除 Redis 和本地，
+ * 并通过 Redis 发布/订阅通知其他节点清理各自的本地缓存。
+ * 在事务中删除时提交后会再删除一次，避免提交前被其他请求（任意节点）重新加载到旧数据。
+ * 未命中时的加载通过 {@link SingleFlight} 合并，同一个 key 过期时只计算一次。
+ * Redis 中的 key 与接入前保持一致，缓存名只用于区分本地缓存和统计。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class TwoLevelCache implements MessageListener {
+
+    /**
+     * 缓存失效通知频道
+     */
+    public static final String INVALIDATION_CHANNEL = "fontal:cache:invalidate";
+
+    /**
+     * 清空整个缓存时使用的 key
+     */
+    private static final String ALL_KEYS = "*";
+
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * 本节点标识，忽略自己发出的通知
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, NamedCache> caches = new ConcurrentHashMap<>();
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private TwoLevelCacheConfig twoLevelCacheConfig;
+
+    @Resource
+    private SingleFlight singleFlight;
+
+    @Resource
+    private ThreadPoolExecutor cacheRefreshExecutor;
+
+    /**
+     * 正在后台刷新的 key，避免重复提交
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 读取缓存
+     *
+     * @param cacheName 缓存名
+     * @param key       Redis key
+     * @return 缓存值，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cacheName, String key) {
+        NamedCache cache = cache(cacheName);
+        Object value = cache.local.getIfPresent(key);
+        if (value != null) {
+            return (T) value;
+        }
+        value = redisTemplate.opsForValue().get(key);
+        if (value == null) {
+            cache.redisMisses.increment();
+            return null;
+        }
+        cache.redisHits.increment();
+        cache.local.put(key, value);
+        return (T) value;
+    }
+
+    /**
+     * 批量读取缓存，本地未命中的 key 用一次 MGET 读取
+     *
+     * @param cacheName 缓存名
+     * @param keys      Redis key
+     * @return key -> 缓存值（不存在的 key 不在结果中）
+     */
+    public Map<String, Object> getAll(String cacheName, List<String> keys) {
+        NamedCache cache = cache(cacheName);
+        Map<String, Object> result = new HashMap<>(keys.size() * 2);
+        List<String> missKeys = new ArrayList<>();
+        for (String key : keys) {
+            Object value = cache.local.getIfPresent(key);
+            if (value != null) {
+                result.put(key, value);
+            } else {
+                missKeys.add(key);
+            }
+        }
+        if (missKeys.isEmpty()) {
+            return result;
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(missKeys);
+        for (int i = 0; i < missKeys.size(); i++) {
+            Object value = values == null ? null : values.get(i);
+            if (value == null) {
+                cache.redisMisses.increment();
+                continue;
+            }
+            cache.redisHits.increment();
+            cache.local.put(missKeys.get(i), value);
+            result.put(missKeys.get(i), value);
+        }
+        return result;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param cacheName 缓存名
+     * @param key       Redis key
+     * @param value     缓存值
+     * @param timeout   Redis 过期时间
+     * @param unit      时间单位
+     */
+    public void put(String cacheName, String key, Object value, long timeout, TimeUnit unit) {
+        redisTemplate.opsForValue().set(key, value, timeout, unit);
+        cache(cacheName).local.put(key, value);
+    }
+
+    /**
+     * 批量写入缓存，Redis 写入用管道一次发送
+     *
+     * @param cacheName 缓存名
+     * @param values    Redis key -> 缓存值
+     * @param timeout   Redis 过期时间
+     * @param unit      时间单位
+     */
+    public void putAll(String cacheName, Map<String, ?> values, long timeout, TimeUnit unit) {
+        if (values.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                values.forEach((key, value) -> redisOperations.opsForValue().set(key, value, timeout, unit));
+                return null;
+            }
+        });
+        cache(cacheName).local.putAll(values);
+    }
+
+    /**
+     * 读取缓存（提前刷新）
+     * 值与软过期时间一起存储，Redis 过期时间为硬过期时间。读到的值超过软过期时间，
+     * 或临近软过期时按 XFetch 的概率提前判定需要刷新时，直接返回当前值并提交到后台线程池重新计算；
+     * 只有硬过期（缓存不存在）时才在请求线程中加载。
+     *
+     * @param cacheName   缓存名
+     * @param key         Redis key
+     * @param softTimeout 软过期时间
+     * @param hardTimeout 硬过期时间（Redis 过期时间），应明显大于软过期时间
+     * @param unit        时间单位
+     * @param acrossNodes 是否跨节点只计算一次（适合所有用户共用的 key）
+     * @param loader      加载逻辑，返回 null 时不写缓存
+     * @return 缓存值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrRefresh(String cacheName, String key, long softTimeout, long hardTimeout, TimeUnit unit,
+                              boolean acrossNodes, Supplier<T> loader) {
+        RefreshableValue entry = getRefreshable(cacheName, key);
+        if (entry != null) {
+            if (entry.shouldRefresh(twoLevelCacheConfig.getRefreshBeta())) {
+                refreshAsync(cacheName, key, softTimeout, hardTimeout, unit, acrossNodes, loader);
+            }
+            return (T) entry.value;
+        }
+        Supplier<RefreshableValue> load = () -> loadRefreshable(cacheName, key, softTimeout, hardTimeout, unit, loader);
+        RefreshableValue loaded;
+        if (acrossNodes) {
+            loaded = singleFlight.executeAcrossNodes(key, () -> getRefreshable(cacheName, key), () -> null, load);
+        } else {
+            loaded = singleFlight.execute(key, () -> {
+                RefreshableValue cached = getRefreshable(cacheName, key);
+                return cached != null ? cached : load.get();
+            });
+        }
+        return loaded == null ? null : (T) loaded.value;
+    }
+
+    private RefreshableValue getRefreshable(String cacheName, String key) {
+        Object value = get(cacheName, key);
+        // 接入前写入的旧格式数据按未命中处理
+        return value instanceof RefreshableValue ? (RefreshableValue) value : null;
+    }
+
+    private <T> RefreshableValue loadRefreshable(String cacheName, String key, long softTimeout, long hardTimeout,
+                                                 TimeUnit unit, Supplier<T> loader) {
+        long startTime = System.currentTimeMillis();
+        T value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        RefreshableValue entry = new RefreshableValue(value, now + unit.toMillis(softTimeout), now - startTime);
+        put(cacheName, key, entry, hardTimeout, unit);
+        return entry;
+    }
+
+    private <T> void refreshAsync(String cacheName, String key, long softTimeout, long hardTimeout, TimeUnit unit,
+                                  boolean acrossNodes, Supplier<T> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        NamedCache cache = cache(cacheName);
+        Runnable refresh = () -> {
+            if (loadRefreshable(cacheName, key, softTimeout, hardTimeout, unit, loader) != null) {
+                cache.refreshes.increment();
+                // 其他节点的一级缓存中还是旧值
+                publish(cacheName, key);
+            }
+        };
+        try {
+            cacheRefreshExecutor.execute(() -> {
+                try {
+                    if (acrossNodes) {
+                        singleFlight.tryRunExclusive(key, refresh);
+                    } else {
+                        refresh.run();
+                    }
+                } catch (Exception e) {
+                    log.error("后台刷新缓存失败, cacheName: {}, key: {}", cacheName, key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时放弃本次刷新，下一次读取会再次尝试
+            refreshing.remove(key);
+            cache.refreshRejections.increment();
+        }
+    }
+
+    /**
+     * 删除缓存并通知其他节点
+     *
+     * @param cacheName 缓存名
+     * @param keys      Redis key
+     */
+    public void evict(String cacheName, String... keys) {
+        if (keys.length == 0) {
+            return;
+        }
+        doEvict(cacheName, keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        doEvict(cacheName, keys);
+                    } catch (Exception e) {
+                        log.error("提交后删除缓存失败, cacheName: {}, keys: {}", cacheName, Arrays.toString(keys), e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void doEvict(String cacheName, String... keys) {
+        NamedCache cache = cache(cacheName);
+        redisTemplate.delete(Arrays.asList(keys));
+        for (String key : keys) {
+            cache.local.invalidate(key);
+            publish(cacheName, key);
+        }
+    }
+
+    /**
+     * 清空所有节点的本地缓存（Redis 中的数据依赖过期时间）
+     *
+     * @param cacheName 缓存名
+     */
+    public void evictAllLocal(String cacheName) {
+        cache(cacheName).local.invalidateAll();
+        publish(cacheName, ALL_KEYS);
+    }
+
+    /**
+     * 各缓存的统计信息
+     */
+    public List<CacheStatsVO> stats() {
+        List<CacheStatsVO> result = new ArrayList<>();
+        caches.forEach((cacheName, cache) -> {
+            CacheStats stats = cache.local.stats();
+            CacheStatsVO vo = new CacheStatsVO();
+            vo.setCacheName(cacheName);
+            vo.setSize(cache.local.estimatedSize());
+            vo.setHitCount(stats.hitCount());
+            vo.setMissCount(stats.missCount());
+            vo.setEvictionCount(stats.evictionCount());
+            vo.setRedisHitCount(cache.redisHits.sum());
+            vo.setRedisMissCount(cache.redisMisses.sum());
+            vo.setRemoteInvalidationCount(cache.remoteInvalidations.sum());
+            vo.setRefreshCount(cache.refreshes.sum());
+            vo.setRefreshRejectedCount(cache.refreshRejections.sum());
+            result.add(vo);
+        });
+        result.sort(Comparator.comparing(CacheStatsVO::getCacheName));
+        return result;
+    }
+
+    /**
+     * 收到其他节点的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(SEPARATOR, 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        NamedCache cache = cache(parts[1]);
+        cache.remoteInvalidations.increment();
+        if (ALL_KEYS.equals(parts[2])) {
+            cache.local.invalidateAll();
+        } else {
+            cache.local.invalidate(parts[2]);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (Exception e) {
+            // 通知失败时其他节点的本地缓存会在过期后自动失效
+            log.error("发布缓存失效通知失败, cacheName: {}, key: {}", cacheName, key, e);
+        }
+    }
+
+    private NamedCache cache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, this::createCache);
+    }
+
+    private NamedCache createCache(String cacheName) {
+        long maximumSize = twoLevelCacheConfig.getMaximumSize();
+        long expireSeconds = twoLevelCacheConfig.getExpireSeconds();
+        TwoLevelCacheConfig.Spec spec = twoLevelCacheConfig.getSpecs().get(cacheName);
+        if (spec != null) {
+            if (spec.getMaximumSize() != null) {
+                maximumSize = spec.getMaximumSize();
+            }
+            if (spec.getExpireSeconds() != null) {
+                expireSeconds = spec.getExpireSeconds();
+            }
+        }
+        Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        return new NamedCache(local);
+    }
+
+    private static final class NamedCache {
+
+        private final Cache<String, Object> local;
+
+        private final LongAdder redisHits = new LongAdder();
+
+        private final LongAdder redisMisses = new LongAdder();
+
+        private final LongAdder remoteInvalidations = new LongAdder();
+
+        private final LongAdder refreshes = new LongAdder();
+
+        private final LongAdder refreshRejections = new LongAdder();
+
+        NamedCache(Cache<String, Object> local) {
+            this.local = local;
+        }
+    }
+
+    /**
+     * 带软过期时间的缓存值
+     * 不能声明为 final：Smile 只为非 final 类型写入类名，否则从 Redis 读取时无法识别类型
+     */
+    private static class RefreshableValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Object value;
+
+        /**
+         * 软过期时间点（毫秒时间戳）
+         */
+        private long softExpireAt;
+
+        /**
+         * 上一次计算耗时（毫秒），计算越慢越早开始刷新
+         */
+        private long computeMillis;
+
+        /**
+         * 供 Redis 值反序列化使用
+         */
+        private RefreshableValue() {
+        }
+
+        RefreshableValue(Object value, long softExpireAt, long computeMillis) {
+            this.value = value;
+            this.softExpireAt = softExpireAt;
+            this.computeMillis = computeMillis;
+        }
+
+        /**
+         * XFetch：now - computeMillis * beta * ln(random) >= softExpireAt 时刷新，
+         * 越接近软过期时间、计算越慢，提前刷新的概率越大；超过软过期时间后一定刷新
+         */
+        boolean shouldRefresh(double beta) {
+            double random = ThreadLocalRandom.current().nextDouble();
+            double gap = random <= 0 ? Double.MAX_VALUE : -computeMillis * beta * Math.log(random);
+            return System.currentTimeMillis() + gap >= softExpireAt;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.huixing.fontal.manager;
+
+import cn.hutool.core.util.RandomUtil;
+import com.huixing.fontal.contant.CacheConstant;
+import com.huixing.fontal.model.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户资料批量加载
+ * 按 id 读取用户资料（脱敏）的统一入口：一批 id 先查二级缓存（本地 + 一次 Redis MGET），
+ * 未命中的再用一条 IN 查询从数据库加载，并用一次管道写回缓存。
+ * 资料缓存在用户信息修改（updateById、修改标签、好友变化）时清除。
+ * 返回的对象与缓存共享，调用方不能修改。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class UserProfileLoader {
+
+    private static final String PROFILE_KEY = "fontal:user:profile:%s";
+
+    /**
+     * 资料缓存时间（分钟），另加 0-5 分钟随机值，避免同时过期
+     */
+    private static final int EXPIRE_MINUTES = 30;
+
+    @Resource
+    private TwoLevelCache twoLevelCache;
+
+    @Resource
+    private EntityIdentityMap entityIdentityMap;
+
+    @Resource
+    private IdBloomFilter idBloomFilter;
+
+    /**
+     * 读取单个用户资料
+     *
+     * @param userId 用户ID
+     * @return 用户资料，不存在时返回 null
+     */
+    public User load(long userId) {
+        return loadAll(Collections.singletonList(userId)).get(userId);
+    }
+
+    /**
+     * 批量读取用户资料
+     *
+     * @param userIds 用户ID（可重复，null 会被忽略）
+     * @return 用户ID -> 用户资料，按传入顺序，不存在的用户不在结果中
+     */
+    public Map<Long, User> loadAll(Collection<Long> userIds) {
+        Map<Long, User> result = new LinkedHashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        ids.removeIf(Objects::isNull);
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(key(id));
+        }
+        Map<String, Object> cached = twoLevelCache.getAll(CacheConstant.USER_PROFILE, keys);
+
+        Set<Long> missIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (!cached.containsKey(key(id)) && idBloomFilter.mightExistUser(id)) {
+                missIds.add(id);
+            }
+        }
+        Map<Long, User> loaded = new HashMap<>(missIds.size() * 2);
+        if (!missIds.isEmpty()) {
+            Map<String, User> toCache = new HashMap<>(missIds.size() * 2);
+            for (User user : entityIdentityMap.listUsers(missIds)) {
+                User profile = toProfile(user);
+                loaded.put(user.getId(), profile);
+                toCache.put(key(user.getId()), profile);
+            }
+            for (Long id : missIds) {
+                if (!loaded.containsKey(id)) {
+                    idBloomFilter.markUserMissing(id);
+                }
+            }
+            try {
+                twoLevelCache.putAll(CacheConstant.USER_PROFILE, toCache,
+                        EXPIRE_MINUTES + RandomUtil.randomInt(0, 5), TimeUnit.MINUTES);
+            } catch (Exception e) {
+                log.error("写入用户资料缓存失败", e);
+            }
+        }
+
+        for (Long id : ids) {
+            Object value = cached.get(key(id));
+            User profile = value instanceof User ? (User) value : loaded.get(id);
+            if (profile != null) {
+                result.put(id, profile);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除用户资料缓存
+     *
+     * @param userId 用户ID
+     */
+    public void evict(long userId) {
+        twoLevelCache.evict(CacheConstant.USER_PROFILE, key(userId));
+    }
+
+    /**
+     * 用户脱敏（只保留可以公开的字段）
+     *
+     * @param originUser 用户信息
+     * @return 脱敏后的用户信息
+     */
+    public static User toSafeUser(User originUser) {
+        if (originUser == null) {
+            return null;
+        }
+        User safeUser = new User();
+        safeUser.setId(originUser.getId());
+        safeUser.setUsername(originUser.getUsername());
+        safeUser.setUserAccount(originUser.getUserAccount());
+        safeUser.setUserAvatarUrl(originUser.getUserAvatarUrl());
+        safeUser.setGender(originUser.getGender());
+        safeUser.setEmail(originUser.getEmail());
+        safeUser.setContactInfo(originUser.getContactInfo());
+        safeUser.setUserDesc(originUser.getUserDesc());
+        safeUser.setUserStatus(originUser.getUserStatus());
+        safeUser.setUserRole(originUser.getUserRole());
+        safeUser.setUserIds(originUser.getUserIds());
+        safeUser.setTags(originUser.getTags());
+        safeUser.setTeamIds(originUser.getTeamIds());
+        safeUser.setCreateTime(originUser.getCreateTime());
+        return safeUser;
+    }
+
+    /**
+     * 缓存的资料在脱敏字段之外再保留更新时间（登录身份据此判断是否需要刷新）和删除标记
+     */
+    private static User toProfile(User user) {
+        User profile = toSafeUser(user);
+        profile.setUpdateTime(user.getUpdateTime());
+        profile.setIsDelete(user.getIsDelete());
+        return profile;
+    }
+
+    private static String key(long userId) {
+        return String.format(PROFILE_KEY, userId);
+    }
+}
@@ -0,0 +1,410 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.huixing.fontal.mapper.UserMapper;
+import com.huixing.fontal.model.entity.User;
+import com.huixing.fontal.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * 用户标签倒排索引
+ * 维护 标签 -> 用户ID 的有序倒排表，启动时全量构建，标签更新、注册、删除时增量维护。
+ * 标签 AND 查询变为倒排表求交集，不再全表扫描并逐行解析 tags JSON。
+ * 同时负责维护 {@link UserTagMatcher} 中的用户标签位图。
+ * 索引是每个节点的本地内存：用户变化（事务提交后）通过 Redis 频道通知所有节点，各节点从数据库重新读取该用户并更新。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class UserTagIndex implements MessageListener {
+
+    /**
+     * 用户标签变化通知频道，消息内容为用户id
+     */
+    public static final String CHANGE_CHANNEL = "fontal:user:tags";
+
+    /**
+     * 全量构建时每批加载的用户数
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private UserTagMatcher userTagMatcher;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 从数据库重新读取单个用户时加锁，读取和应用按顺序进行，后读到的（更新的）数据不会被先读到的覆盖
+     */
+    private final Object reloadLock = new Object();
+
+    /**
+     * 当前索引，重建时整体替换，查询不会看到清空或只填充了一部分的索引
+     */
+    private volatile Snapshot snapshot = new Snapshot(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+    /**
+     * 增量更新与重建完成时的替换互斥，保证每个更新要么作用在替换后的新索引上，要么在替换前被重放
+     */
+    private final Object updateLock = new Object();
+
+    /**
+     * 重建期间到达的增量更新（用户ID -> 最新标签，null 表示删除），重建完成后重放到新索引；不在重建时为 null
+     */
+    private Map<Long, PendingUpdate> pendingUpdates;
+
+    /**
+     * 索引是否已构建完成，未完成时调用方应回退到数据库查询
+     */
+    private volatile boolean ready = false;
+
+    /**
+     * 应用启动完成后构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建索引（按 id 分批加载，只查 id 和 tags）
+     * 在新的 Map 中构建，重放构建期间的增量更新后一次性替换
+     */
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        synchronized (updateLock) {
+            pendingUpdates = new HashMap<>();
+        }
+        try {
+            Map<String, ConcurrentSkipListSet<Long>> newPostings = new ConcurrentHashMap<>();
+            Map<Long, Set<String>> newUserTags = new ConcurrentHashMap<>();
+            Map<Long, Set<String>> activeUserTags = new HashMap<>();
+            long lastId = 0;
+            while (true) {
+                QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+                queryWrapper.select("id", "tags", "userStatus")
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("LIMIT " + LOAD_BATCH_SIZE);
+                List<User> batch = userMapper.selectList(queryWrapper);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (User user : batch) {
+                    Set<String> tags;
+                    try {
+                        tags = normalize(StringUtils.stringJsonListToStringSet(user.getTags()));
+                    } catch (Exception e) {
+                        log.warn("用户 {} 的标签格式错误，跳过: {}", user.getId(), user.getTags());
+                        continue;
+                    }
+                    newUserTags.put(user.getId(), tags);
+                    if (isActive(user.getUserStatus())) {
+                        activeUserTags.put(user.getId(), tags);
+                    }
+                    for (String tag : tags) {
+                        newPostings.computeIfAbsent(tag, k -> new ConcurrentSkipListSet<>()).add(user.getId());
+                    }
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            Snapshot newSnapshot = new Snapshot(newPostings, newUserTags);
+            int replayed;
+            synchronized (updateLock) {
+                replayed = pendingUpdates.size();
+                pendingUpdates.forEach((userId, update) -> {
+                    if (update == null) {
+                        newSnapshot.remove(userId);
+                        activeUserTags.remove(userId);
+                    } else {
+                        newSnapshot.update(userId, update.tags);
+                        if (update.active) {
+                            activeUserTags.put(userId, update.tags);
+                        } else {
+                            activeUserTags.remove(userId);
+                        }
+                    }
+                });
+                pendingUpdates = null;
+                snapshot = newSnapshot;
+                userTagMatcher.reset(activeUserTags);
+            }
+            ready = true;
+            log.info("用户标签索引构建完成：{} 个用户，{} 个标签，重放 {} 个增量更新，耗时 {}ms",
+                    newUserTags.size(), newPostings.size(), replayed, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            synchronized (updateLock) {
+                pendingUpdates = null;
+            }
+            log.error("用户标签索引构建失败，标签查询将回退到数据库", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用户注册、修改标签、删除后调用
+     * 在事务中调用时等提交后再处理：本机从数据库重新读取该用户更新索引，并通知其他节点同样处理
+     *
+     * @param userId 用户ID
+     */
+    public void refresh(long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(userId);
+                    publish(userId);
+                }
+            });
+        } else {
+            reload(userId);
+            publish(userId);
+        }
+    }
+
+    /**
+     * 收到用户标签变化通知（包括本节点发出的，重复读取一次无副作用）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        long userId;
+        try {
+            userId = Long.parseLong(body);
+        } catch (NumberFormatException e) {
+            log.warn("无效的用户标签变化通知: {}", body);
+            return;
+        }
+        try {
+            reload(userId);
+        } catch (Exception e) {
+            log.error("更新用户 {} 的标签索引失败", userId, e);
+        }
+    }
+
+    /**
+     * 从数据库读取用户的当前标签和状态并更新本机索引，用户不存在（已删除）时移除
+     */
+    private void reload(long userId) {
+        synchronized (reloadLock) {
+            QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "tags", "userStatus").eq("id", userId);
+            User user = userMapper.selectOne(queryWrapper);
+            if (user == null) {
+                remove(userId);
+                return;
+            }
+            Set<String> tags;
+            try {
+                tags = StringUtils.stringJsonListToStringSet(user.getTags());
+            } catch (Exception e) {
+                log.warn("用户 {} 的标签格式错误，跳过: {}", userId, user.getTags());
+                return;
+            }
+            update(userId, user.getUserStatus(), tags);
+        }
+    }
+
+    private void publish(long userId) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANGE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 通知失败时其他节点在每天的全量重建时修正
+            log.error("发布用户标签变化通知失败, userId: {}", userId, e);
+        }
+    }
+
+    /**
+     * 更新本机索引中的用户标签
+     *
+     * @param userId     用户ID
+     * @param userStatus 用户状态，非正常状态的用户不参与相似度匹配
+     * @param tags       用户的全部新标签
+     */
+    void update(long userId, Integer userStatus, Collection<String> tags) {
+        Set<String> newTags = normalize(tags);
+        boolean active = isActive(userStatus);
+        synchronized (updateLock) {
+            if (pendingUpdates != null) {
+                pendingUpdates.put(userId, new PendingUpdate(newTags, active));
+            }
+            userTagMatcher.update(userId, newTags, active);
+            snapshot.update(userId, newTags);
+        }
+    }
+
+    /**
+     * 从本机索引中移除用户
+     *
+     * @param userId 用户ID
+     */
+    void remove(long userId) {
+        synchronized (updateLock) {
+            if (pendingUpdates != null) {
+                pendingUpdates.put(userId, null);
+            }
+            userTagMatcher.remove(userId);
+            snapshot.remove(userId);
+        }
+    }
+
+    /**
+     * 获取用户的标准化标签
+     *
+     * @param userId 用户ID
+     * @return 标签集合，索引中不存在该用户时返回 null
+     */
+    public Set<String> getTags(long userId) {
+        return snapshot.userTags.get(userId);
+    }
+
+    /**
+     * 标签 AND 查询：返回同时拥有全部标签的用户ID（升序）
+     *
+     * @param tagNames 标签集合
+     * @return 用户ID列表
+     */
+    public List<Long> searchAll(Collection<String> tagNames) {
+        Set<String> tags = normalize(tagNames);
+        if (tags.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, ConcurrentSkipListSet<Long>> postings = snapshot.postings;
+        List<ConcurrentSkipListSet<Long>> lists = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            ConcurrentSkipListSet<Long> posting = postings.get(tag);
+            if (posting == null || posting.isEmpty()) {
+                return new ArrayList<>();
+            }
+            lists.add(posting);
+        }
+        // 从最短的倒排表开始求交集
+        lists.sort(Comparator.comparingInt(ConcurrentSkipListSet::size));
+        ConcurrentSkipListSet<Long> shortest = lists.get(0);
+        List<Long> result = new ArrayList<>();
+        for (Long userId : shortest) {
+            boolean matched = true;
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(userId)) {
+                    matched = false;
+                    break;
+                }
+            }
+            if (matched) {
+                result.add(userId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 状态为空时按数据库默认值（0 正常）处理
+     */
+    private static boolean isActive(Integer userStatus) {
+        return userStatus == null || userStatus == 0;
+    }
+
+    /**
+     * 标签标准化：去空、首字母大写（与 updateTageById 的存储格式一致）
+     */
+    public static Set<String> normalize(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return tags.stream()
+                .filter(org.apache.commons.lang3.StringUtils::isNotBlank)
+                .map(org.apache.commons.lang3.StringUtils::capitalize)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 倒排表和用户标签，作为一个整体替换
+     */
+    private static final class Snapshot {
+
+        /**
+         * 标签 -> 用户ID（升序）
+         */
+        final Map<String, ConcurrentSkipListSet<Long>> postings;
+
+        /**
+         * 用户ID -> 标准化后的标签，用于增量更新时找到旧标签
+         */
+        final Map<Long, Set<String>> userTags;
+
+        Snapshot(Map<String, ConcurrentSkipListSet<Long>> postings, Map<Long, Set<String>> userTags) {
+            this.postings = postings;
+            this.userTags = userTags;
+        }
+
+        void update(long userId, Set<String> newTags) {
+            userTags.compute(userId, (id, oldTags) -> {
+                if (oldTags != null) {
+                    for (String tag : oldTags) {
+                        if (!newTags.contains(tag)) {
+                            removePosting(tag, id);
+                        }
+                    }
+                }
+                for (String tag : newTags) {
+                    postings.computeIfAbsent(tag, k -> new ConcurrentSkipListSet<>()).add(id);
+                }
+                return newTags;
+            });
+        }
+
+        void remove(long userId) {
+            userTags.computeIfPresent(userId, (id, oldTags) -> {
+                for (String tag : oldTags) {
+                    removePosting(tag, id);
+                }
+                return null;
+            });
+        }
+
+        private void removePosting(String tag, Long userId) {
+            postings.computeIfPresent(tag, (k, posting) -> {
+                posting.remove(userId);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    /**
+     * 重建期间到达的标签更新
+     */
+    private static final class PendingUpdate {
+
+        final Set<String> tags;
+
+        final boolean active;
+
+        PendingUpdate(Set<String> tags, boolean active) {
+            this.tags = tags;
+            this.active = active;
+        }
+    }
+}
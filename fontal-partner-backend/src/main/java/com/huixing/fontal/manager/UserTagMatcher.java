@@ -0,0 +1,107 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.utils.TopKHeap;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户标签相似度匹配引擎
+ * 内存中为每个正常状态的用户保存一个标签位图（long[]），
+ * 匹配分数 = popcount(a & b)，即共同标签数，用定长小顶堆（{@link TopKHeap}）保留前 K 个结果。
+ * 数据由 {@link UserTagIndex} 在构建和增量更新时同步维护。
+ *
+ * @author fontal
+ */
+@Component
+public class UserTagMatcher {
+
+    @Resource
+    private TagDictionary tagDictionary;
+
+    /**
+     * 用户ID -> 标签位图（仅包含正常状态且有标签的用户），重建时整体替换
+     */
+    private volatile Map<Long, long[]> vectors = new ConcurrentHashMap<>();
+
+    /**
+     * 全量替换位图（索引重建时调用），在新 Map 中构建后一次性替换，匹配不会看到空的位图表
+     *
+     * @param userTags 正常状态用户的标准化标签
+     */
+    void reset(Map<Long, ? extends Collection<String>> userTags) {
+        Map<Long, long[]> newVectors = new ConcurrentHashMap<>(userTags.size() * 2);
+        userTags.forEach((userId, tags) -> {
+            if (!tags.isEmpty()) {
+                newVectors.put(userId, tagDictionary.encode(tags));
+            }
+        });
+        vectors = newVectors;
+    }
+
+    /**
+     * 更新单个用户的位图
+     *
+     * @param userId 用户ID
+     * @param tags   标准化后的全部标签
+     * @param active 是否为正常状态用户，非正常用户不参与匹配
+     */
+    void update(long userId, Collection<String> tags, boolean active) {
+        if (!active || tags.isEmpty()) {
+            vectors.remove(userId);
+            return;
+        }
+        vectors.put(userId, tagDictionary.encode(tags));
+    }
+
+    void remove(long userId) {
+        vectors.remove(userId);
+    }
+
+    /**
+     * 计算与给定标签最相似的前 K 个用户
+     * 按共同标签数降序，分数相同时按用户ID升序，只返回分数大于 0 的用户
+     *
+     * @param tags          标准化后的查询标签
+     * @param excludeUserId 需要排除的用户（通常是自己）
+     * @param k             返回数量
+     * @return 用户ID列表
+     */
+    public List<Long> topK(Collection<String> tags, long excludeUserId, int k) {
+        long[] query = tagDictionary.encodeExisting(tags);
+        if (k <= 0 || query.length == 0) {
+            return new ArrayList<>();
+        }
+        TopKHeap heap = new TopKHeap(k);
+        for (Map.Entry<Long, long[]> entry : vectors.entrySet()) {
+            long userId = entry.getKey();
+            if (userId == excludeUserId) {
+                continue;
+            }
+            int score = score(query, entry.getValue());
+            if (score > 0) {
+                heap.offer(userId, score);
+            }
+        }
+        long[] ids = heap.toSortedIds();
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static int score(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        int score = 0;
+        for (int i = 0; i < n; i++) {
+            score += Long.bitCount(a[i] & b[i]);
+        }
+        return score;
+    }
+}
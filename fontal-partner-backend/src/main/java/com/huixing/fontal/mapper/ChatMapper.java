@@ -3,6 +3,10 @@ package com.huixing.fontal.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.huixing.fontal.model.entity.Chat;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 聊天消息Mapper接口
@@ -11,4 +15,24 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface ChatMapper extends BaseMapper<Chat> {
+
+    /**
+     * 批量插入聊天记录（id 已生成），已存在的 id 忽略
+     *
+     * @param chats 聊天记录
+     * @return 新插入的行数
+     */
+    int insertIgnoreBatch(@Param("chats") Collection<Chat> chats);
+
+    /**
+     * 查询两人之间 id 小于 beforeId 的私聊记录（id 降序）
+     *
+     * @param userId      用户id
+     * @param otherUserId 对方用户id
+     * @param beforeId    游标，为 null 时从最新开始
+     * @param limit       返回数量
+     * @return 聊天记录
+     */
+    List<Chat> selectPrivateBefore(@Param("userId") long userId, @Param("otherUserId") long otherUserId,
+                                   @Param("beforeId") Long beforeId, @Param("limit") int limit);
 }
@@ -0,0 +1,25 @@
+package com.huixing.fontal.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.huixing.fontal.model.entity.Tag;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 标签Mapper接口
+ *
+ * @author fontal
+ */
+@Mapper
+public interface TagMapper extends BaseMapper<Tag> {
+
+    /**
+     * 批量插入标签，已存在的标签忽略
+     *
+     * @param tagNames 标签名
+     * @return 新插入的行数
+     */
+    int insertIgnoreBatch(@Param("tagNames") Collection<String> tagNames);
+}
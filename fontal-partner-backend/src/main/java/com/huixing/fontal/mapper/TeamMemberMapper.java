@@ -0,0 +1,14 @@
+package com.huixing.fontal.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.huixing.fontal.model.entity.TeamMember;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 队伍成员Mapper接口
+ *
+ * @author fontal
+ */
+@Mapper
+public interface TeamMemberMapper extends BaseMapper<TeamMember> {
+}
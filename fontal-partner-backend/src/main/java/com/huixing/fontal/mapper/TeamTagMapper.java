@@ -0,0 +1,47 @@
+package com.huixing.fontal.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.huixing.fontal.model.entity.TeamTag;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 队伍标签画像Mapper接口
+ *
+ * @author fontal
+ */
+@Mapper
+public interface TeamTagMapper extends BaseMapper<TeamTag> {
+
+    /**
+     * 批量累加队伍标签计数，不存在的标签插入新行
+     *
+     * @param teamId   队伍id
+     * @param tagNames 标签名（首字母大写，不重复）
+     * @param delta    增量（成员加入为 1，退出为 -1）
+     * @return 影响行数
+     */
+    int incrementBatch(@Param("teamId") long teamId,
+                       @Param("tagNames") Collection<String> tagNames,
+                       @Param("delta") int delta);
+
+    /**
+     * 按成员和用户标签重算 [minTeamId, maxTeamId) 内队伍的标签计数
+     *
+     * @param minTeamId 起始队伍id（含）
+     * @param maxTeamId 结束队伍id（不含）
+     * @return 影响行数
+     */
+    int recomputeRange(@Param("minTeamId") long minTeamId, @Param("maxTeamId") long maxTeamId);
+
+    /**
+     * 删除 [minTeamId, maxTeamId) 内已没有成员拥有的标签行
+     *
+     * @param minTeamId 起始队伍id（含）
+     * @param maxTeamId 结束队伍id（不含）
+     * @return 删除行数
+     */
+    int deleteStaleRange(@Param("minTeamId") long minTeamId, @Param("maxTeamId") long maxTeamId);
+}
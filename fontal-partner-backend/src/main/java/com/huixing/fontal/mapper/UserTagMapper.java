@@ -0,0 +1,49 @@
+package com.huixing.fontal.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.huixing.fontal.model.entity.UserTag;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户标签关系Mapper接口
+ *
+ * @author fontal
+ */
+@Mapper
+public interface UserTagMapper extends BaseMapper<UserTag> {
+
+    /**
+     * 批量插入用户标签，已存在的关系忽略
+     *
+     * @param userId 用户id
+     * @param tagIds 标签id
+     * @return 新插入的行数
+     */
+    int insertIgnoreBatch(@Param("userId") long userId, @Param("tagIds") Collection<Long> tagIds);
+
+    /**
+     * 查询同时拥有全部标签的用户id（升序）
+     *
+     * @param tagNames 标签名（首字母大写，不重复）
+     * @param tagCount 标签数量
+     * @return 用户id
+     */
+    List<Long> selectUserIdsByAllTags(@Param("tagNames") Collection<String> tagNames,
+                                      @Param("tagCount") int tagCount);
+
+    /**
+     * 按共同标签数降序查询相似用户id，分数相同按id升序
+     *
+     * @param tagNames      标签名（首字母大写）
+     * @param excludeUserId 排除的用户id
+     * @param limit         返回数量
+     * @return 用户id
+     */
+    List<Long> selectMatchUserIds(@Param("tagNames") Collection<String> tagNames,
+                                  @Param("excludeUserId") long excludeUserId,
+                                  @Param("limit") int limit);
+}
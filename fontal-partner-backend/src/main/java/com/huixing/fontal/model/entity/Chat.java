@@ -20,9 +20,9 @@ public class Chat implements Serializable {
     @TableField(exist = false)
     private static final long serialVersionUID = 1L;
     /**
-     * 聊天记录id
+     * 聊天记录id（雪花 id，写库前生成）
      */
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     /**
      * 发送消息id
@@ -0,0 +1,35 @@
+package com.huixing.fontal.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 标签表
+ *
+ * @author fontal
+ */
+@TableName(value = "tag")
+@Data
+public class Tag implements Serializable {
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    /**
+     * 标签名（首字母大写）
+     */
+    private String tagName;
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+}
@@ -0,0 +1,43 @@
+package com.huixing.fontal.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 队伍成员表
+ *
+ * @author fontal
+ */
+@TableName(value = "team_member")
+@Data
+public class TeamMember implements Serializable {
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    /**
+     * 队伍id
+     */
+    private Long teamId;
+    /**
+     * 用户id
+     */
+    private Long userId;
+    /**
+     * 角色 0-成员 1-队长
+     */
+    private Integer role;
+    /**
+     * 加入时间
+     */
+    private Date joinTime;
+}
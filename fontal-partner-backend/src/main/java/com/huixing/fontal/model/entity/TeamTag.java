@@ -0,0 +1,43 @@
+package com.huixing.fontal.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 队伍标签画像表
+ *
+ * @author fontal
+ */
+@TableName(value = "team_tag")
+@Data
+public class TeamTag implements Serializable {
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    /**
+     * 队伍id
+     */
+    private Long teamId;
+    /**
+     * 标签名
+     */
+    private String tagName;
+    /**
+     * 拥有该标签的成员数
+     */
+    private Integer memberCount;
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+}
@@ -0,0 +1,39 @@
+package com.huixing.fontal.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 用户标签关系表
+ *
+ * @author fontal
+ */
+@TableName(value = "user_tag")
+@Data
+public class UserTag implements Serializable {
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    /**
+     * 用户id
+     */
+    private Long userId;
+    /**
+     * 标签id
+     */
+    private Long tagId;
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+}
@@ -0,0 +1,18 @@
+package com.huixing.fontal.model.request;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 刷新登录令牌请求体
+ *
+ * @author fontal
+ */
+@Data
+public class TokenRefreshRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String refreshToken;
+}
@@ -0,0 +1,32 @@
+package com.huixing.fontal.model.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 会话中保存的登录身份
+ * 只保存鉴权需要的字段，其余用户资料通过 UserService#getUserProfile 从缓存读取。
+ *
+ * @author fontal
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long userId;
+
+    private int userRole;
+
+    private int userStatus;
+
+    /**
+     * 写入会话时用户资料的版本（updateTime 毫秒数），资料更新后据此刷新会话中的角色和状态
+     */
+    private long version;
+}
@@ -0,0 +1,31 @@
+package com.huixing.fontal.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 登录令牌VO（令牌鉴权模式）
+ *
+ * @author fontal
+ */
+@Data
+public class AuthTokenVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 访问令牌，请求时放在 Authorization: Bearer 头中
+     */
+    private String accessToken;
+
+    /**
+     * 访问令牌有效期（秒）
+     */
+    private Long expiresIn;
+
+    /**
+     * 刷新令牌，只能使用一次，刷新后返回新的刷新令牌
+     */
+    private String refreshToken;
+}
@@ -0,0 +1,66 @@
+package com.huixing.fontal.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 二级缓存统计VO
+ *
+ * @author fontal
+ */
+@Data
+public class CacheStatsVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存名
+     */
+    private String cacheName;
+
+    /**
+     * 一级缓存当前条目数（估算值）
+     */
+    private Long size;
+
+    /**
+     * 一级缓存命中次数
+     */
+    private Long hitCount;
+
+    /**
+     * 一级缓存未命中次数
+     */
+    private Long missCount;
+
+    /**
+     * 一级缓存淘汰次数（容量或过期）
+     */
+    private Long evictionCount;
+
+    /**
+     * 一级未命中后 Redis 命中次数
+     */
+    private Long redisHitCount;
+
+    /**
+     * 一级、二级均未命中次数
+     */
+    private Long redisMissCount;
+
+    /**
+     * 收到的其他节点失效通知次数
+     */
+    private Long remoteInvalidationCount;
+
+    /**
+     * 后台提前刷新成功次数
+     */
+    private Long refreshCount;
+
+    /**
+     * 后台刷新线程池已满被放弃的次数
+     */
+    private Long refreshRejectedCount;
+}
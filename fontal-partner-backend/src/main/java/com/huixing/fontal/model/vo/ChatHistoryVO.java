@@ -0,0 +1,32 @@
+package com.huixing.fontal.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 聊天记录分页结果VO
+ *
+ * @author fontal
+ */
+@Data
+public class ChatHistoryVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 本页消息（按时间升序）
+     */
+    private List<MessageVo> messages;
+
+    /**
+     * 下一页（更早消息）的游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更早的消息
+     */
+    private Boolean hasMore;
+}
@@ -0,0 +1,66 @@
+package com.huixing.fontal.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * WebSocket 出站队列统计VO
+ *
+ * @author fontal
+ */
+@Data
+public class ChatOutboundStatsVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 队列满时的处理方式
+     */
+    private String overflowPolicy;
+
+    /**
+     * 当前连接数
+     */
+    private Integer connectionCount;
+
+    /**
+     * 当前排队的消息总数
+     */
+    private Long queuedCount;
+
+    /**
+     * 当前最长的队列长度
+     */
+    private Integer maxQueueDepth;
+
+    /**
+     * 入队消息数
+     */
+    private Long enqueuedCount;
+
+    /**
+     * 发送成功的消息数
+     */
+    private Long sentCount;
+
+    /**
+     * 队列满被丢弃的消息数
+     */
+    private Long droppedCount;
+
+    /**
+     * 被同 key 新消息替换的消息数
+     */
+    private Long coalescedCount;
+
+    /**
+     * 因队列满被断开的连接数
+     */
+    private Long disconnectedCount;
+
+    /**
+     * 发送失败（网络异常、超时）的次数
+     */
+    private Long failedCount;
+}
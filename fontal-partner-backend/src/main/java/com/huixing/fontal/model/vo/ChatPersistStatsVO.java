@@ -0,0 +1,62 @@
+package com.huixing.fontal.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 聊天记录异步写库统计VO
+ *
+ * @author fontal
+ */
+@Data
+public class ChatPersistStatsVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 当前批次中未写库的消息数
+     */
+    private Integer pendingCount;
+
+    /**
+     * 已封存等待写库（或写库失败等待重试）的日志段数
+     */
+    private Integer sealedSegmentCount;
+
+    /**
+     * 写库延迟：最早一条未写库消息距今的毫秒数，没有积压时为 0
+     */
+    private Long flushLagMillis;
+
+    /**
+     * 提交的消息数
+     */
+    private Long submittedCount;
+
+    /**
+     * 写库成功的消息数
+     */
+    private Long persistedCount;
+
+    /**
+     * 从上次进程残留的日志中重放的消息数
+     */
+    private Long replayedCount;
+
+    /**
+     * 写库失败次数
+     */
+    private Long failedFlushCount;
+
+    /**
+     * 最近一次写库成功的时间
+     */
+    private Date lastFlushTime;
+
+    /**
+     * 最近一次写库耗时（毫秒）
+     */
+    private Long lastFlushMillis;
+}
@@ -13,6 +13,10 @@ import java.io.Serializable;
 @Data
 public class MessageVo implements Serializable {
     private static final long serialVersionUID = -4722378360550337925L;
+    /**
+     * 消息id（雪花 id 超出 JS 安全整数范围，用字符串返回），客户端据此对实时消息和历史记录去重
+     */
+    private String id;
     private WebSocketVo formUser;
     private WebSocketVo toUser;
     private Long teamId;
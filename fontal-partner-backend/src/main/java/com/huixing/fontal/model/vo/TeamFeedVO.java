@@ -0,0 +1,32 @@
+package com.huixing.fontal.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 队伍发现页分页结果VO
+ *
+ * @author fontal
+ */
+@Data
+public class TeamFeedVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 本页队伍
+     */
+    private List<TeamVo> teams;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+}
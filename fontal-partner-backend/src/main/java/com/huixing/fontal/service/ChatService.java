@@ -0,0 +1,63 @@
+package com.huixing.fontal.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.huixing.fontal.model.entity.Chat;
+import com.huixing.fontal.model.vo.ChatHistoryVO;
+import com.huixing.fontal.model.vo.MessageVo;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 聊天服务接口
+ *
+ * @author fontal
+ */
+public interface ChatService extends IService<Chat> {
+
+    /**
+     * 保存聊天记录：分配 id 后异步写库，并写入会话的最近消息列表
+     *
+     * @param chat 聊天记录
+     */
+    void saveMessage(Chat chat);
+
+    /**
+     * 聊天记录转换为推送给客户端的消息
+     *
+     * @param chat 聊天记录
+     * @return 消息VO
+     */
+    MessageVo toMessageVo(Chat chat);
+
+    /**
+     * 大厅聊天记录
+     *
+     * @param cursor  上一页返回的游标，为空时从最新消息开始
+     * @param size    每页条数
+     * @param request HTTP请求
+     * @return 聊天记录分页结果
+     */
+    ChatHistoryVO getHallHistory(String cursor, int size, HttpServletRequest request);
+
+    /**
+     * 队伍聊天记录（仅队伍成员）
+     *
+     * @param teamId  队伍id
+     * @param cursor  上一页返回的游标，为空时从最新消息开始
+     * @param size    每页条数
+     * @param request HTTP请求
+     * @return 聊天记录分页结果
+     */
+    ChatHistoryVO getTeamHistory(long teamId, String cursor, int size, HttpServletRequest request);
+
+    /**
+     * 与某个用户的私聊记录
+     *
+     * @param otherUserId 对方用户id
+     * @param cursor      上一页返回的游标，为空时从最新消息开始
+     * @param size        每页条数
+     * @param request     HTTP请求
+     * @return 聊天记录分页结果
+     */
+    ChatHistoryVO getPrivateHistory(long otherUserId, String cursor, int size, HttpServletRequest request);
+}
@@ -0,0 +1,101 @@
+package com.huixing.fontal.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.huixing.fontal.model.entity.TeamMember;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 队伍成员服务接口
+ *
+ * @author fontal
+ */
+public interface TeamMemberService extends IService<TeamMember> {
+
+    /**
+     * 查询队伍成员id（按加入时间升序）
+     *
+     * @param teamId 队伍id
+     * @return 成员id
+     */
+    List<Long> listMemberIds(long teamId);
+
+    /**
+     * 批量查询多个队伍的成员id
+     *
+     * @param teamIds 队伍id
+     * @return 队伍id -> 成员id（按加入时间升序），没有成员的队伍对应空列表
+     */
+    Map<Long, List<Long>> listMemberIdsByTeamIds(Collection<Long> teamIds);
+
+    /**
+     * 查询用户加入的队伍id
+     *
+     * @param userId 用户id
+     * @return 队伍id
+     */
+    List<Long> listTeamIds(long userId);
+
+    /**
+     * 查询队伍当前人数
+     *
+     * @param teamId 队伍id
+     * @return 成员数
+     */
+    long countMembers(long teamId);
+
+    /**
+     * 批量查询多个队伍的当前人数
+     *
+     * @param teamIds 队伍id
+     * @return 队伍id -> 成员数，没有成员的队伍不在结果中
+     */
+    Map<Long, Integer> countMembersByTeamIds(Collection<Long> teamIds);
+
+    /**
+     * 判断用户是否是队伍成员
+     *
+     * @param teamId 队伍id
+     * @param userId 用户id
+     * @return 是否是成员
+     */
+    boolean isMember(long teamId, long userId);
+
+    /**
+     * 添加队伍成员
+     *
+     * @param teamId 队伍id
+     * @param userId 用户id
+     * @param role   角色
+     * @return 是否添加成功，已是成员时返回 false
+     */
+    boolean addMember(long teamId, long userId, int role);
+
+    /**
+     * 移除队伍成员
+     *
+     * @param teamId 队伍id
+     * @param userId 用户id
+     * @return 是否移除成功，不是成员时返回 false
+     */
+    boolean removeMember(long teamId, long userId);
+
+    /**
+     * 移除队伍全部成员（解散队伍时调用）
+     *
+     * @param teamId 队伍id
+     * @return 被移除的成员id
+     */
+    List<Long> removeAllMembers(long teamId);
+
+    /**
+     * 转让队长角色
+     *
+     * @param teamId      队伍id
+     * @param oldLeaderId 原队长id
+     * @param newLeaderId 新队长id
+     */
+    void changeLeader(long teamId, long oldLeaderId, long newLeaderId);
+}
@@ -9,6 +9,7 @@ import com.huixing.fontal.model.request.TeamJoinRequest;
 import com.huixing.fontal.model.request.TeamUpdateRequest;
 import com.huixing.fontal.model.request.TransferTeamRequest;
 import com.huixing.fontal.model.vo.TeamBasicVO;
+import com.huixing.fontal.model.vo.TeamFeedVO;
 import com.huixing.fontal.model.vo.TeamJoinApplyVO;
 import com.huixing.fontal.model.vo.TeamMembershipVO;
 import com.huixing.fontal.model.vo.TeamUserVo;
@@ -23,6 +24,16 @@ public interface TeamService extends IService<Team> {
 
     TeamUserVo getTeams();
 
+    /**
+     * 队伍发现页分页查询
+     * 每个会话使用固定的随机种子，从种子决定的位置开始按 id 环形遍历全部有效队伍，页内再按种子打乱
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size 每页数量
+     * @param request HTTP请求
+     * @return 本页队伍和下一页游标
+     */
+    TeamFeedVO getTeamFeed(String cursor, int size, HttpServletRequest request);
+
     TeamUserVo teamSet(List<Team> teamList);
 
     TeamUserVo getTeamsByIds(Set<Long> teamIds, HttpServletRequest request);
@@ -70,4 +81,11 @@ public interface TeamService extends IService<Team> {
      * @return 队伍列表
      */
     List<TeamVo> searchTeams(String searchText);
+
+    /**
+     * 清除队伍缓存（卡片、详情、基础信息），并使受影响的列表缓存命名空间失效
+     * @param teamId 队伍ID
+     * @param namespaces 本次修改影响的缓存命名空间（见 CacheConstant.NS_*）
+     */
+    void evictTeamCache(Long teamId, String... namespaces);
 }
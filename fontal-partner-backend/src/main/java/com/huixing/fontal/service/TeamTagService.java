@@ -0,0 +1,83 @@
+package com.huixing.fontal.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.huixing.fontal.model.entity.TeamTag;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 队伍标签画像服务接口
+ * 画像为队伍成员标签的计数，持久化在 team_tag 表，并缓存为 Redis Hash；
+ * 同时维护 标签 -> 队伍 的 Redis Set 倒排表，用于推荐时生成候选队伍
+ *
+ * @author fontal
+ */
+public interface TeamTagService extends IService<TeamTag> {
+
+    /**
+     * 成员加入队伍后，将成员标签计入队伍画像
+     *
+     * @param teamId 队伍id
+     * @param userId 用户id
+     */
+    void addMemberTags(long teamId, long userId);
+
+    /**
+     * 成员退出队伍后，将成员标签从队伍画像中扣除
+     *
+     * @param teamId 队伍id
+     * @param userId 用户id
+     */
+    void removeMemberTags(long teamId, long userId);
+
+    /**
+     * 删除队伍画像（解散队伍时调用）
+     *
+     * @param teamId 队伍id
+     */
+    void removeTeam(long teamId);
+
+    /**
+     * 用户修改标签后，更新其所在全部队伍的画像
+     *
+     * @param userId  用户id
+     * @param oldTags 标准化后的旧标签
+     * @param newTags 标准化后的新标签
+     */
+    void changeUserTags(long userId, Set<String> oldTags, Set<String> newTags);
+
+    /**
+     * 批量查询队伍画像
+     *
+     * @param teamIds 队伍id
+     * @return 队伍id -> (标签 -> 成员数)，没有标签的队伍对应空 Map
+     */
+    Map<Long, Map<String, Integer>> listProfiles(Collection<Long> teamIds);
+
+    /**
+     * 查询拥有任一标签的队伍id（标签 -> 队伍 倒排表的并集）
+     *
+     * @param tags 标签
+     * @return 队伍id，倒排表尚未构建时返回 null
+     */
+    Set<Long> listTeamIdsByTags(Collection<String> tags);
+
+    /**
+     * 标签 -> 队伍 倒排表是否已构建
+     *
+     * @return 是否已构建
+     */
+    boolean isTagTeamsReady();
+
+    /**
+     * 根据 team_tag 表全量重建 标签 -> 队伍 倒排表
+     */
+    void rebuildTagTeams();
+
+    /**
+     * 按 team_member × user_tag 全量重算 team_tag 表，修正增量维护中累积的偏差
+     */
+    void recomputeProfiles();
+}
@@ -6,6 +6,8 @@ import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.model.request.UpdateTagRequest;
 import com.huixing.fontal.model.request.UpdatePasswordRequest;
 import com.huixing.fontal.model.request.UserUpdateRequest;
+import com.huixing.fontal.model.session.LoginPrincipal;
+import com.huixing.fontal.model.vo.AuthTokenVO;
 import com.huixing.fontal.model.vo.UserDetailVO;
 import com.huixing.fontal.model.vo.UserVO;
 
@@ -22,10 +24,54 @@ public interface UserService extends IService<User> {
 
     long userRegistration(String username, String userAccount, String userPassword, String checkPassword);
 
+    /**
+     * 获取当前登录用户的完整资料（会话中的登录身份 + 缓存的用户资料）
+     */
     User getLoginUser(HttpServletRequest request);
 
+    /**
+     * 获取会话中的登录身份，不读取用户资料
+     * @param request HTTP请求
+     * @return 登录身份
+     */
+    LoginPrincipal getLoginPrincipal(HttpServletRequest request);
+
+    /**
+     * 获取当前登录用户ID，不读取用户资料
+     * @param request HTTP请求
+     * @return 用户ID
+     */
+    long getLoginUserId(HttpServletRequest request);
+
+    /**
+     * 获取用户资料（脱敏，带缓存）
+     * @param userId 用户ID
+     * @return 用户资料，用户不存在时返回 null
+     */
+    User getUserProfile(long userId);
+
+    /**
+     * 用户资料变化后清除资料缓存（包括本请求内的实体映射）
+     * @param userId 用户ID
+     */
+    void evictUserProfile(long userId);
+
     User getSafetyUser(User user);
 
+    /**
+     * 签发登录令牌（令牌鉴权模式）
+     * @param user 登录用户
+     * @return 令牌，会话鉴权模式下返回 null
+     */
+    AuthTokenVO createLoginToken(User user);
+
+    /**
+     * 用刷新令牌换一组新令牌（令牌鉴权模式）
+     * @param refreshToken 刷新令牌
+     * @return 新令牌
+     */
+    AuthTokenVO refreshLoginToken(String refreshToken);
+
     Integer loginOut(HttpServletRequest request);
 
     /**
@@ -71,6 +117,15 @@ public interface UserService extends IService<User> {
 
     List<User> computeMatchUsers(User loginUser);
 
+    /**
+     * 计算与登录用户标签最相似的用户（按共同标签数降序）
+     *
+     * @param loginUser 登录用户
+     * @param limit     返回数量
+     * @return 相似用户列表
+     */
+    List<User> computeMatchUsers(User loginUser, int limit);
+
     /**
      * 根据搜索文本查询用户（分页）
      * @param searchText 搜索文本
@@ -0,0 +1,41 @@
+package com.huixing.fontal.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.huixing.fontal.model.entity.UserTag;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户标签关系服务接口
+ *
+ * @author fontal
+ */
+public interface UserTagService extends IService<UserTag> {
+
+    /**
+     * 用新的标签集合覆盖用户在 user_tag 表中的标签（与 user.tags 双写）
+     *
+     * @param userId 用户id
+     * @param tags   标准化后的全部标签
+     */
+    void replaceUserTags(long userId, Set<String> tags);
+
+    /**
+     * 查询同时拥有全部标签的用户id（升序）
+     *
+     * @param tags 标准化后的标签
+     * @return 用户id
+     */
+    List<Long> listUserIdsByAllTags(Set<String> tags);
+
+    /**
+     * 按共同标签数降序查询相似用户id
+     *
+     * @param tags          标准化后的标签
+     * @param excludeUserId 排除的用户id
+     * @param limit         返回数量
+     * @return 用户id
+     */
+    List<Long> listMatchUserIds(Set<String> tags, long excludeUserId, int limit);
+}
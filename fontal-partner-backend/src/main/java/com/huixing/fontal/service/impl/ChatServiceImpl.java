@@ -0,0 +1,296 @@
+package com.huixing.fontal.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.contant.ChatConstant;
+import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.ChatWriteBehind;
+import com.huixing.fontal.manager.TeamRoster;
+import com.huixing.fontal.manager.UserProfileLoader;
+import com.huixing.fontal.mapper.ChatMapper;
+import com.huixing.fontal.model.entity.Chat;
+import com.huixing.fontal.model.entity.User;
+import com.huixing.fontal.model.vo.ChatHistoryVO;
+import com.huixing.fontal.model.vo.MessageVo;
+import com.huixing.fontal.model.vo.WebSocketVo;
+import com.huixing.fontal.service.ChatService;
+import com.huixing.fontal.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 聊天服务实现类
+ * 每个会话（大厅、队伍、私聊双方）在 Redis 中保留最近 RECENT_SIZE 条消息的定长列表，发送时写入；
+ * 查询聊天记录时先从列表取，不够一页再按 (会话, id) 键集分页查库，不使用 OFFSET。
+ * 消息是异步批量写库的，刚发送的消息可能还没有写库，但一定在最近消息列表中。
+ *
+ * @author fontal
+ */
+@Service
+@Slf4j
+public class ChatServiceImpl extends ServiceImpl<ChatMapper, Chat> implements ChatService {
+
+    /**
+     * 最近消息列表的过期时间（天），不活跃的会话自动清理
+     */
+    private static final long RECENT_EXPIRE_DAYS = 7;
+
+    @Resource
+    private ChatMapper chatMapper;
+
+    @Resource
+    private ChatWriteBehind chatWriteBehind;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private UserProfileLoader userProfileLoader;
+
+    @Resource
+    private TeamRoster teamRoster;
+
+    @Resource
+    private UserService userService;
+
+    @Override
+    public void saveMessage(Chat chat) {
+        chatWriteBehind.submit(chat);
+        String recentKey = recentKey(chat);
+        if (recentKey == null) {
+            return;
+        }
+        String value = ChatWriteBehind.toJson(chat);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                    redisOperations.opsForList().leftPush(recentKey, value);
+                    redisOperations.opsForList().trim(recentKey, 0, ChatConstant.RECENT_SIZE - 1);
+                    redisOperations.expire(recentKey, RECENT_EXPIRE_DAYS, TimeUnit.DAYS);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            // 列表中间缺了这条消息时查询无法发现，因此删除列表：之后的消息重新写入，更早的消息查询时从数据库补齐
+            log.error("写入最近聊天记录失败, key: {}", recentKey, e);
+            try {
+                stringRedisTemplate.delete(recentKey);
+            } catch (Exception ex) {
+                log.error("删除最近聊天记录失败, key: {}", recentKey, ex);
+            }
+        }
+    }
+
+    @Override
+    public MessageVo toMessageVo(Chat chat) {
+        return toMessageVoList(Collections.singletonList(chat), null).get(0);
+    }
+
+    @Override
+    public ChatHistoryVO getHallHistory(String cursor, int size, HttpServletRequest request) {
+        long loginUserId = userService.getLoginUserId(request);
+        return page(ChatConstant.CACHE_CHAT_HALL, parseCursor(cursor), checkSize(size), loginUserId,
+                (beforeId, limit) -> {
+                    QueryWrapper<Chat> queryWrapper = new QueryWrapper<>();
+                    queryWrapper.eq("chatType", ChatConstant.HALL_CHAT);
+                    return listBefore(queryWrapper, beforeId, limit);
+                });
+    }
+
+    @Override
+    public ChatHistoryVO getTeamHistory(long teamId, String cursor, int size, HttpServletRequest request) {
+        if (teamId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍id错误");
+        }
+        long loginUserId = userService.getLoginUserId(request);
+        if (!teamRoster.isMember(teamId, loginUserId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH, "不是队伍成员");
+        }
+        return page(String.format(ChatConstant.CACHE_CHAT_TEAM, teamId), parseCursor(cursor), checkSize(size),
+                loginUserId, (beforeId, limit) -> {
+                    QueryWrapper<Chat> queryWrapper = new QueryWrapper<>();
+                    queryWrapper.eq("teamId", teamId).eq("chatType", ChatConstant.TEAM_CHAT);
+                    return listBefore(queryWrapper, beforeId, limit);
+                });
+    }
+
+    @Override
+    public ChatHistoryVO getPrivateHistory(long otherUserId, String cursor, int size, HttpServletRequest request) {
+        long loginUserId = userService.getLoginUserId(request);
+        if (otherUserId <= 0 || otherUserId == loginUserId) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户id错误");
+        }
+        return page(privateKey(loginUserId, otherUserId), parseCursor(cursor), checkSize(size), loginUserId,
+                (beforeId, limit) -> chatMapper.selectPrivateBefore(loginUserId, otherUserId, beforeId, limit));
+    }
+
+    /**
+     * 取一页 id 小于 beforeId 的消息：先取最近消息列表，不够一页再从列表中最早的一条往前查库
+     *
+     * @param dbLoader (beforeId, limit) -> id 降序的聊天记录
+     */
+    private ChatHistoryVO page(String recentKey, Long beforeId, int size, long loginUserId,
+                               BiFunction<Long, Integer, List<Chat>> dbLoader) {
+        // 多取一条用于判断是否还有更多
+        List<Chat> chats = new ArrayList<>(size + 1);
+        for (Chat chat : listRecent(recentKey)) {
+            if (beforeId == null || chat.getId() < beforeId) {
+                chats.add(chat);
+                if (chats.size() > size) {
+                    break;
+                }
+            }
+        }
+        if (chats.size() <= size) {
+            Long dbBeforeId = chats.isEmpty() ? beforeId : chats.get(chats.size() - 1).getId();
+            chats.addAll(dbLoader.apply(dbBeforeId, size + 1 - chats.size()));
+        }
+        boolean hasMore = chats.size() > size;
+        if (hasMore) {
+            chats = chats.subList(0, size);
+        }
+
+        ChatHistoryVO chatHistoryVO = new ChatHistoryVO();
+        chatHistoryVO.setHasMore(hasMore);
+        chatHistoryVO.setNextCursor(hasMore ? String.valueOf(chats.get(chats.size() - 1).getId()) : null);
+        // 页内按时间升序返回
+        List<Chat> ascending = new ArrayList<>(chats);
+        Collections.reverse(ascending);
+        chatHistoryVO.setMessages(toMessageVoList(ascending, loginUserId));
+        return chatHistoryVO;
+    }
+
+    /**
+     * 读取最近消息列表（id 降序），Redis 不可用时返回空列表，全部从数据库查询
+     */
+    private List<Chat> listRecent(String recentKey) {
+        List<String> values;
+        try {
+            values = stringRedisTemplate.opsForList().range(recentKey, 0, -1);
+        } catch (Exception e) {
+            log.error("读取最近聊天记录失败, key: {}", recentKey, e);
+            return new ArrayList<>();
+        }
+        List<Chat> chats = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                chats.add(ChatWriteBehind.fromJson(value));
+            }
+        }
+        // 不同节点写入的顺序与 id 顺序可能略有出入
+        chats.sort(Comparator.comparing(Chat::getId).reversed());
+        return chats;
+    }
+
+    private List<Chat> listBefore(QueryWrapper<Chat> queryWrapper, Long beforeId, int limit) {
+        if (beforeId != null) {
+            queryWrapper.lt("id", beforeId);
+        }
+        queryWrapper.orderByDesc("id").last("LIMIT " + limit);
+        return chatMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 批量转换，发送人和接收人资料一次加载
+     *
+     * @param loginUserId 当前用户id，用于标记自己发送的消息；为 null 时不标记
+     */
+    private List<MessageVo> toMessageVoList(List<Chat> chats, Long loginUserId) {
+        Set<Long> userIds = new HashSet<>();
+        for (Chat chat : chats) {
+            userIds.add(chat.getFromId());
+            if (chat.getToId() != null) {
+                userIds.add(chat.getToId());
+            }
+        }
+        Map<Long, User> userMap = userProfileLoader.loadAll(userIds);
+
+        List<MessageVo> messageVoList = new ArrayList<>(chats.size());
+        for (Chat chat : chats) {
+            MessageVo messageVo = new MessageVo();
+            messageVo.setId(String.valueOf(chat.getId()));
+            messageVo.setTeamId(chat.getTeamId());
+            messageVo.setText(chat.getText());
+            messageVo.setChatType(chat.getChatType());
+            messageVo.setIsMy(loginUserId != null && loginUserId.equals(chat.getFromId()));
+            messageVo.setIsAdmin(false);
+            // 将Date类型的createTime转换为String
+            if (chat.getCreateTime() != null) {
+                messageVo.setCreateTime(chat.getCreateTime().toString());
+            }
+            // 注意：MessageVo中的字段名是formUser，不是fromUser
+            messageVo.setFormUser(toWebSocketVo(userMap.get(chat.getFromId())));
+            if (chat.getToId() != null) {
+                messageVo.setToUser(toWebSocketVo(userMap.get(chat.getToId())));
+            }
+            messageVoList.add(messageVo);
+        }
+        return messageVoList;
+    }
+
+    private static WebSocketVo toWebSocketVo(User user) {
+        if (user == null) {
+            return null;
+        }
+        WebSocketVo webSocketVo = new WebSocketVo();
+        webSocketVo.setId(user.getId());
+        webSocketVo.setUsername(user.getUsername());
+        webSocketVo.setUserAccount(user.getUserAccount());
+        webSocketVo.setUserAvatarUrl(user.getUserAvatarUrl());
+        return webSocketVo;
+    }
+
+    private static String recentKey(Chat chat) {
+        Integer chatType = chat.getChatType();
+        if (chatType == null) {
+            return null;
+        }
+        switch (chatType) {
+            case ChatConstant.PRIVATE_CHAT:
+                return privateKey(chat.getFromId(), chat.getToId());
+            case ChatConstant.TEAM_CHAT:
+                return String.format(ChatConstant.CACHE_CHAT_TEAM, chat.getTeamId());
+            case ChatConstant.HALL_CHAT:
+                return ChatConstant.CACHE_CHAT_HALL;
+            default:
+                return null;
+        }
+    }
+
+    private static String privateKey(long userId, long otherUserId) {
+        return String.format(ChatConstant.CACHE_CHAT_PRIVATE, Math.min(userId, otherUserId),
+                Math.max(userId, otherUserId));
+    }
+
+    private static Long parseCursor(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor.trim());
+        } catch (NumberFormatException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+    }
+
+    private static int checkSize(int size) {
+        if (size < 1 || size > ChatConstant.MAX_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "每页条数必须在1-" + ChatConstant.MAX_PAGE_SIZE + "之间");
+        }
+        return size;
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.huixing.fontal.common.ErrorCode;
 import com.huixing.fontal.contant.FriendConstant;
 import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.UserProfileLoader;
 import com.huixing.fontal.mapper.ChatMapper;
 import com.huixing.fontal.mapper.FriendsMapper;
 import com.huixing.fontal.mapper.UserMapper;
@@ -18,6 +19,8 @@ import com.huixing.fontal.model.vo.FriendListVO;
 import com.huixing.fontal.model.vo.FriendVO;
 import com.huixing.fontal.model.vo.FriendsRecordVO;
 import com.huixing.fontal.service.FriendsService;
+import com.huixing.fontal.service.UserService;
+import com.huixing.fontal.utils.LongHashSet;
 import com.huixing.fontal.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -32,8 +35,6 @@ import javax.servlet.http.HttpServletRequest;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static com.huixing.fontal.contant.UserConstant.LOGIN_USER_STATUS;
-
 /**
  * 好友服务实现类
  */
@@ -50,6 +51,12 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
     @Resource
     private ChatMapper chatMapper;
 
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private UserProfileLoader userProfileLoader;
+
     /**
      * 从HttpServletRequest获取登录用户ID
      *
@@ -57,11 +64,7 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
      * @return 用户ID
      */
     private Long getLoginUserId(HttpServletRequest request) {
-        Object userObj = request.getSession().getAttribute(LOGIN_USER_STATUS);
-        if (userObj == null) {
-            throw new BusinessException(ErrorCode.NOT_LOGIN);
-        }
-        return ((User) userObj).getId();
+        return userService.getLoginUserId(request);
     }
 
     /**
@@ -94,7 +97,7 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
 
         // 3. 检查是否已经是好友
         User loginUser = userMapper.selectById(loginUserId);
-        Set<Long> loginUserFriendIds = StringUtils.stringJsonListToLongSet(loginUser.getUserIds());
+        LongHashSet loginUserFriendIds = StringUtils.stringJsonListToLongHashSet(loginUser.getUserIds());
         if (loginUserFriendIds.contains(receiveId)) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "已经是好友关系");
         }
@@ -181,17 +184,19 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
         if (status.equals(FriendConstant.AGREE_STATUS)) {
             // 更新发送人的好友列表
             User fromUser = userMapper.selectById(friends.getFromId());
-            Set<Long> fromUserFriendIds = StringUtils.stringJsonListToLongSet(fromUser.getUserIds());
+            LongHashSet fromUserFriendIds = StringUtils.stringJsonListToLongHashSet(fromUser.getUserIds());
             fromUserFriendIds.add(friends.getReceiveId());
-            fromUser.setUserIds(StringUtils.longSetToStringJsonList(fromUserFriendIds));
+            fromUser.setUserIds(StringUtils.longHashSetToStringJsonList(fromUserFriendIds));
             userMapper.updateById(fromUser);
+            userService.evictUserProfile(fromUser.getId());
 
             // 更新接收人的好友列表
             User receiveUser = userMapper.selectById(friends.getReceiveId());
-            Set<Long> receiveUserFriendIds = StringUtils.stringJsonListToLongSet(receiveUser.getUserIds());
+            LongHashSet receiveUserFriendIds = StringUtils.stringJsonListToLongHashSet(receiveUser.getUserIds());
             receiveUserFriendIds.add(friends.getFromId());
-            receiveUser.setUserIds(StringUtils.longSetToStringJsonList(receiveUserFriendIds));
+            receiveUser.setUserIds(StringUtils.longHashSetToStringJsonList(receiveUserFriendIds));
             userMapper.updateById(receiveUser);
+            userService.evictUserProfile(receiveUser.getId());
 
             log.info("用户{}同意了用户{}的好友申请", loginUserId, friends.getFromId());
         } else {
@@ -218,14 +223,18 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
                 .orderByDesc("createTime");
         List<Friends> friendsList = friendsMapper.selectList(queryWrapper);
 
+        // 批量查询申请人资料
+        Map<Long, User> fromUsers = userProfileLoader.loadAll(
+                friendsList.stream().map(Friends::getFromId).collect(Collectors.toList()));
+
         // 转换为VO
         List<FriendsRecordVO> voList = new ArrayList<>();
         for (Friends friends : friendsList) {
             FriendsRecordVO vo = new FriendsRecordVO();
             BeanUtils.copyProperties(friends, vo);
 
-            // 查询申请人信息
-            User fromUser = userMapper.selectById(friends.getFromId());
+            // 申请人信息
+            User fromUser = fromUsers.get(friends.getFromId());
             if (fromUser != null) {
                 vo.setApplyUser(fromUser);
             }
@@ -256,14 +265,18 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
                 .orderByDesc("createTime");
         List<Friends> friendsList = friendsMapper.selectList(queryWrapper);
 
+        // 批量查询接收人资料
+        Map<Long, User> receiveUsers = userProfileLoader.loadAll(
+                friendsList.stream().map(Friends::getReceiveId).collect(Collectors.toList()));
+
         // 转换为VO
         List<FriendsRecordVO> voList = new ArrayList<>();
         for (Friends friends : friendsList) {
             FriendsRecordVO vo = new FriendsRecordVO();
             BeanUtils.copyProperties(friends, vo);
 
-            // 查询接收人信息
-            User receiveUser = userMapper.selectById(friends.getReceiveId());
+            // 接收人信息
+            User receiveUser = receiveUsers.get(friends.getReceiveId());
             if (receiveUser != null) {
                 vo.setApplyUser(receiveUser);
             }
@@ -295,12 +308,9 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
             return result;
         }
 
-        // 批量查询好友信息
-        List<User> friendList = userMapper.selectBatchIds(friendIds);
-
-        // 移除已删除的用户
-        friendList = friendList.stream()
-                .filter(user -> user.getIsDelete() == 0)
+        // 批量查询好友资料，移除已删除的用户
+        List<User> friendList = userProfileLoader.loadAll(friendIds).values().stream()
+                .filter(user -> user.getIsDelete() == null || user.getIsDelete() == 0)
                 .collect(Collectors.toList());
 
         // 转换为FriendVO并获取最后一条消息
@@ -403,21 +413,23 @@ public class FriendsServiceImpl extends ServiceImpl<FriendsMapper, Friends> impl
 
         // 3. 检查是否是好友关系
         User loginUser = userMapper.selectById(loginUserId);
-        Set<Long> loginUserFriendIds = StringUtils.stringJsonListToLongSet(loginUser.getUserIds());
+        LongHashSet loginUserFriendIds = StringUtils.stringJsonListToLongHashSet(loginUser.getUserIds());
         if (!loginUserFriendIds.contains(friendId)) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "该用户不是你的好友");
         }
 
         // 4. 从当前用户的好友列表中移除
         loginUserFriendIds.remove(friendId);
-        loginUser.setUserIds(StringUtils.longSetToStringJsonList(loginUserFriendIds));
+        loginUser.setUserIds(StringUtils.longHashSetToStringJsonList(loginUserFriendIds));
         userMapper.updateById(loginUser);
+        userService.evictUserProfile(loginUser.getId());
 
         // 5. 从好友的好友列表中移除
-        Set<Long> friendUserFriendIds = StringUtils.stringJsonListToLongSet(friendUser.getUserIds());
+        LongHashSet friendUserFriendIds = StringUtils.stringJsonListToLongHashSet(friendUser.getUserIds());
         friendUserFriendIds.remove(loginUserId);
-        friendUser.setUserIds(StringUtils.longSetToStringJsonList(friendUserFriendIds));
+        friendUser.setUserIds(StringUtils.longHashSetToStringJsonList(friendUserFriendIds));
         userMapper.updateById(friendUser);
+        userService.evictUserProfile(friendUser.getId());
 
         // 6. 删除或更新好友申请记录
         QueryWrapper<Friends> queryWrapper = new QueryWrapper<>();
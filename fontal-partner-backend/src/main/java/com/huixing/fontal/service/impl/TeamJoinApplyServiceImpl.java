@@ -3,10 +3,13 @@ package com.huixing.fontal.service.impl;
 import cn.hutool.core.util.RandomUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.google.gson.Gson;
 import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.contant.CacheConstant;
 import com.huixing.fontal.contant.TeamApplyConstant;
+import com.huixing.fontal.contant.TeamConstant;
 import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.EntityIdentityMap;
+import com.huixing.fontal.manager.UserProfileLoader;
 import com.huixing.fontal.mapper.TeamJoinApplyMapper;
 import com.huixing.fontal.model.entity.Team;
 import com.huixing.fontal.model.entity.TeamJoinApply;
@@ -15,14 +18,13 @@ import com.huixing.fontal.model.request.TeamApplyApproveRequest;
 import com.huixing.fontal.model.request.TeamJoinApplyRequest;
 import com.huixing.fontal.model.vo.TeamJoinApplyVO;
 import com.huixing.fontal.service.TeamJoinApplyService;
+import com.huixing.fontal.service.TeamMemberService;
 import com.huixing.fontal.service.TeamService;
 import com.huixing.fontal.service.UserService;
-import com.huixing.fontal.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeanUtils;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,19 +44,23 @@ import java.util.stream.Collectors;
 public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, TeamJoinApply>
         implements TeamJoinApplyService {
 
-    private static final Gson GSON = new Gson();
-
     @Resource
     private UserService userService;
 
     @Resource
     private TeamService teamService;
 
+    @Resource
+    private TeamMemberService teamMemberService;
+
     @Resource
     private RedissonClient redissonClient;
 
     @Resource
-    private RedisTemplate redisTemplate;
+    private EntityIdentityMap entityIdentityMap;
+
+    @Resource
+    private UserProfileLoader userProfileLoader;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -75,7 +81,7 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
         }
 
         // 3. 查询队伍信息
-        Team team = teamService.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -95,8 +101,7 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
         if (isInvite) {
             // ============ 邀请场景 ============
             // 5.1. 校验邀请人是否是队伍成员
-            Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-            if (!teamMemberIds.contains(loginUser.getId())) {
+            if (!teamMemberService.isMember(teamId, loginUser.getId())) {
                 throw new BusinessException(ErrorCode.NO_AUTH, "只有队伍成员才能邀请用户加入");
             }
 
@@ -112,18 +117,18 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
             }
 
             // 5.4. 校验被邀请人是否存在
-            User invitee = userService.getById(inviteeId);
+            User invitee = entityIdentityMap.getUser(inviteeId);
             if (invitee == null) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "被邀请用户不存在");
             }
 
             // 5.5. 校验被邀请人是否已在队伍中
-            if (teamMemberIds.contains(inviteeId)) {
+            if (teamMemberService.isMember(teamId, inviteeId)) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "该用户已在该队伍中");
             }
 
             // 5.6. 校验队伍人数是否已满
-            int currentMemberCount = teamMemberIds.size();
+            long currentMemberCount = teamMemberService.countMembers(teamId);
             if (team.getMaxNum() != null && currentMemberCount >= team.getMaxNum()) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍人数已满");
             }
@@ -139,13 +144,12 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
             }
 
             // 5.2. 校验用户是否已在队伍中
-            Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-            if (teamMemberIds.contains(loginUser.getId())) {
+            if (teamMemberService.isMember(teamId, loginUser.getId())) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "您已在该队伍中");
             }
 
             // 5.3. 校验队伍人数是否已满
-            int currentMemberCount = teamMemberIds.size();
+            long currentMemberCount = teamMemberService.countMembers(teamId);
             if (team.getMaxNum() != null && currentMemberCount >= team.getMaxNum()) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍人数已满");
             }
@@ -336,15 +340,14 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
      * 处理通过申请/接受邀请
      */
     private Boolean handleApproveApplication(TeamJoinApply apply, String rejectReason, boolean isInvite) {
-        // 1. 查询队伍信息
-        Team team = teamService.getById(apply.getTeamId());
+        // 1. 查询队伍信息（已加锁，强制读取最新数据）
+        Team team = entityIdentityMap.reloadTeam(apply.getTeamId());
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
 
         // 2. 再次校验队伍人数（防止并发审批导致人数超限）
-        Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        if (teamMemberIds.size() >= team.getMaxNum()) {
+        if (teamMemberService.countMembers(team.getId()) >= team.getMaxNum()) {
             // 更新申请状态为已拒绝
             apply.setApplyStatus(TeamApplyConstant.APPLY_STATUS_REJECTED);
             apply.setRejectReason("队伍人数已满");
@@ -353,36 +356,19 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
         }
 
         // 3. 检查用户是否已在队伍中（防止重复加入）
-        if (teamMemberIds.contains(apply.getUserId())) {
+        if (teamMemberService.isMember(team.getId(), apply.getUserId())) {
             apply.setApplyStatus(TeamApplyConstant.APPLY_STATUS_REJECTED);
             apply.setRejectReason("用户已在队伍中");
             this.updateById(apply);
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户已在队伍中");
         }
 
-        // 4. 将用户加入队伍
-        teamMemberIds.add(apply.getUserId());
-        team.setUsersId(GSON.toJson(teamMemberIds));
-        team.setUpdateTime(new Date());
-        boolean updateTeamResult = teamService.updateById(team);
-        if (!updateTeamResult) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加入队伍失败");
-        }
-
-        // 5. 更新用户的teamIds字段
-        User applicant = userService.getById(apply.getUserId());
-        if (applicant == null) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "申请用户不存在");
-        }
-        Set<Long> userTeamIds = StringUtils.stringJsonListToLongSet(applicant.getTeamIds());
-        userTeamIds.add(apply.getTeamId());
-        applicant.setTeamIds(GSON.toJson(userTeamIds));
-        boolean updateUserResult = userService.updateById(applicant);
-        if (!updateUserResult) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
+        // 4. 将用户加入队伍（插入一条成员记录）
+        if (!teamMemberService.addMember(team.getId(), apply.getUserId(), TeamConstant.MEMBER_ROLE_MEMBER)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户已在队伍中");
         }
 
-        // 6. 更新申请状态为已通过
+        // 5. 更新申请状态为已通过
         apply.setApplyStatus(TeamApplyConstant.APPLY_STATUS_APPROVED);
         apply.setRejectReason(rejectReason);
         boolean updateApplyResult = this.updateById(apply);
@@ -390,18 +376,11 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新申请状态失败");
         }
 
-        // 7. 清除缓存
-        try {
-            String teamsKey = "fontal:team:getTeams:getTeams";
-            redisTemplate.delete(teamsKey);
-            String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", apply.getTeamId());
-            redisTemplate.delete(teamIdKey);
-            log.info("清除队伍缓存成功, teamId: {}", apply.getTeamId());
-        } catch (Exception e) {
-            log.error("清除队伍缓存失败", e);
-        }
+        // 6. 清除缓存
+        teamService.evictTeamCache(apply.getTeamId(), CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                CacheConstant.NS_TEAM_RECOMMEND);
 
-        // TODO: 8. 发送通知给申请者（WebSocket或消息表）
+        // TODO: 7. 发送通知给申请者（WebSocket或消息表）
         // webSocketService.sendToUser(apply.getUserId(), "您的队伍加入申请已通过", null);
 
         log.info("申请通过，用户 {} 已加入队伍 {}", apply.getUserId(), apply.getTeamId());
@@ -441,7 +420,7 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
         }
 
         // 3. 查询队伍信息
-        Team team = teamService.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -577,13 +556,11 @@ public class TeamJoinApplyServiceImpl extends ServiceImpl<TeamJoinApplyMapper, T
             applyMap.put(apply.getId(), apply);
         }
 
-        // 2. 批量查询用户信息
-        List<User> users = userService.listByIds(userIds);
-        Map<Long, User> userMap = users.stream()
-                .collect(Collectors.toMap(User::getId, user -> user));
+        // 2. 批量读取用户资料（先查资料缓存）
+        Map<Long, User> userMap = userProfileLoader.loadAll(userIds);
 
         // 3. 批量查询队伍信息
-        List<Team> teams = teamService.listByIds(teamIds);
+        List<Team> teams = entityIdentityMap.listTeams(teamIds);
         Map<Long, Team> teamMap = teams.stream()
                 .collect(Collectors.toMap(Team::getId, team -> team));
 
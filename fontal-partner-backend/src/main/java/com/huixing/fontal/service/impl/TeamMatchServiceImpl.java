@@ -1,23 +1,26 @@
 package com.huixing.fontal.service.impl;
 
-import cn.hutool.core.util.RandomUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.contant.CacheConstant;
 import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.CacheNamespace;
+import com.huixing.fontal.manager.TeamHotRank;
+import com.huixing.fontal.manager.TeamScoringEngine;
+import com.huixing.fontal.manager.TwoLevelCache;
+import com.huixing.fontal.manager.UserProfileLoader;
 import com.huixing.fontal.mapper.TeamMapper;
 import com.huixing.fontal.model.entity.Team;
 import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.model.vo.TeamVo;
 import com.huixing.fontal.service.TeamMatchService;
+import com.huixing.fontal.service.TeamMemberService;
+import com.huixing.fontal.service.TeamTagService;
 import com.huixing.fontal.service.UserService;
 import com.huixing.fontal.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -36,14 +39,47 @@ import java.util.stream.Collectors;
 @Service
 public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implements TeamMatchService {
 
-    private static final Gson GSON = new Gson();
     private static final int RECOMMEND_LIMIT = 20;
+
+    /**
+     * 推荐候选中补充的热门队伍数
+     */
+    private static final int HOT_FALLBACK_LIMIT = 10;
+
+    /**
+     * 各列表缓存的软过期、硬过期时间（分钟）
+     * 软过期后读取仍返回缓存值并触发后台重算，硬过期后才同步计算
+     */
+    private static final long RECOMMEND_SOFT_MINUTES = 10;
+    private static final long RECOMMEND_HARD_MINUTES = 30;
+    private static final long TAGS_SOFT_MINUTES = 15;
+    private static final long TAGS_HARD_MINUTES = 45;
+    private static final long NEW_SOFT_MINUTES = 10;
+    private static final long NEW_HARD_MINUTES = 30;
     
     @Resource
     private UserService userService;
     
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCache twoLevelCache;
+
+    @Resource
+    private CacheNamespace cacheNamespace;
+
+    @Resource
+    private TeamMemberService teamMemberService;
+
+    @Resource
+    private TeamTagService teamTagService;
+
+    @Resource
+    private TeamScoringEngine teamScoringEngine;
+
+    @Resource
+    private TeamHotRank teamHotRank;
+
+    @Resource
+    private UserProfileLoader userProfileLoader;
 
     /**
      * 获取推荐队伍（混合策略）
@@ -55,14 +91,18 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID不能为空");
         }
         
-        // 1. 尝试从缓存获取
-        String cacheKey = String.format("fontal:team:recommend:%s:%d", userId, limit);
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-        List<TeamVo> cachedResult = (List<TeamVo>) valueOperations.get(cacheKey);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
+        // 1. 读取缓存，软过期后先返回旧结果并在后台重算，只有硬过期时才同步计算
+        String cacheKey = cacheNamespace.key(CacheConstant.NS_TEAM_RECOMMEND,
+                String.format("fontal:team:recommend:%s:%d", userId, limit));
+        return twoLevelCache.getOrRefresh(CacheConstant.TEAM_RECOMMEND, cacheKey,
+                RECOMMEND_SOFT_MINUTES, RECOMMEND_HARD_MINUTES, TimeUnit.MINUTES, false,
+                () -> computeRecommendTeams(userId, limit));
+    }
 
+    /**
+     * 计算推荐队伍
+     */
+    private List<TeamVo> computeRecommendTeams(Long userId, int limit) {
         // 2. 获取用户信息
         User user = userService.getById(userId);
         if (user == null) {
@@ -76,46 +116,42 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
             return getHotTeams(limit);
         }
 
-        // 4. 查询所有有效队伍
+        // 4. 查询候选队伍：用户标签倒排表的并集 + 少量热门队伍，倒排表未构建时查询所有有效队伍
         QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("isDelete", 0)
                 .gt("expireTime", new Date())
                 .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum", 
-                        "userId", "usersId", "teamStatus", "createTime", "expireTime");
+                        "userId", "teamStatus", "createTime", "expireTime");
+        Set<Long> candidateIds = teamTagService.listTeamIdsByTags(userTags);
+        if (candidateIds != null) {
+            candidateIds.addAll(teamHotRank.range(0, HOT_FALLBACK_LIMIT));
+            if (candidateIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            queryWrapper.in("id", candidateIds);
+        }
         List<Team> allTeams = this.list(queryWrapper);
 
         if (CollectionUtils.isEmpty(allTeams)) {
             return new ArrayList<>();
         }
 
-        // 5. 使用并行流计算推荐分数
+        // 5. 批量计算推荐分数
         long startTime = System.currentTimeMillis();
         
         // 获取用户已加入的队伍ID
-        Set<Long> joinedTeamIds = StringUtils.stringJsonListToLongSet(user.getTeamIds());
-        
-        List<Team> recommendTeams = allTeams.parallelStream()
-                .filter(team -> !joinedTeamIds.contains(team.getId())) // 排除已加入的队伍
-                .map(team -> {
-                    double score = computeRecommendScore(team, userTags);
-                    return new AbstractMap.SimpleEntry<>(team, score);
-                })
-                .filter(entry -> entry.getValue() > 0) // 只保留有分数的队伍
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue())) // 降序排序
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        Set<Long> joinedTeamIds = new HashSet<>(teamMemberService.listTeamIds(userId));
+        // 一次性查出所有队伍的成员数和标签画像
+        List<Long> teamIds = allTeams.stream().map(Team::getId).collect(Collectors.toList());
+        Map<Long, Integer> memberCountMap = teamMemberService.countMembersByTeamIds(teamIds);
+        Map<Long, Map<String, Integer>> profileMap = teamTagService.listProfiles(teamIds);
+        List<Team> recommendTeams = teamScoringEngine.recommend(allTeams, memberCountMap, profileMap,
+                userTags, joinedTeamIds, limit);
 
         log.info("计算队伍推荐分数耗时: {}ms, 用户ID: {}", System.currentTimeMillis() - startTime, userId);
 
         // 6. 转换为TeamVo并设置用户信息
-        List<TeamVo> teamVoList = convertToTeamVoList(recommendTeams);
-
-        // 7. 存入缓存（随机过期时间防止缓存雪崩）
-        int expireTime = 10 + RandomUtil.randomInt(1, 5);
-        valueOperations.set(cacheKey, teamVoList, expireTime, TimeUnit.MINUTES);
-
-        return teamVoList;
+        return convertToTeamVoList(recommendTeams);
     }
 
     /**
@@ -128,21 +164,31 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "标签不能为空");
         }
 
-        // 1. 尝试从缓存获取
-        String cacheKey = String.format("fontal:team:tags:%s:%d", 
-                String.join(",", tags), limit);
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-        List<TeamVo> cachedResult = (List<TeamVo>) valueOperations.get(cacheKey);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
+        // 1. 读取缓存，同一组标签的结果所有用户共用，软过期后后台重算，硬过期时跨节点只计算一次
+        String cacheKey = cacheNamespace.key(CacheConstant.NS_TEAM_TAGS,
+                String.format("fontal:team:tags:%s:%d", String.join(",", tags), limit));
+        return twoLevelCache.getOrRefresh(CacheConstant.TEAM_TAGS, cacheKey,
+                TAGS_SOFT_MINUTES, TAGS_HARD_MINUTES, TimeUnit.MINUTES, true,
+                () -> computeTeamsByTags(tags, limit));
+    }
 
-        // 2. 查询所有有效队伍
+    /**
+     * 计算标签匹配的队伍
+     */
+    private List<TeamVo> computeTeamsByTags(Set<String> tags, int limit) {
+        // 2. 查询候选队伍：标签倒排表的并集，倒排表未构建时查询所有有效队伍
         QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("isDelete", 0)
                 .gt("expireTime", new Date())
                 .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum", 
-                        "userId", "usersId", "teamStatus", "createTime", "expireTime");
+                        "userId", "teamStatus", "createTime", "expireTime");
+        Set<Long> candidateIds = teamTagService.listTeamIdsByTags(tags);
+        if (candidateIds != null) {
+            if (candidateIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            queryWrapper.in("id", candidateIds);
+        }
         List<Team> allTeams = this.list(queryWrapper);
 
         if (CollectionUtils.isEmpty(allTeams)) {
@@ -150,99 +196,57 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
         }
 
         // 3. 根据标签计算相似度
-        List<Team> matchedTeams = allTeams.stream()
-                .filter(team -> {
-                    // 获取队伍成员的标签集合
-                    Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-                    if (CollectionUtils.isEmpty(memberIds)) {
-                        return false;
-                    }
-                    
-                    // 批量查询成员信息
-                    List<User> members = userService.listByIds(memberIds);
-                    if (CollectionUtils.isEmpty(members)) {
-                        return false;
-                    }
-                    
-                    // 收集所有成员的标签
-                    Set<String> teamTags = new HashSet<>();
-                    for (User member : members) {
-                        Set<String> memberTags = StringUtils.stringJsonListToStringSet(member.getTags());
-                        if (memberTags != null) {
-                            teamTags.addAll(memberTags);
-                        }
-                    }
-                    
-                    // 检查是否有匹配的标签
-                    return tags.stream().anyMatch(teamTags::contains);
-                })
-                .limit(limit)
-                .collect(Collectors.toList());
+        Map<Long, Map<String, Integer>> profileMap = teamTagService.listProfiles(
+                allTeams.stream().map(Team::getId).collect(Collectors.toList()));
+        List<Team> matchedTeams = teamScoringEngine.matchAny(allTeams, profileMap, tags, limit);
 
         // 4. 转换为TeamVo
-        List<TeamVo> teamVoList = convertToTeamVoList(matchedTeams);
-
-        // 5. 存入缓存
-        valueOperations.set(cacheKey, teamVoList, 15, TimeUnit.MINUTES);
-
-        return teamVoList;
+        return convertToTeamVoList(matchedTeams);
     }
 
     /**
      * 获取热门队伍
-     * 根据队伍成员数、创建时间等因素排序
+     * 直接按热门队伍排行榜（ZSET）的顺序读取，分数由成员变化增量维护
      */
     @Override
     public List<TeamVo> getHotTeams(int limit) {
-        // 1. 尝试从缓存获取
-        String cacheKey = String.format("fontal:team:hot:%d", limit);
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-        List<TeamVo> cachedResult = (List<TeamVo>) valueOperations.get(cacheKey);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
-
-        // 2. 查询所有有效队伍
-        QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("isDelete", 0)
-                .gt("expireTime", new Date())
-                .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum", 
-                        "userId", "usersId", "teamStatus", "createTime", "expireTime")
-                .orderByDesc("createTime"); // 先按创建时间排序
-        List<Team> allTeams = this.list(queryWrapper);
-
-        if (CollectionUtils.isEmpty(allTeams)) {
+        if (limit <= 0) {
             return new ArrayList<>();
         }
+        // 1. 按热度读取队伍id，排行榜中可能残留刚过期的队伍，不足时继续往后读
+        List<Team> hotTeams = new ArrayList<>(limit);
+        long offset = 0;
+        while (hotTeams.size() < limit) {
+            List<Long> teamIds = teamHotRank.range(offset, limit);
+            if (teamIds.isEmpty()) {
+                break;
+            }
+            offset += teamIds.size();
+
+            // 2. 查询有效队伍，按排行榜顺序排列
+            QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("isDelete", 0)
+                    .gt("expireTime", new Date())
+                    .in("id", teamIds)
+                    .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum",
+                            "userId", "teamStatus", "createTime", "expireTime");
+            Map<Long, Team> teamMap = this.list(queryWrapper).stream()
+                    .collect(Collectors.toMap(Team::getId, team -> team));
+            for (Long teamId : teamIds) {
+                Team team = teamMap.get(teamId);
+                if (team == null) {
+                    teamHotRank.remove(teamId);
+                } else if (hotTeams.size() < limit) {
+                    hotTeams.add(team);
+                }
+            }
+            if (teamIds.size() < limit) {
+                break;
+            }
+        }
 
-        // 3. 计算热度分数（成员数 * 权重 + 时间衰减）
-        long now = System.currentTimeMillis();
-        List<Team> hotTeams = allTeams.stream()
-                .map(team -> {
-                    Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-                    int memberCount = CollectionUtils.isEmpty(memberIds) ? 0 : memberIds.size();
-                    
-                    // 计算时间衰减（越新的队伍分数越高）
-                    long timeDiff = now - team.getCreateTime().getTime();
-                    double timeScore = Math.max(0, 1 - timeDiff / (30L * 24 * 60 * 60 * 1000)); // 30天衰减
-                    
-                    // 热度分数 = 成员数 * 0.6 + 时间分 * 0.4
-                    double hotScore = memberCount * 0.6 + timeScore * 0.4;
-                    
-                    return new AbstractMap.SimpleEntry<>(team, hotScore);
-                })
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue())) // 降序排序
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        // 4. 转换为TeamVo
-        List<TeamVo> teamVoList = convertToTeamVoList(hotTeams);
-
-        // 5. 存入缓存
-        valueOperations.set(cacheKey, teamVoList, 20, TimeUnit.MINUTES);
-
-        return teamVoList;
+        // 3. 转换为TeamVo
+        return convertToTeamVoList(hotTeams);
     }
 
     /**
@@ -251,76 +255,30 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
      */
     @Override
     public List<TeamVo> getNewTeams(int limit) {
-        // 1. 尝试从缓存获取
-        String cacheKey = String.format("fontal:team:new:%d", limit);
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-        List<TeamVo> cachedResult = (List<TeamVo>) valueOperations.get(cacheKey);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
+        // 1. 读取缓存，所有用户共用，软过期后后台重算，硬过期时跨节点只计算一次
+        String cacheKey = cacheNamespace.key(CacheConstant.NS_TEAM_NEW,
+                String.format("fontal:team:new:%d", limit));
+        return twoLevelCache.getOrRefresh(CacheConstant.TEAM_NEW, cacheKey,
+                NEW_SOFT_MINUTES, NEW_HARD_MINUTES, TimeUnit.MINUTES, true,
+                () -> computeNewTeams(limit));
+    }
 
+    /**
+     * 查询最新队伍
+     */
+    private List<TeamVo> computeNewTeams(int limit) {
         // 2. 查询最新队伍
         QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("isDelete", 0)
                 .gt("expireTime", new Date())
                 .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum", 
-                        "userId", "usersId", "teamStatus", "createTime", "expireTime")
+                        "userId", "teamStatus", "createTime", "expireTime")
                 .orderByDesc("createTime")
                 .last("LIMIT " + limit);
         List<Team> newTeams = this.list(queryWrapper);
 
         // 3. 转换为TeamVo
-        List<TeamVo> teamVoList = convertToTeamVoList(newTeams);
-
-        // 4. 存入缓存
-        valueOperations.set(cacheKey, teamVoList, 10, TimeUnit.MINUTES);
-
-        return teamVoList;
-    }
-
-    /**
-     * 计算队伍推荐分数（混合策略）
-     * 标签匹配: 60%
-     * 活跃度(成员数): 20%
-     * 时间因素: 20%
-     */
-    private double computeRecommendScore(Team team, Set<String> userTags) {
-        // 1. 获取队伍成员
-        Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        if (CollectionUtils.isEmpty(memberIds)) {
-            return 0;
-        }
-
-        // 2. 批量查询成员信息
-        List<User> members = userService.listByIds(memberIds);
-        if (CollectionUtils.isEmpty(members)) {
-            return 0;
-        }
-
-        // 3. 计算标签匹配分数
-        double tagScore = 0;
-        Set<String> teamTags = new HashSet<>();
-        for (User member : members) {
-            Set<String> memberTags = StringUtils.stringJsonListToStringSet(member.getTags());
-            if (memberTags != null) {
-                teamTags.addAll(memberTags);
-            }
-        }
-        
-        // 计算标签匹配度（交集数量 / 用户标签数量）
-        long matchCount = userTags.stream().filter(teamTags::contains).count();
-        double tagMatchRate = userTags.isEmpty() ? 0 : (double) matchCount / userTags.size();
-        tagScore = tagMatchRate * 60; // 权重60%
-
-        // 4. 计算活跃度分数（成员数）
-        double activityScore = Math.min(members.size() / 6.0, 1.0) * 20; // 权重20%
-
-        // 5. 计算时间分数（越新的队伍分数越高）
-        long timeDiff = System.currentTimeMillis() - team.getCreateTime().getTime();
-        double timeScore = Math.max(0, 1 - timeDiff / (30L * 24 * 60 * 60 * 1000)) * 20; // 权重20%，30天衰减
-
-        // 6. 综合分数
-        return tagScore + activityScore + timeScore;
+        return convertToTeamVoList(newTeams);
     }
 
     /**
@@ -333,20 +291,16 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
 
         // 收集所有用户ID（创建者和成员）
         Set<Long> allUserIds = new HashSet<>();
-        Map<Long, Set<Long>> teamMemberMap = new HashMap<>();
+        Map<Long, List<Long>> teamMemberMap = teamMemberService.listMemberIdsByTeamIds(
+                teams.stream().map(Team::getId).collect(Collectors.toList()));
 
         for (Team team : teams) {
             allUserIds.add(team.getUserId());
-            Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-            allUserIds.addAll(memberIds);
-            teamMemberMap.put(team.getId(), memberIds);
+            allUserIds.addAll(teamMemberMap.get(team.getId()));
         }
 
-        // 批量查询用户信息
-        List<User> users = userService.listByIds(allUserIds);
-        Map<Long, User> userMap = users.stream()
-                .map(userService::getSafetyUser)
-                .collect(Collectors.toMap(User::getId, u -> u));
+        // 批量读取用户资料（已脱敏，先查资料缓存）
+        Map<Long, User> userMap = userProfileLoader.loadAll(allUserIds);
 
         // 转换为TeamVo
         return teams.stream().map(team -> {
@@ -357,7 +311,7 @@ public class TeamMatchServiceImpl extends ServiceImpl<TeamMapper, Team> implemen
             teamVo.setUser(userMap.get(team.getUserId()));
             
             // 设置成员
-            Set<Long> memberIds = teamMemberMap.get(team.getId());
+            List<Long> memberIds = teamMemberMap.get(team.getId());
             Set<User> memberSet = memberIds.stream()
                     .map(userMap::get)
                     .filter(Objects::nonNull)
@@ -0,0 +1,182 @@
+package com.huixing.fontal.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.huixing.fontal.contant.TeamConstant;
+import com.huixing.fontal.manager.TeamHotRank;
+import com.huixing.fontal.manager.TeamRoster;
+import com.huixing.fontal.mapper.TeamMemberMapper;
+import com.huixing.fontal.model.entity.TeamMember;
+import com.huixing.fontal.service.TeamMemberService;
+import com.huixing.fontal.service.TeamTagService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 队伍成员服务实现类
+ * 成员关系以 team_member 表为准，加入、退出都是单行插入和删除，并同步维护队伍标签画像、热门队伍排行榜和聊天用的成员名单；
+ * 成员变更与标签画像计数在同一事务中提交，画像计数时对用户行加的锁持续到提交，与修改标签串行
+ *
+ * @author fontal
+ */
+@Service
+@Slf4j
+public class TeamMemberServiceImpl extends ServiceImpl<TeamMemberMapper, TeamMember> implements TeamMemberService {
+
+    @Resource
+    private TeamMemberMapper teamMemberMapper;
+
+    @Resource
+    private TeamTagService teamTagService;
+
+    @Resource
+    private TeamHotRank teamHotRank;
+
+    @Resource
+    private TeamRoster teamRoster;
+
+    @Override
+    public List<Long> listMemberIds(long teamId) {
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("userId")
+                .eq("teamId", teamId)
+                .orderByAsc("joinTime", "id");
+        return teamMemberMapper.selectList(queryWrapper).stream()
+                .map(TeamMember::getUserId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Long, List<Long>> listMemberIdsByTeamIds(Collection<Long> teamIds) {
+        Map<Long, List<Long>> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(teamIds)) {
+            return result;
+        }
+        for (Long teamId : teamIds) {
+            result.put(teamId, new ArrayList<>());
+        }
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("teamId", "userId")
+                .in("teamId", teamIds)
+                .orderByAsc("joinTime", "id");
+        for (TeamMember member : teamMemberMapper.selectList(queryWrapper)) {
+            result.computeIfAbsent(member.getTeamId(), k -> new ArrayList<>()).add(member.getUserId());
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> listTeamIds(long userId) {
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("teamId").eq("userId", userId);
+        return teamMemberMapper.selectList(queryWrapper).stream()
+                .map(TeamMember::getTeamId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long countMembers(long teamId) {
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("teamId", teamId);
+        return teamMemberMapper.selectCount(queryWrapper);
+    }
+
+    @Override
+    public Map<Long, Integer> countMembersByTeamIds(Collection<Long> teamIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(teamIds)) {
+            return result;
+        }
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("teamId", "count(*) as memberCount")
+                .in("teamId", teamIds)
+                .groupBy("teamId");
+        for (Map<String, Object> row : teamMemberMapper.selectMaps(queryWrapper)) {
+            Long teamId = ((Number) row.get("teamId")).longValue();
+            Integer memberCount = ((Number) row.get("memberCount")).intValue();
+            result.put(teamId, memberCount);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isMember(long teamId, long userId) {
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("teamId", teamId).eq("userId", userId);
+        return teamMemberMapper.selectCount(queryWrapper) > 0;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean addMember(long teamId, long userId, int role) {
+        TeamMember member = new TeamMember();
+        member.setTeamId(teamId);
+        member.setUserId(userId);
+        member.setRole(role);
+        member.setJoinTime(new Date());
+        try {
+            if (teamMemberMapper.insert(member) <= 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            // uk_teamId_userId 冲突，说明已经是成员
+            log.warn("用户 {} 已是队伍 {} 的成员", userId, teamId);
+            return false;
+        }
+        teamTagService.addMemberTags(teamId, userId);
+        teamHotRank.onMemberChanged(teamId, 1);
+        teamRoster.invalidate(teamId);
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeMember(long teamId, long userId) {
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("teamId", teamId).eq("userId", userId);
+        if (teamMemberMapper.delete(queryWrapper) <= 0) {
+            return false;
+        }
+        teamTagService.removeMemberTags(teamId, userId);
+        teamHotRank.onMemberChanged(teamId, -1);
+        teamRoster.invalidate(teamId);
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> removeAllMembers(long teamId) {
+        List<Long> memberIds = listMemberIds(teamId);
+        teamTagService.removeTeam(teamId);
+        teamHotRank.remove(teamId);
+        if (memberIds.isEmpty()) {
+            return memberIds;
+        }
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("teamId", teamId);
+        teamMemberMapper.delete(queryWrapper);
+        teamRoster.invalidate(teamId);
+        return memberIds;
+    }
+
+    @Override
+    public void changeLeader(long teamId, long oldLeaderId, long newLeaderId) {
+        UpdateWrapper<TeamMember> demoteWrapper = new UpdateWrapper<>();
+        demoteWrapper.eq("teamId", teamId).eq("userId", oldLeaderId)
+                .set("role", TeamConstant.MEMBER_ROLE_MEMBER);
+        teamMemberMapper.update(null, demoteWrapper);
+
+        UpdateWrapper<TeamMember> promoteWrapper = new UpdateWrapper<>();
+        promoteWrapper.eq("teamId", teamId).eq("userId", newLeaderId)
+                .set("role", TeamConstant.MEMBER_ROLE_LEADER);
+        teamMemberMapper.update(null, promoteWrapper);
+    }
+}
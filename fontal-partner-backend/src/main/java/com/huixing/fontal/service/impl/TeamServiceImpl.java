@@ -4,15 +4,23 @@ import cn.hutool.core.util.RandomUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.huixing.fontal.common.ErrorCode;
+import com.huixing.fontal.contant.CacheConstant;
 import com.huixing.fontal.contant.TeamConstant;
 import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.AuthTokenManager;
+import com.huixing.fontal.manager.CacheNamespace;
+import com.huixing.fontal.manager.EntityIdentityMap;
+import com.huixing.fontal.manager.IdBloomFilter;
+import com.huixing.fontal.manager.TeamFeedIndex;
+import com.huixing.fontal.manager.TeamHotRank;
+import com.huixing.fontal.manager.TwoLevelCache;
+import com.huixing.fontal.manager.UserProfileLoader;
 import com.huixing.fontal.mapper.TeamMapper;
 import com.huixing.fontal.model.entity.Team;
 import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.model.request.KickOutUserRequest;
+import com.huixing.fontal.model.session.LoginPrincipal;
 import com.huixing.fontal.model.request.TeamCreateRequest;
 import com.huixing.fontal.model.request.TeamDeleteRequest;
 import com.huixing.fontal.model.request.TeamJoinApplyRequest;
@@ -20,26 +28,27 @@ import com.huixing.fontal.model.request.TeamJoinRequest;
 import com.huixing.fontal.model.request.TeamUpdateRequest;
 import com.huixing.fontal.model.request.TransferTeamRequest;
 import com.huixing.fontal.model.vo.TeamBasicVO;
+import com.huixing.fontal.model.vo.TeamFeedVO;
 import com.huixing.fontal.model.vo.TeamMembershipVO;
 import com.huixing.fontal.model.vo.TeamUserVo;
 import com.huixing.fontal.model.vo.TeamVo;
 import com.huixing.fontal.service.TeamJoinApplyService;
+import com.huixing.fontal.service.TeamMemberService;
 import com.huixing.fontal.service.TeamService;
 import com.huixing.fontal.service.UserService;
-import com.huixing.fontal.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeanUtils;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -49,8 +58,14 @@ import java.util.stream.Collectors;
 public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements TeamService  {
 
     private static final String SALT = "fontal_team";
-    private static final String TEAMS_KEY = String.format("fontal:team:getTeams:%s", "getTeams");
-    private static final Gson GSON = new Gson();
+    /**
+     * 队伍卡片缓存（队伍信息 + 队长 + 成员），发现页和全部队伍列表共用
+     */
+    private static final String TEAM_CARD_KEY = "fontal:team:card:%s";
+
+    private static final String FEED_SEED_ATTRIBUTE = "teamFeedSeed";
+
+    private static final int MAX_FEED_SIZE = 50;
     private static final int MAX_TEAM_MEMBERS = 6;
     private static final int MAX_TEAM_DESC_LENGTH = 1024;
     private static final int MAX_ANNOUNCE_LENGTH = 512;
@@ -59,27 +74,81 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
     private UserService userService;
 
     @Resource
-    private RedisTemplate redisTemplate;
+    private RedissonClient redissonClient;
+
+    @Resource
+    private TeamMemberService teamMemberService;
 
     @Resource
-    private RedissonClient redissonClient;
+    private TeamHotRank teamHotRank;
+
+    @Resource
+    private TeamFeedIndex teamFeedIndex;
+
+    @Resource
+    private TwoLevelCache twoLevelCache;
+
+    @Resource
+    private CacheNamespace cacheNamespace;
+
+    @Resource
+    private IdBloomFilter idBloomFilter;
+
+    @Resource
+    private EntityIdentityMap entityIdentityMap;
+
+    @Resource
+    private UserProfileLoader userProfileLoader;
+
+    @Resource
+    private AuthTokenManager authTokenManager;
 
     @Lazy
     @Resource
     private TeamJoinApplyService teamJoinApplyService;
 
 
-    private void setRedis(String redisKey, Object data) {
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
+    @Override
+    public void evictTeamCache(Long teamId, String... namespaces) {
+        try {
+            twoLevelCache.evict(CacheConstant.TEAM_CARD, String.format(TEAM_CARD_KEY, teamId));
+            twoLevelCache.evict(CacheConstant.TEAM_DETAIL, String.format("fontal:team:getUsersByTeamId:%s", teamId));
+            twoLevelCache.evict(CacheConstant.TEAM_BASIC, String.format("fontal:team:basic:%s", teamId));
+            cacheNamespace.bump(namespaces);
+            entityIdentityMap.evictTeam(teamId);
+            log.info("清除队伍缓存成功, teamId: {}", teamId);
+        } catch (Exception e) {
+            log.error("清除队伍缓存失败", e);
+        }
+    }
+
+    private void setRedis(String cacheName, String redisKey, Object data) {
         try {
             // 解决缓存雪崩
             int i = RandomUtil.randomInt(1, 2);
-            valueOperations.set(redisKey, data, 1 + i / 10, TimeUnit.MINUTES);
+            twoLevelCache.put(cacheName, redisKey, data, 1 + i / 10, TimeUnit.MINUTES);
         } catch (Exception e) {
             log.error("redis set key error");
         }
     }
 
+    /**
+     * 按ID查询队伍，布隆过滤器判断一定不存在时不查库，查库未找到时记入空值缓存
+     *
+     * @param teamId 队伍ID
+     * @return 队伍，不存在时返回 null
+     */
+    private Team getExistingTeam(long teamId) {
+        if (!idBloomFilter.mightExistTeam(teamId)) {
+            return null;
+        }
+        Team team = entityIdentityMap.getTeam(teamId);
+        if (team == null) {
+            idBloomFilter.markTeamMissing(teamId);
+        }
+        return team;
+    }
+
     @Override
     public TeamVo getUsersByTeamId(Long teamId, HttpServletRequest request) {
         //1.获取当前登入用户
@@ -88,14 +157,14 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             throw new BusinessException(ErrorCode.PARAMS_ERROR,"未登入");
         }
         //2.查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = getExistingTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
 
         // 3. 权限校验
-        // 从队伍的 usersId 字段中提取成员ID列表，判断当前用户是否是成员
-        Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
+        // 从 team_member 表查询成员ID列表，判断当前用户是否是成员
+        Set<Long> memberIds = new LinkedHashSet<>(teamMemberService.listMemberIds(teamId));
         boolean isAdmin = userService.isAdmin(loginUser);
         boolean isLeader = loginUser.getId() == team.getUserId();
         boolean isMember = memberIds.contains(loginUser.getId());
@@ -104,73 +173,184 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
         // 4. 尝试从缓存获取
         String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-        TeamVo cachedVo = (TeamVo) valueOperations.get(teamIdKey);
+        TeamVo cachedVo = twoLevelCache.get(CacheConstant.TEAM_DETAIL, teamIdKey);
         if (cachedVo != null) {
             return cachedVo;
         }
 
-        // 5. 【性能优化】批量查询用户信息，拒绝循环查库！
-        List<User> userList = new ArrayList<>();
+        // 5. 【性能优化】批量读取成员资料（已脱敏），先查资料缓存，未命中的只需要一条 SQL：WHERE id IN (...)
+        Set<User> safetyUserSet = new HashSet<>();
         if (CollectionUtils.isNotEmpty(memberIds)) {
-            // 使用 MyBatis-Plus 的 listByIds 只需要一条 SQL：WHERE id IN (...)
-            userList = userService.listByIds(memberIds);
+            safetyUserSet.addAll(userProfileLoader.loadAll(memberIds).values());
         }
 
-        // 6. 数据脱敏处理
-        Set<User> safetyUserSet = userList.stream()
-                .map(userService::getSafetyUser)
-                .collect(Collectors.toSet());
-
         // 7. 封装 TeamVo
         TeamVo teamVo = new TeamVo();
         BeanUtils.copyProperties(team, teamVo); // 自动拷贝相同名称的字段：name, desc, maxNum 等
 
-        // 设置队长信息 (再次利用批量查询的结果，或者单独查一次)
-        User leader = userService.getById(team.getUserId());
-        teamVo.setUser(userService.getSafetyUser(leader));
+        // 设置队长信息（队长一般也是成员，资料已在缓存中）
+        teamVo.setUser(userProfileLoader.load(team.getUserId()));
         teamVo.setUserSet(safetyUserSet);
 
         // 8. 存入 Redis 并返回
-        setRedis(teamIdKey, teamVo);
+        setRedis(CacheConstant.TEAM_DETAIL, teamIdKey, teamVo);
         return teamVo;
     }
 
     @Override
     public TeamUserVo getTeams() {
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-
-        // 1. 尝试从缓存获取
-        TeamUserVo teamUserVo = (TeamUserVo) valueOperations.get(TEAMS_KEY);
+        // 按发现页索引读取全部有效队伍的卡片后打乱
+        List<TeamVo> teamList = getTeamCards(teamFeedIndex.listAll());
+        Collections.shuffle(teamList);
+        TeamUserVo teamUserVo = new TeamUserVo();
+        teamUserVo.setTeamSet(new LinkedHashSet<>(teamList));
+        return teamUserVo;
+    }
 
-        if (teamUserVo != null) {
-            // 获取 Set 并转为 List
-            List<TeamVo> teamList = new ArrayList<>(teamUserVo.getTeamSet());
-            // 真正的随机打乱
-            Collections.shuffle(teamList);
-            //List转为Set
-            HashSet<TeamVo> teamVos = new HashSet<>(teamList);
-            teamUserVo.setTeamSet(teamVos);
-            return teamUserVo;
+    @Override
+    public TeamFeedVO getTeamFeed(String cursor, int size, HttpServletRequest request) {
+        if (size <= 0 || size > MAX_FEED_SIZE) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "每页数量需在1-" + MAX_FEED_SIZE + "之间");
+        }
+        TeamFeedVO teamFeedVO = new TeamFeedVO();
+        teamFeedVO.setTeams(new ArrayList<>());
+        teamFeedVO.setHasMore(false);
+
+        // 1. 解析游标，第一页由随机种子决定起始位置
+        FeedCursor feedCursor;
+        if (cursor == null || cursor.trim().isEmpty()) {
+            long[] bounds = teamFeedIndex.bounds();
+            if (bounds == null) {
+                return teamFeedVO;
+            }
+            long seed = getFeedSeed(request);
+            long pivot = bounds[0] + Math.floorMod(seed, bounds[1] - bounds[0] + 1);
+            feedCursor = new FeedCursor(seed, pivot, pivot - 1, false);
+        } else {
+            feedCursor = FeedCursor.parse(cursor);
+        }
+
+        // 2. 从起始位置向后读到末尾，再从头读到起始位置
+        List<Long> pageIds = new ArrayList<>(size);
+        boolean finished = false;
+        while (pageIds.size() < size) {
+            int need = size - pageIds.size();
+            long beforeId = feedCursor.wrapped ? feedCursor.pivot : Long.MAX_VALUE;
+            List<Long> ids = teamFeedIndex.range(feedCursor.lastId, beforeId, need);
+            if (!ids.isEmpty()) {
+                pageIds.addAll(ids);
+                feedCursor.lastId = ids.get(ids.size() - 1);
+            }
+            if (ids.size() < need) {
+                if (feedCursor.wrapped) {
+                    finished = true;
+                    break;
+                }
+                feedCursor.wrapped = true;
+                feedCursor.lastId = 0;
+            }
         }
 
-        // 2. 缓存未命中：精简查询（不查已过期、已删除的队伍）
-        QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
-        queryWrapper.gt("expireTime", new Date()) // 只查未过期的
-                .eq("isDelete", 0)
-                .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum", "userId", "usersId"); // 精简字段
-
-        List<Team> teams = this.list(queryWrapper);
-
-        // 3. 转换并脱敏 (teamSet 方法内部应包含脱敏逻辑)
-        teamUserVo = teamSet(teams);
+        // 3. 读取队伍卡片，页内按种子打乱（同一轮翻页结果稳定）
+        List<TeamVo> teams = getTeamCards(pageIds);
+        if (!pageIds.isEmpty()) {
+            Collections.shuffle(teams, new Random(feedCursor.seed ^ pageIds.get(0)));
+        }
+        teamFeedVO.setTeams(teams);
+        teamFeedVO.setHasMore(!finished);
+        teamFeedVO.setNextCursor(finished ? null : feedCursor.toString());
+        return teamFeedVO;
+    }
 
-        // 4. 写入缓存（建议设置较短的过期时间，如 5-10 分钟）
-        valueOperations.set(TEAMS_KEY, teamUserVo, 5 + new Random().nextInt(5), TimeUnit.MINUTES);
+    /**
+     * 获取发现页第一页的随机种子，之后的页由游标携带
+     * 会话模式下保存在会话中；令牌模式下不创建会话，已登录用户按用户ID和日期生成（同一天内首页稳定），未登录时随机
+     */
+    private long getFeedSeed(HttpServletRequest request) {
+        if (authTokenManager.isEnabled()) {
+            LoginPrincipal principal;
+            try {
+                principal = userService.getLoginPrincipal(request);
+            } catch (BusinessException e) {
+                // 发现页允许未登录访问
+                return new Random().nextLong();
+            }
+            return mixSeed(principal.getUserId() * 31 + LocalDate.now().toEpochDay());
+        }
+        HttpSession session = request.getSession();
+        Object seed = session.getAttribute(FEED_SEED_ATTRIBUTE);
+        if (seed instanceof Long) {
+            return (Long) seed;
+        }
+        long newSeed = new Random().nextLong();
+        session.setAttribute(FEED_SEED_ATTRIBUTE, newSeed);
+        return newSeed;
+    }
 
-        return teamUserVo;
+    /**
+     * 打散相邻的输入（SplitMix64 的混合函数），相邻用户ID的起始位置不会挨在一起
+     */
+    private static long mixSeed(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
+    /**
+     * 批量读取队伍卡片（队伍信息 + 队长 + 成员），未命中的队伍批量查库后回写缓存
+     * 已删除、已过期的队伍会被过滤并从发现页索引中移除
+     *
+     * @param teamIds 队伍id
+     * @return 队伍卡片，顺序与 teamIds 一致
+     */
+    private List<TeamVo> getTeamCards(List<Long> teamIds) {
+        if (CollectionUtils.isEmpty(teamIds)) {
+            return new ArrayList<>();
+        }
+        List<String> keys = teamIds.stream()
+                .map(teamId -> String.format(TEAM_CARD_KEY, teamId))
+                .collect(Collectors.toList());
+        Map<String, Object> cached = twoLevelCache.getAll(CacheConstant.TEAM_CARD, keys);
+        Map<Long, TeamVo> cardMap = new HashMap<>();
+        List<Long> missIds = new ArrayList<>();
+        for (int i = 0; i < teamIds.size(); i++) {
+            Object card = cached.get(keys.get(i));
+            if (card instanceof TeamVo) {
+                cardMap.put(teamIds.get(i), (TeamVo) card);
+            } else {
+                missIds.add(teamIds.get(i));
+            }
+        }
+        if (!missIds.isEmpty()) {
+            QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("id", missIds)
+                    .eq("isDelete", 0)
+                    .select("id", "teamName", "teamAvatarUrl", "teamDesc", "maxNum", "userId",
+                            "teamStatus", "createTime", "expireTime"); // 精简字段
+            TeamUserVo loaded = teamSet(this.list(queryWrapper));
+            if (loaded.getTeamSet() != null) {
+                for (TeamVo teamVo : loaded.getTeamSet()) {
+                    cardMap.put(teamVo.getId(), teamVo);
+                    twoLevelCache.put(CacheConstant.TEAM_CARD, String.format(TEAM_CARD_KEY, teamVo.getId()), teamVo,
+                            10 + RandomUtil.randomInt(0, 5), TimeUnit.MINUTES);
+                }
+            }
+        }
+        Date now = new Date();
+        List<TeamVo> result = new ArrayList<>(teamIds.size());
+        List<Long> staleIds = new ArrayList<>();
+        for (Long teamId : teamIds) {
+            TeamVo teamVo = cardMap.get(teamId);
+            if (teamVo == null || (teamVo.getExpireTime() != null && teamVo.getExpireTime().before(now))) {
+                staleIds.add(teamId);
+                continue;
+            }
+            result.add(teamVo);
+        }
+        teamFeedIndex.remove(staleIds);
+        return result;
+    }
 
     @Override
     public TeamUserVo teamSet(List<Team> teamList) {
@@ -180,21 +360,18 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
 
         // 1. 预处理：收集所有涉及到的用户 ID（包括创建者和所有成员）
         Set<Long> allNeedUserIds = new HashSet<>();
-        Map<Long, Set<Long>> teamMemberMap = new HashMap<>();
+        // 一条 SQL 批量查出所有队伍的成员
+        Map<Long, List<Long>> teamMemberMap = teamMemberService.listMemberIdsByTeamIds(
+                teamList.stream().map(Team::getId).collect(Collectors.toList()));
 
         for (Team team : teamList) {
             allNeedUserIds.add(team.getUserId()); // 收集创建者 ID
-            Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-            allNeedUserIds.addAll(memberIds); // 收集成员 ID
-            teamMemberMap.put(team.getId(), memberIds);
+            allNeedUserIds.addAll(teamMemberMap.get(team.getId())); // 收集成员 ID
         }
 
-        // 2. 一次性批量查询所有用户信息并脱敏
-        // 关键：100 个人也只需要 1 条 SQL: SELECT * FROM user WHERE id IN (...)
-        List<User> usersFromDb = userService.listByIds(allNeedUserIds);
-        Map<Long, User> userMap = usersFromDb.stream()
-                .map(userService::getSafetyUser)
-                .collect(Collectors.toMap(User::getId, user -> user));
+        // 2. 一次性批量读取所有用户资料（已脱敏）
+        // 关键：先查资料缓存，未命中的 100 个人也只需要 1 条 SQL: SELECT * FROM user WHERE id IN (...)
+        Map<Long, User> userMap = userProfileLoader.loadAll(allNeedUserIds);
 
         // 3. 封装 Vo
         List<TeamVo> teamVoList = teamList.stream().map(team -> {
@@ -205,7 +382,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             teamVo.setUser(userMap.get(team.getUserId()));
 
             // 从 Map 中直接获取成员列表，无需查库
-            Set<Long> memberIds = teamMemberMap.get(team.getId());
+            List<Long> memberIds = teamMemberMap.get(team.getId());
             Set<User> memberSet = memberIds.stream()
                     .map(userMap::get)
                     .filter(Objects::nonNull)
@@ -323,11 +500,6 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                 team.setTeamStatus(teamStatus);
                 team.setAnnounce(announce);
                 team.setIsDelete(0);
-                
-                // 创建者自动加入队伍（usersId格式为JSON数组，如"[10001]"）
-                Set<Long> userIds = new HashSet<>();
-                userIds.add(loginUser.getId());
-                team.setUsersId(GSON.toJson(userIds));
 
                 // 5. 保存队伍
                 boolean result = this.save(team);
@@ -335,31 +507,19 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                     throw new BusinessException(ErrorCode.SYSTEM_ERROR, "创建队伍失败");
                 }
 
-                // 6. 更新创建者的teamIds字段
-                // 从数据库重新获取用户对象，确保数据一致性
-                User userFromDb = userService.getById(loginUser.getId());
-                if (userFromDb == null) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "用户不存在");
-                }
-                Set<Long> userTeamIds = StringUtils.stringJsonListToLongSet(userFromDb.getTeamIds());
-                userTeamIds.add(team.getId());
-                userFromDb.setTeamIds(GSON.toJson(userTeamIds));
-                boolean updateResult = userService.updateById(userFromDb);
-                if (!updateResult) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
-                }
+                // 6. 创建者以队长身份加入队伍
+                idBloomFilter.addTeam(team.getId());
+                teamHotRank.onTeamCreated(team.getId());
+                teamMemberService.addMember(team.getId(), loginUser.getId(), TeamConstant.MEMBER_ROLE_LEADER);
 
-                // 7. 清除缓存（清除队伍列表缓存，因为新增了队伍）
+                // 7. 加入发现页索引，清除缓存
                 try {
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除最新队伍缓存（常用limit: 10, 20, 50）
-                    redisTemplate.delete(String.format("fontal:team:new:%d", 10));
-                    redisTemplate.delete(String.format("fontal:team:new:%d", 20));
-                    redisTemplate.delete(String.format("fontal:team:new:%d", 50));
-                    log.info("清除队伍缓存成功");
+                    teamFeedIndex.add(team.getId());
                 } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
+                    log.error("加入发现页索引失败", e);
                 }
+                evictTeamCache(team.getId(), CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
 
                 return true;
             } else {
@@ -393,7 +553,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 3. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -409,13 +569,12 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 6. 校验用户是否已在队伍中
-        Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        if (teamMemberIds.contains(loginUser.getId())) {
+        if (teamMemberService.isMember(teamId, loginUser.getId())) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "您已在该队伍中");
         }
 
         // 7. 校验队伍人数是否已满
-        int currentMemberCount = teamMemberIds.size();
+        long currentMemberCount = teamMemberService.countMembers(teamId);
         if (team.getMaxNum() != null && currentMemberCount >= team.getMaxNum()) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍人数已满");
         }
@@ -461,51 +620,30 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             if (lock.tryLock(0, 10, TimeUnit.SECONDS)) {
                 log.info("get lock for join team, teamId: {}, userId: {}", teamId, loginUser.getId());
 
-                // 10. 再次校验队伍人数（防止并发加入）
-                Team teamFromDb = this.getById(teamId);
-                Set<Long> currentMemberIds = StringUtils.stringJsonListToLongSet(teamFromDb.getUsersId());
-                if (currentMemberIds.size() >= teamFromDb.getMaxNum()) {
-                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍人数已满");
+                // 10. 从数据库重新获取队伍信息，再次校验状态和人数（队伍可能在加锁前被解散、修改）
+                Team teamFromDb = entityIdentityMap.reloadTeam(teamId);
+                if (teamFromDb == null) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
                 }
-
-                // 11. 更新队伍的usersId字段
-                currentMemberIds.add(loginUser.getId());
-                teamFromDb.setUsersId(GSON.toJson(currentMemberIds));
-                teamFromDb.setUpdateTime(new Date());  // 手动设置更新时间
-                boolean updateTeamResult = this.updateById(teamFromDb);
-                if (!updateTeamResult) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加入队伍失败");
+                if (teamFromDb.getIsDelete() != null && teamFromDb.getIsDelete() == 1) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍已删除");
                 }
-
-                // 12. 更新用户的teamIds字段
-                User userFromDb = userService.getById(loginUser.getId());
-                if (userFromDb == null) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "用户不存在");
+                if (teamFromDb.getExpireTime() != null && teamFromDb.getExpireTime().before(new Date())) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍已过期");
                 }
-                Set<Long> userTeamIds = StringUtils.stringJsonListToLongSet(userFromDb.getTeamIds());
-                userTeamIds.add(teamId);
-                userFromDb.setTeamIds(GSON.toJson(userTeamIds));
-                boolean updateUserResult = userService.updateById(userFromDb);
-                if (!updateUserResult) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
+                if (teamFromDb.getMaxNum() != null && teamMemberService.countMembers(teamId) >= teamFromDb.getMaxNum()) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍人数已满");
                 }
 
-                // 13. 清除缓存
-                try {
-                    // 清除队伍列表缓存
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除队伍详情缓存
-                    String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-                    redisTemplate.delete(teamIdKey);
-                    // 清除热门队伍缓存（常用limit: 10, 20, 50）
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 10));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 20));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 50));
-                    log.info("清除队伍缓存成功, teamId: {}", teamId);
-                } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
+                // 11. 插入一条成员记录（唯一索引保证不会重复加入）
+                if (!teamMemberService.addMember(teamId, loginUser.getId(), TeamConstant.MEMBER_ROLE_MEMBER)) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "您已在该队伍中");
                 }
 
+                // 12. 清除缓存
+                evictTeamCache(teamId, CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
+
                 return true;
             } else {
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加入队伍过于频繁，请稍后再试");
@@ -537,7 +675,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 3. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -548,8 +686,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 5. 校验用户是否在队伍中
-        Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        if (!teamMemberIds.contains(loginUser.getId())) {
+        if (!teamMemberService.isMember(teamId, loginUser.getId())) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "您不在该队伍中");
         }
 
@@ -565,88 +702,45 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             if (lock.tryLock(0, 10, TimeUnit.SECONDS)) {
                 log.info("get lock for quit team, teamId: {}, userId: {}", teamId, loginUser.getId());
 
-                // 8. 从数据库重新获取队伍和用户信息，确保数据一致性
-                Team teamFromDb = this.getById(teamId);
-                User userFromDb = userService.getById(loginUser.getId());
-
+                // 8. 从数据库重新获取队伍信息，确保数据一致性
+                Team teamFromDb = entityIdentityMap.reloadTeam(teamId);
                 if (teamFromDb == null) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
                 }
 
-                Set<Long> currentMemberIds = StringUtils.stringJsonListToLongSet(teamFromDb.getUsersId());
-                Set<Long> currentUserTeamIds = StringUtils.stringJsonListToLongSet(userFromDb.getTeamIds());
+                // 9. 删除当前用户的成员记录
+                if (!teamMemberService.removeMember(teamId, loginUser.getId())) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "您不在该队伍中");
+                }
 
-                // 9. 队长退出队伍的特殊处理
+                // 10. 队长退出队伍的特殊处理
                 if (isLeader) {
-                    // 如果队长是队伍中唯一的成员，删除队伍
-                    if (currentMemberIds.size() == 1) {
-                        // 删除队伍
+                    List<Long> remainingMemberIds = teamMemberService.listMemberIds(teamId);
+                    if (remainingMemberIds.isEmpty()) {
+                        // 队长是队伍中唯一的成员，删除队伍
                         teamFromDb.setIsDelete(1);
                         boolean deleteTeamResult = this.updateById(teamFromDb);
                         if (!deleteTeamResult) {
                             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "删除队伍失败");
                         }
-                        // 从用户的队伍列表中移除该队伍
-                        currentUserTeamIds.remove(teamId);
-                        userFromDb.setTeamIds(GSON.toJson(currentUserTeamIds));
-                        boolean updateUserResult = userService.updateById(userFromDb);
-                        if (!updateUserResult) {
-                            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
-                        }
+                        teamHotRank.remove(teamId);
+                        teamFeedIndex.remove(teamId);
                     } else {
-                        // 队长退出但队伍还有其他成员，需要转让队长权限给第一个成员
-                        currentMemberIds.remove(loginUser.getId());
-                        // 获取第一个成员作为新队长
-                        Long newLeaderId = currentMemberIds.iterator().next();
+                        // 队伍还有其他成员，转让队长权限给最早加入的成员
+                        Long newLeaderId = remainingMemberIds.get(0);
                         teamFromDb.setUserId(newLeaderId);
-                        teamFromDb.setUsersId(GSON.toJson(currentMemberIds));
                         teamFromDb.setUpdateTime(new Date());  // 手动设置更新时间
                         boolean updateTeamResult = this.updateById(teamFromDb);
                         if (!updateTeamResult) {
                             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "转让队长失败");
                         }
-                        // 从原队长的队伍列表中移除该队伍
-                        currentUserTeamIds.remove(teamId);
-                        userFromDb.setTeamIds(GSON.toJson(currentUserTeamIds));
-                        boolean updateUserResult = userService.updateById(userFromDb);
-                        if (!updateUserResult) {
-                            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
-                        }
-                    }
-                } else {
-                    // 10. 普通成员退出队伍
-                    // 从队伍的成员列表中移除用户
-                    currentMemberIds.remove(loginUser.getId());
-                    teamFromDb.setUsersId(GSON.toJson(currentMemberIds));
-                    teamFromDb.setUpdateTime(new Date());  // 手动设置更新时间
-                    boolean updateTeamResult = this.updateById(teamFromDb);
-                    if (!updateTeamResult) {
-                        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "退出队伍失败");
-                    }
-                    // 从用户的队伍列表中移除该队伍
-                    currentUserTeamIds.remove(teamId);
-                    userFromDb.setTeamIds(GSON.toJson(currentUserTeamIds));
-                    boolean updateUserResult = userService.updateById(userFromDb);
-                    if (!updateUserResult) {
-                        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
+                        teamMemberService.changeLeader(teamId, loginUser.getId(), newLeaderId);
                     }
                 }
 
                 // 11. 清除缓存
-                try {
-                    // 清除队伍列表缓存
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除队伍详情缓存
-                    String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-                    redisTemplate.delete(teamIdKey);
-                    // 清除热门队伍缓存（常用limit: 10, 20, 50）
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 10));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 20));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 50));
-                    log.info("清除队伍缓存成功, teamId: {}", teamId);
-                } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
-                }
+                evictTeamCache(teamId, CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
 
                 return true;
             } else {
@@ -684,7 +778,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 3. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -711,8 +805,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 8. 校验要踢出的用户是否在队伍中
-        Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        if (!teamMemberIds.contains(userId)) {
+        if (!teamMemberService.isMember(teamId, userId)) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "该用户不在队伍中");
         }
 
@@ -726,57 +819,14 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                 log.info("get lock for kick out user, teamId: {}, userId: {}, kickedUserId: {}", 
                     teamId, loginUser.getId(), userId);
 
-                // 10. 从数据库重新获取队伍和用户信息，确保数据一致性
-                Team teamFromDb = this.getById(teamId);
-                User userToBeKicked = userService.getById(userId);
-
-                if (teamFromDb == null) {
-                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
-                }
-                if (userToBeKicked == null) {
-                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "要踢出的用户不存在");
-                }
-
-                Set<Long> currentMemberIds = StringUtils.stringJsonListToLongSet(teamFromDb.getUsersId());
-                Set<Long> kickedUserTeamIds = StringUtils.stringJsonListToLongSet(userToBeKicked.getTeamIds());
-
-                // 11. 再次校验用户是否在队伍中
-                if (!currentMemberIds.contains(userId)) {
+                // 10. 删除被踢出用户的成员记录（删除失败说明已不在队伍中）
+                if (!teamMemberService.removeMember(teamId, userId)) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "该用户不在队伍中");
                 }
 
-                // 12. 从队伍的成员列表中移除用户
-                currentMemberIds.remove(userId);
-                teamFromDb.setUsersId(GSON.toJson(currentMemberIds));
-                teamFromDb.setUpdateTime(new Date());  // 手动设置更新时间
-                boolean updateTeamResult = this.updateById(teamFromDb);
-                if (!updateTeamResult) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "踢出用户失败");
-                }
-
-                // 13. 从被踢出用户的队伍列表中移除该队伍
-                kickedUserTeamIds.remove(teamId);
-                userToBeKicked.setTeamIds(GSON.toJson(kickedUserTeamIds));
-                boolean updateUserResult = userService.updateById(userToBeKicked);
-                if (!updateUserResult) {
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
-                }
-
-                // 14. 清除缓存
-                try {
-                    // 清除队伍列表缓存
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除队伍详情缓存
-                    String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-                    redisTemplate.delete(teamIdKey);
-                    // 清除热门队伍缓存（常用limit: 10, 20, 50）
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 10));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 20));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 50));
-                    log.info("清除队伍缓存成功, teamId: {}", teamId);
-                } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
-                }
+                // 11. 清除缓存
+                evictTeamCache(teamId, CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
 
                 return true;
             } else {
@@ -810,7 +860,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 3. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -856,8 +906,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍最多只能有" + MAX_TEAM_MEMBERS + "人");
             }
             // 校验当前人数是否超过新的最大人数
-            Set<Long> currentMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-            if (currentMemberIds.size() > maxNum) {
+            if (teamMemberService.countMembers(teamId) > maxNum) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "当前队伍人数已超过设置的最大人数");
             }
         }
@@ -907,7 +956,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                 log.info("get lock for update team, teamId: {}, userId: {}", teamId, loginUser.getId());
 
                 // 12. 从数据库重新获取队伍信息，确保数据一致性
-                Team teamFromDb = this.getById(teamId);
+                Team teamFromDb = entityIdentityMap.reloadTeam(teamId);
                 if (teamFromDb == null) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
                 }
@@ -945,16 +994,8 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                 }
 
                 // 14. 清除缓存
-                try {
-                    // 清除队伍列表缓存
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除队伍详情缓存
-                    String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-                    redisTemplate.delete(teamIdKey);
-                    log.info("清除队伍缓存成功, teamId: {}", teamId);
-                } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
-                }
+                evictTeamCache(teamId, CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
 
                 return true;
             } else {
@@ -992,7 +1033,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 3. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -1027,8 +1068,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 9. 校验要转让的用户是否在队伍中
-        Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        if (!teamMemberIds.contains(newLeader.getId())) {
+        if (!teamMemberService.isMember(teamId, newLeader.getId())) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "该用户不在队伍中");
         }
 
@@ -1043,15 +1083,13 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                     teamId, loginUser.getId(), userAccount);
 
                 // 11. 从数据库重新获取队伍信息，确保数据一致性
-                Team teamFromDb = this.getById(teamId);
+                Team teamFromDb = entityIdentityMap.reloadTeam(teamId);
                 if (teamFromDb == null) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
                 }
 
-                Set<Long> currentMemberIds = StringUtils.stringJsonListToLongSet(teamFromDb.getUsersId());
-
                 // 12. 再次校验要转让的用户是否在队伍中
-                if (!currentMemberIds.contains(newLeader.getId())) {
+                if (!teamMemberService.isMember(teamId, newLeader.getId())) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "该用户不在队伍中");
                 }
 
@@ -1062,18 +1100,11 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
                 if (!updateTeamResult) {
                     throw new BusinessException(ErrorCode.SYSTEM_ERROR, "转让队长失败");
                 }
+                teamMemberService.changeLeader(teamId, loginUser.getId(), newLeader.getId());
 
                 // 14. 清除缓存
-                try {
-                    // 清除队伍列表缓存
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除队伍详情缓存
-                    String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-                    redisTemplate.delete(teamIdKey);
-                    log.info("清除队伍缓存成功, teamId: {}", teamId);
-                } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
-                }
+                evictTeamCache(teamId, CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
 
                 return true;
             } else {
@@ -1108,7 +1139,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 3. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = entityIdentityMap.getTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -1129,10 +1160,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             throw new BusinessException(ErrorCode.NO_AUTH, "只有队长才能删除队伍");
         }
 
-        // 7. 获取队伍所有成员
-        Set<Long> teamMemberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-
-        // 8. 使用分布式锁保证并发安全
+        // 7. 使用分布式锁保证并发安全
         String lockKey = String.format("fontal:team:delete:lock:%s", teamId);
         RLock lock = redissonClient.getLock(lockKey);
 
@@ -1141,63 +1169,26 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             if (lock.tryLock(0, 10, TimeUnit.SECONDS)) {
                 log.info("get lock for delete team, teamId: {}, userId: {}", teamId, loginUser.getId());
 
-                // 9. 从数据库重新获取队伍信息，确保数据一致性
-                Team teamFromDb = this.getById(teamId);
+                // 8. 从数据库重新获取队伍信息，确保数据一致性
+                Team teamFromDb = entityIdentityMap.reloadTeam(teamId);
                 if (teamFromDb == null) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
                 }
 
-                Set<Long> currentMemberIds = StringUtils.stringJsonListToLongSet(teamFromDb.getUsersId());
-
-                // 10. 逻辑删除队伍
+                // 9. 逻辑删除队伍
                 teamFromDb.setIsDelete(1);
                 boolean deleteTeamResult = this.updateById(teamFromDb);
                 if (!deleteTeamResult) {
                     throw new BusinessException(ErrorCode.SYSTEM_ERROR, "删除队伍失败");
                 }
 
-                // 11. 批量更新所有成员的teamIds字段
-                if (CollectionUtils.isNotEmpty(currentMemberIds)) {
-                    // 批量查询所有成员
-                    List<User> memberList = userService.listByIds(currentMemberIds);
-                    if (CollectionUtils.isNotEmpty(memberList)) {
-                        for (User member : memberList) {
-                            // 从用户的队伍列表中移除该队伍
-                            Set<Long> userTeamIds = StringUtils.stringJsonListToLongSet(member.getTeamIds());
-                            userTeamIds.remove(teamId);
-                            member.setTeamIds(GSON.toJson(userTeamIds));
-                        }
-                        // 批量更新用户
-                        boolean updateUserResult = userService.updateBatchById(memberList);
-                        if (!updateUserResult) {
-                            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新用户队伍信息失败");
-                        }
-                    }
-                }
+                // 10. 删除所有成员记录
+                teamMemberService.removeAllMembers(teamId);
+                teamFeedIndex.remove(teamId);
 
-                // 12. 清除缓存
-                try {
-                    // 清除队伍列表缓存
-                    redisTemplate.delete(TEAMS_KEY);
-                    // 清除队伍详情缓存
-                    String teamIdKey = String.format("fontal:team:getUsersByTeamId:%s", teamId);
-                    redisTemplate.delete(teamIdKey);
-
-                    // 清除最新队伍缓存（常用limit: 10, 20, 50）
-                    redisTemplate.delete(String.format("fontal:team:new:%d", 10));
-                    redisTemplate.delete(String.format("fontal:team:new:%d", 20));
-                    redisTemplate.delete(String.format("fontal:team:new:%d", 50));
-
-                    // 清除热门队伍缓存（常用limit: 10, 20, 50）
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 10));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 20));
-                    redisTemplate.delete(String.format("fontal:team:hot:%d", 50));
-
-                    // 清除推荐队伍缓存（由于包含userId，无法精确删除，依赖缓存过期）
-                    log.info("清除队伍缓存成功, teamId: {}", teamId);
-                } catch (Exception e) {
-                    log.error("清除队伍缓存失败", e);
-                }
+                // 11. 清除缓存
+                evictTeamCache(teamId, CacheConstant.NS_TEAM_NEW, CacheConstant.NS_TEAM_TAGS,
+                        CacheConstant.NS_TEAM_RECOMMEND);
 
                 return true;
             } else {
@@ -1235,12 +1226,12 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
             throw new BusinessException(ErrorCode.NO_AUTH, "只能查看自己的队伍信息");
         }
 
-        // 4. 一次查询：用户创建的 OR 用户加入的
-        // 使用 OR 条件一次性查询所有相关队伍，避免多次查询和数据重复
+        // 4. 用户创建的 OR 用户加入的（加入的队伍走 team_member 的 userId 索引）
+        List<Long> joinedTeamIds = teamMemberService.listTeamIds(userId);
         QueryWrapper<Team> queryWrapper = new QueryWrapper<>();
         queryWrapper.and(wrapper -> wrapper
                 .eq("userId", userId)  // 用户创建的队伍
-                .or(w -> w.apply("JSON_CONTAINS(usersId, {0})", userId.toString()))  // 用户加入的队伍（usersId存储的是数字数组，不需要JSON_QUOTE）
+                .or(CollectionUtils.isNotEmpty(joinedTeamIds), w -> w.in("id", joinedTeamIds))  // 用户加入的队伍
         )
         .eq("isDelete", 0)  // 排除已删除的队伍
         .gt("expireTime", new Date());  // 排除已过期的队伍
@@ -1259,7 +1250,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 2. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = getExistingTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -1276,21 +1267,19 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
 
         // 5. 尝试从缓存获取
         String cacheKey = String.format("fontal:team:basic:%s", teamId);
-        ValueOperations<String, Object> valueOperations = redisTemplate.opsForValue();
-        TeamBasicVO cachedVo = (TeamBasicVO) valueOperations.get(cacheKey);
+        TeamBasicVO cachedVo = twoLevelCache.get(CacheConstant.TEAM_BASIC, cacheKey);
         if (cachedVo != null) {
             return cachedVo;
         }
 
         // 6. 查询队长信息
-        User captain = userService.getById(team.getUserId());
+        User captain = entityIdentityMap.getUser(team.getUserId());
         if (captain == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "队长信息不存在");
         }
 
         // 7. 计算当前人数
-        Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        int currentNum = memberIds.size();
+        int currentNum = (int) teamMemberService.countMembers(teamId);
 
         // 8. 封装 TeamBasicVO
         TeamBasicVO vo = new TeamBasicVO();
@@ -1322,7 +1311,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         // vo.setRequirements("熟悉 Java 基础");
 
         // 9. 存入缓存（5分钟）
-        setRedis(cacheKey, vo);
+        setRedis(CacheConstant.TEAM_BASIC, cacheKey, vo);
 
         return vo;
     }
@@ -1354,7 +1343,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 2. 查询队伍信息
-        Team team = this.getById(teamId);
+        Team team = getExistingTeam(teamId);
         if (team == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "队伍不存在");
         }
@@ -1387,8 +1376,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         }
 
         // 6.2 判断是否是普通成员
-        Set<Long> memberIds = StringUtils.stringJsonListToLongSet(team.getUsersId());
-        boolean isMember = memberIds.contains(loginUser.getId());
+        boolean isMember = teamMemberService.isMember(teamId, loginUser.getId());
 
         membershipVO.setIsMember(isMember);
         if (isMember) {
@@ -1448,4 +1436,44 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, Team> implements Te
         // 7. 提取 TeamVo 列表
         return new ArrayList<>(teamUserVo.getTeamSet());
     }
+
+    /**
+     * 发现页游标：种子.起始id.已读到的id.是否已绕回开头
+     */
+    private static final class FeedCursor {
+
+        private final long seed;
+
+        private final long pivot;
+
+        private long lastId;
+
+        private boolean wrapped;
+
+        FeedCursor(long seed, long pivot, long lastId, boolean wrapped) {
+            this.seed = seed;
+            this.pivot = pivot;
+            this.lastId = lastId;
+            this.wrapped = wrapped;
+        }
+
+        static FeedCursor parse(String cursor) {
+            String[] parts = cursor.split("\\.");
+            if (parts.length != 4) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标格式错误");
+            }
+            try {
+                return new FeedCursor(Long.parseLong(parts[0], 36), Long.parseLong(parts[1], 36),
+                        Long.parseLong(parts[2], 36), "1".equals(parts[3]));
+            } catch (NumberFormatException e) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标格式错误");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(seed, 36) + "." + Long.toString(pivot, 36) + "."
+                    + Long.toString(lastId, 36) + "." + (wrapped ? "1" : "0");
+        }
+    }
 }
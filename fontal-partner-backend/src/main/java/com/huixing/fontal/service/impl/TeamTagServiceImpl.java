@@ -0,0 +1,450 @@
+package com.huixing.fontal.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.huixing.fontal.manager.UserTagIndex;
+import com.huixing.fontal.mapper.TeamMemberMapper;
+import com.huixing.fontal.mapper.TeamTagMapper;
+import com.huixing.fontal.mapper.UserMapper;
+import com.huixing.fontal.model.entity.TeamMember;
+import com.huixing.fontal.model.entity.TeamTag;
+import com.huixing.fontal.model.entity.User;
+import com.huixing.fontal.service.TeamTagService;
+import com.huixing.fontal.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 队伍标签画像服务实现类
+ * 表中的计数是准确值；Redis Hash 只在 key 存在时增量更新，不存在时读请求从表中加载，
+ * 并设置过期时间，即使增量更新失败也会在过期后自动修正。
+ * 标签计数从 0 变为正数时把队伍加入该标签的倒排 Set，归零时移除；
+ * 每天先按 team_member × user_tag 重算表中的计数，再据此全量重建倒排表。
+ *
+ * @author fontal
+ */
+@Service
+@Slf4j
+public class TeamTagServiceImpl extends ServiceImpl<TeamTagMapper, TeamTag> implements TeamTagService {
+
+    private static final String PROFILE_KEY = "fontal:team:tagProfile:%s";
+
+    /**
+     * 占位字段，保证没有标签的队伍也能缓存
+     */
+    private static final String EMPTY_FIELD = "_";
+
+    private static final long PROFILE_EXPIRE_HOURS = 24;
+
+    /**
+     * 标签 -> 队伍id 倒排表
+     */
+    private static final String TAG_TEAMS_KEY = "fontal:team:tagTeams:%s";
+
+    /**
+     * 倒排表构建完成标记
+     */
+    private static final String TAG_TEAMS_READY_KEY = "fontal:team:tagTeams:ready";
+
+    /**
+     * 全量重建倒排表时每批加载的行数
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    /**
+     * 全量重算画像时每批的队伍id跨度
+     */
+    private static final int RECOMPUTE_TEAM_RANGE = 500;
+
+    /**
+     * key 存在时才累加，计数减到 0 的字段直接删除；ARGV 最后一个参数为增量
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+                    "local delta = tonumber(ARGV[#ARGV]) " +
+                    "for i = 1, #ARGV - 1 do " +
+                    "  if redis.call('hincrby', KEYS[1], ARGV[i], delta) <= 0 then " +
+                    "    redis.call('hdel', KEYS[1], ARGV[i]) " +
+                    "  end " +
+                    "end " +
+                    "return 1", Long.class);
+
+    @Resource
+    private TeamTagMapper teamTagMapper;
+
+    @Resource
+    private TeamMemberMapper teamMemberMapper;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public void addMemberTags(long teamId, long userId) {
+        increment(teamId, getUserTags(userId), 1);
+    }
+
+    @Override
+    public void removeMemberTags(long teamId, long userId) {
+        increment(teamId, getUserTags(userId), -1);
+    }
+
+    @Override
+    public void removeTeam(long teamId) {
+        QueryWrapper<TeamTag> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("tagName").eq("teamId", teamId);
+        Set<String> tags = teamTagMapper.selectList(queryWrapper).stream()
+                .map(TeamTag::getTagName)
+                .collect(Collectors.toSet());
+        QueryWrapper<TeamTag> deleteWrapper = new QueryWrapper<>();
+        deleteWrapper.eq("teamId", teamId);
+        teamTagMapper.delete(deleteWrapper);
+        afterCommit(() -> stringRedisTemplate.delete(String.format(PROFILE_KEY, teamId)));
+        removeTagTeams(teamId, tags);
+    }
+
+    @Override
+    public void changeUserTags(long userId, Set<String> oldTags, Set<String> newTags) {
+        Set<String> added = new HashSet<>(newTags);
+        added.removeAll(oldTags);
+        Set<String> removed = new HashSet<>(oldTags);
+        removed.removeAll(newTags);
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        QueryWrapper<TeamMember> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("teamId").eq("userId", userId);
+        for (TeamMember member : teamMemberMapper.selectList(queryWrapper)) {
+            increment(member.getTeamId(), added, 1);
+            increment(member.getTeamId(), removed, -1);
+        }
+    }
+
+    @Override
+    public Map<Long, Map<String, Integer>> listProfiles(Collection<Long> teamIds) {
+        Map<Long, Map<String, Integer>> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(teamIds)) {
+            return result;
+        }
+        List<Long> idList = new ArrayList<>(teamIds);
+        // 1. 一次往返读取全部队伍的 Redis Hash
+        List<Object> cached = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Long teamId : idList) {
+                stringConnection.hGetAll(String.format(PROFILE_KEY, teamId));
+            }
+            return null;
+        });
+        List<Long> missingIds = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i++) {
+            Map<?, ?> hash = (Map<?, ?>) cached.get(i);
+            if (hash == null || hash.isEmpty()) {
+                missingIds.add(idList.get(i));
+                continue;
+            }
+            Map<String, Integer> profile = new HashMap<>(hash.size() * 2);
+            hash.forEach((field, value) -> {
+                if (!EMPTY_FIELD.equals(field)) {
+                    profile.put((String) field, Integer.parseInt((String) value));
+                }
+            });
+            result.put(idList.get(i), profile);
+        }
+        if (missingIds.isEmpty()) {
+            return result;
+        }
+        // 2. 未命中的队伍从表中加载并回写缓存
+        Map<Long, Map<String, Integer>> loaded = new HashMap<>();
+        for (Long teamId : missingIds) {
+            loaded.put(teamId, new HashMap<>());
+        }
+        QueryWrapper<TeamTag> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("teamId", "tagName", "memberCount")
+                .in("teamId", missingIds)
+                .gt("memberCount", 0);
+        for (TeamTag teamTag : teamTagMapper.selectList(queryWrapper)) {
+            loaded.get(teamTag.getTeamId()).put(teamTag.getTagName(), teamTag.getMemberCount());
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            loaded.forEach((teamId, profile) -> {
+                String key = String.format(PROFILE_KEY, teamId);
+                Map<String, String> hash = new HashMap<>(profile.size() * 2 + 2);
+                hash.put(EMPTY_FIELD, "0");
+                profile.forEach((tag, count) -> hash.put(tag, String.valueOf(count)));
+                stringConnection.hMSet(key, hash);
+                stringConnection.expire(key, TimeUnit.HOURS.toSeconds(PROFILE_EXPIRE_HOURS));
+            });
+            return null;
+        });
+        result.putAll(loaded);
+        return result;
+    }
+
+    @Override
+    public Set<Long> listTeamIdsByTags(Collection<String> tags) {
+        if (!isTagTeamsReady()) {
+            return null;
+        }
+        Set<String> normalized = UserTagIndex.normalize(tags);
+        Set<Long> teamIds = new HashSet<>();
+        if (normalized.isEmpty()) {
+            return teamIds;
+        }
+        List<String> keys = normalized.stream()
+                .map(tag -> String.format(TAG_TEAMS_KEY, tag))
+                .collect(Collectors.toList());
+        Set<String> members = stringRedisTemplate.opsForSet().union(keys);
+        if (members != null) {
+            for (String member : members) {
+                teamIds.add(Long.parseLong(member));
+            }
+        }
+        return teamIds;
+    }
+
+    @Override
+    public boolean isTagTeamsReady() {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(TAG_TEAMS_READY_KEY));
+    }
+
+    @Override
+    public void rebuildTagTeams() {
+        long startTime = System.currentTimeMillis();
+        Map<String, Set<String>> tagTeams = new HashMap<>();
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<TeamTag> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "teamId", "tagName")
+                    .gt("id", lastId)
+                    .gt("memberCount", 0)
+                    .orderByAsc("id")
+                    .last("LIMIT " + LOAD_BATCH_SIZE);
+            List<TeamTag> batch = teamTagMapper.selectList(queryWrapper);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (TeamTag teamTag : batch) {
+                tagTeams.computeIfAbsent(teamTag.getTagName(), k -> new HashSet<>())
+                        .add(String.valueOf(teamTag.getTeamId()));
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            tagTeams.forEach((tag, teamIds) -> {
+                String key = String.format(TAG_TEAMS_KEY, tag);
+                stringConnection.del(key);
+                stringConnection.sAdd(key, teamIds.toArray(new String[0]));
+            });
+            return null;
+        });
+        // 已没有任何队伍拥有的标签，其倒排 Set 不在本次快照中，需要单独删除
+        Set<String> keys = tagTeams.keySet().stream()
+                .map(tag -> String.format(TAG_TEAMS_KEY, tag))
+                .collect(Collectors.toSet());
+        keys.add(TAG_TEAMS_READY_KEY);
+        int staleCount = deleteStaleTagTeams(keys);
+        stringRedisTemplate.opsForValue().set(TAG_TEAMS_READY_KEY, String.valueOf(System.currentTimeMillis()));
+        log.info("标签队伍倒排表构建完成：{} 个标签，删除 {} 个过时标签，耗时 {}ms",
+                tagTeams.size(), staleCount, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * SCAN 全部倒排表 key，删除不在 keepKeys 中、且表中已没有任何队伍拥有的标签
+     *
+     * @return 删除的 key 数
+     */
+    private int deleteStaleTagTeams(Set<String> keepKeys) {
+        List<String> staleKeys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(String.format(TAG_TEAMS_KEY, "*"))
+                .count(LOAD_BATCH_SIZE)
+                .build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                if (!keepKeys.contains(key)) {
+                    staleKeys.add(key);
+                }
+            }
+        }
+        int deleted = 0;
+        String prefix = String.format(TAG_TEAMS_KEY, "");
+        for (int from = 0; from < staleKeys.size(); from += LOAD_BATCH_SIZE) {
+            List<String> batch = staleKeys.subList(from, Math.min(from + LOAD_BATCH_SIZE, staleKeys.size()));
+            // 快照之后才有队伍拥有的标签（增量维护新建的 key）保留
+            Set<String> tags = batch.stream().map(key -> key.substring(prefix.length())).collect(Collectors.toSet());
+            QueryWrapper<TeamTag> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("distinct tagName").in("tagName", tags).gt("memberCount", 0);
+            teamTagMapper.selectList(queryWrapper).forEach(teamTag -> tags.remove(teamTag.getTagName()));
+            if (!tags.isEmpty()) {
+                List<String> deleteKeys = tags.stream()
+                        .map(tag -> String.format(TAG_TEAMS_KEY, tag))
+                        .collect(Collectors.toList());
+                stringRedisTemplate.delete(deleteKeys);
+                deleted += deleteKeys.size();
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void recomputeProfiles() {
+        long startTime = System.currentTimeMillis();
+        long maxTeamId = Math.max(selectMaxTeamId(teamMemberMapper.selectMaps(
+                new QueryWrapper<TeamMember>().select("max(teamId) as maxTeamId"))),
+                selectMaxTeamId(teamTagMapper.selectMaps(
+                        new QueryWrapper<TeamTag>().select("max(teamId) as maxTeamId"))));
+        long updated = 0;
+        long deleted = 0;
+        for (long minTeamId = 0; minTeamId <= maxTeamId; minTeamId += RECOMPUTE_TEAM_RANGE) {
+            long endTeamId = minTeamId + RECOMPUTE_TEAM_RANGE;
+            updated += teamTagMapper.recomputeRange(minTeamId, endTeamId);
+            deleted += teamTagMapper.deleteStaleRange(minTeamId, endTeamId);
+            // 该段队伍的 Redis 画像删除，下次读取时从表中加载
+            long from = minTeamId;
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (long teamId = from; teamId < endTeamId; teamId++) {
+                    stringConnection.del(String.format(PROFILE_KEY, teamId));
+                }
+                return null;
+            });
+        }
+        log.info("队伍标签画像重算完成：更新 {} 行，删除 {} 行，耗时 {}ms",
+                updated, deleted, System.currentTimeMillis() - startTime);
+    }
+
+    private static long selectMaxTeamId(List<Map<String, Object>> rows) {
+        if (rows.isEmpty() || rows.get(0) == null || rows.get(0).get("maxTeamId") == null) {
+            return 0;
+        }
+        return ((Number) rows.get(0).get("maxTeamId")).longValue();
+    }
+
+    /**
+     * 把队伍加入标签的倒排 Set，在事务中调用时提交后再写入
+     */
+    private void addTagTeams(long teamId, Set<String> tags) {
+        String member = String.valueOf(teamId);
+        afterCommit(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String tag : tags) {
+                stringConnection.sAdd(String.format(TAG_TEAMS_KEY, tag), member);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * 把队伍从标签的倒排 Set 中移除，在事务中调用时提交后再写入
+     */
+    private void removeTagTeams(long teamId, Set<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        String member = String.valueOf(teamId);
+        afterCommit(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String tag : tags) {
+                stringConnection.sRem(String.format(TAG_TEAMS_KEY, tag), member);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * 累加队伍画像计数：先更新表，提交后再更新已缓存的 Redis Hash
+     */
+    private void increment(long teamId, Set<String> tags, int delta) {
+        if (CollectionUtils.isEmpty(tags)) {
+            return;
+        }
+        teamTagMapper.incrementBatch(teamId, tags, delta);
+        if (delta > 0) {
+            addTagTeams(teamId, tags);
+        } else {
+            QueryWrapper<TeamTag> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("teamId", teamId).le("memberCount", 0);
+            teamTagMapper.delete(queryWrapper);
+            // 计数归零的标签从倒排表中移除
+            QueryWrapper<TeamTag> remainWrapper = new QueryWrapper<>();
+            remainWrapper.select("tagName").eq("teamId", teamId).in("tagName", tags);
+            Set<String> emptyTags = new HashSet<>(tags);
+            teamTagMapper.selectList(remainWrapper).forEach(teamTag -> emptyTags.remove(teamTag.getTagName()));
+            removeTagTeams(teamId, emptyTags);
+        }
+        String[] args = new String[tags.size() + 1];
+        int i = 0;
+        for (String tag : tags) {
+            args[i++] = tag;
+        }
+        args[i] = String.valueOf(delta);
+        String profileKey = String.format(PROFILE_KEY, teamId);
+        afterCommit(() -> {
+            try {
+                stringRedisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(profileKey), (Object[]) args);
+            } catch (Exception e) {
+                // 缓存更新失败不影响主流程，直接删除让下次读取时从表中重新加载
+                log.error("更新队伍 {} 标签画像缓存失败", teamId, e);
+                stringRedisTemplate.delete(profileKey);
+            }
+        });
+    }
+
+    /**
+     * 在事务中调用时提交后再更新 Redis，回滚不会改动缓存，其他节点也不会在提交前读到新的计数
+     */
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("更新队伍标签缓存失败，将在下一次重建时修正", e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    /**
+     * 获取用户标准化后的标签
+     * 直接读 user 表并对用户行加锁：内存索引只在处理修改的节点上是新的，不能用于维护持久化的计数；
+     * 调用方（成员变更、修改标签）都在事务中，锁持续到提交，加入、退出与修改标签串行，计数不会漏算或重复
+     */
+    private Set<String> getUserTags(long userId) {
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "tags").eq("id", userId).last("for update");
+        User user = userMapper.selectOne(queryWrapper);
+        if (user == null) {
+            return Collections.emptySet();
+        }
+        return UserTagIndex.normalize(StringUtils.stringJsonListToStringSet(user.getTags()));
+    }
+}
@@ -7,30 +7,45 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.huixing.fontal.common.ErrorCode;
 import com.huixing.fontal.common.PageResult;
+import com.huixing.fontal.contant.CacheConstant;
 import com.huixing.fontal.exception.BusinessException;
+import com.huixing.fontal.manager.AuthTokenManager;
+import com.huixing.fontal.manager.CacheNamespace;
+import com.huixing.fontal.manager.EntityIdentityMap;
+import com.huixing.fontal.manager.IdBloomFilter;
+import com.huixing.fontal.manager.UserProfileLoader;
+import com.huixing.fontal.manager.UserTagIndex;
+import com.huixing.fontal.manager.UserTagMatcher;
 import com.huixing.fontal.mapper.UserMapper;
 import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.model.request.UpdatePasswordRequest;
 import com.huixing.fontal.model.request.UpdateTagRequest;
 import com.huixing.fontal.model.request.UserUpdateRequest;
+import com.huixing.fontal.model.session.LoginPrincipal;
+import com.huixing.fontal.model.vo.AuthTokenVO;
 import com.huixing.fontal.model.vo.UserDetailVO;
 import com.huixing.fontal.model.vo.UserVO;
+import com.huixing.fontal.service.TeamTagService;
 import com.huixing.fontal.service.UserService;
+import com.huixing.fontal.service.UserTagService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.DigestUtils;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.io.Serializable;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static com.huixing.fontal.contant.UserConstant.ADMIN_ROLE;
-import static com.huixing.fontal.contant.UserConstant.LOGIN_USER_STATUS;
+import static com.huixing.fontal.contant.UserConstant.*;
 
 @Slf4j
 @Service
@@ -43,10 +58,55 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Resource
     private UserMapper userMapper;
 
+    @Resource
+    private UserTagIndex userTagIndex;
+
+    @Resource
+    private UserTagMatcher userTagMatcher;
+
+    @Resource
+    private UserTagService userTagService;
+
+    @Resource
+    private TeamTagService teamTagService;
+
+    @Resource
+    private CacheNamespace cacheNamespace;
+
+    @Resource
+    private UserProfileLoader userProfileLoader;
+
+    @Resource
+    private AuthTokenManager authTokenManager;
+
+    @Resource
+    private IdBloomFilter idBloomFilter;
+
+    @Resource
+    private EntityIdentityMap entityIdentityMap;
+
+    /**
+     * 内存索引未就绪时标签查询的数据源：json（user.tags 列）| table（user_tag 表）
+     */
+    @Value("${fontal.tag.read-source:json}")
+    private String tagReadSource;
+
     private static final Gson GSON = new Gson();
     private static final Type TAG_SET_TYPE = new TypeToken<Set<String>>() {
     }.getType();
 
+    /**
+     * 按ID回表时每批的最大ID数
+     */
+    private static final int HYDRATE_BATCH_SIZE = 1000;
+
+    /**
+     * 相似用户默认返回数量
+     */
+    private static final int MATCH_USER_LIMIT = 20;
+
+    private static final String TAG_SOURCE_TABLE = "table";
+
     @Override
     public User userLogin(String userAccount, String userPassword, HttpServletRequest request) {
         //参数校验
@@ -84,7 +144,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException(ErrorCode.PARAMS_ERROR,"用户名或者密码错误");
         }
         User safeUser = getSafetyUser(user);
-        request.getSession().setAttribute(LOGIN_USER_STATUS,safeUser);
+        // 会话中只保存登录身份，用户资料从缓存读取
+        // 令牌鉴权模式下由 createLoginToken 签发令牌，不创建会话
+        if (!authTokenManager.isEnabled()) {
+            request.getSession().setAttribute(LOGIN_PRINCIPAL, toPrincipal(user));
+        }
         return safeUser;
     }
 
@@ -143,6 +207,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if(!saveResult) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR,"注册失败");
         }
+        userTagIndex.refresh(user.getId());
+        idBloomFilter.addUser(user.getId());
         return user.getId();
     }
 
@@ -152,14 +218,120 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             return null;
         }
         //获取当前登入用户
-        Object objUser = request.getSession().getAttribute(LOGIN_USER_STATUS);
-        User currentUser = (User) objUser;
+        LoginPrincipal principal = getLoginPrincipal(request);
+        User currentUser = getUserProfile(principal.getUserId());
         if (currentUser == null) {
+            if (!authTokenManager.isEnabled()) {
+                removeLoginAttributes(request);
+            }
             throw new BusinessException(ErrorCode.PARAMS_ERROR,"请先登入");
         }
+        // 资料更新过（角色、状态可能变化），刷新会话中的登录身份；令牌模式下在下次刷新令牌时更新
+        long version = currentUser.getUpdateTime() == null ? 0 : currentUser.getUpdateTime().getTime();
+        if (version > principal.getVersion() && !authTokenManager.isEnabled()) {
+            request.getSession().setAttribute(LOGIN_PRINCIPAL, toPrincipal(currentUser));
+        }
         return currentUser;
     }
 
+    @Override
+    public LoginPrincipal getLoginPrincipal(HttpServletRequest request) {
+        if (authTokenManager.isEnabled()) {
+            return getTokenPrincipal(request);
+        }
+        HttpSession session = request.getSession();
+        Object attribute = session.getAttribute(LOGIN_PRINCIPAL);
+        if (attribute instanceof LoginPrincipal) {
+            return (LoginPrincipal) attribute;
+        }
+        Object legacy = session.getAttribute(LOGIN_USER_STATUS);
+        LoginPrincipal principal = null;
+        if (legacy instanceof User) {
+            // 旧版本会话中保存的是完整用户对象，转换为登录身份写入新键值；旧键值保留，滚动发布期间旧节点仍可读取
+            principal = toPrincipal((User) legacy);
+        } else if (legacy instanceof LoginPrincipal) {
+            principal = (LoginPrincipal) legacy;
+        }
+        if (principal == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR,"请先登入");
+        }
+        session.setAttribute(LOGIN_PRINCIPAL, principal);
+        return principal;
+    }
+
+    /**
+     * 清除会话中新旧两种登录态
+     */
+    private void removeLoginAttributes(HttpServletRequest request) {
+        HttpSession session = request.getSession();
+        session.removeAttribute(LOGIN_PRINCIPAL);
+        session.removeAttribute(LOGIN_USER_STATUS);
+    }
+
+    /**
+     * 令牌鉴权模式下从请求头解析登录身份，本地校验签名，同一请求内只解析一次
+     */
+    private LoginPrincipal getTokenPrincipal(HttpServletRequest request) {
+        Object attribute = request.getAttribute(LOGIN_PRINCIPAL);
+        if (attribute instanceof LoginPrincipal) {
+            return (LoginPrincipal) attribute;
+        }
+        String header = request.getHeader(AUTHORIZATION_HEADER);
+        LoginPrincipal principal = null;
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            principal = authTokenManager.verifyAccessToken(header.substring(BEARER_PREFIX.length()));
+        }
+        if (principal == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN, "请先登入");
+        }
+        request.setAttribute(LOGIN_PRINCIPAL, principal);
+        return principal;
+    }
+
+    @Override
+    public long getLoginUserId(HttpServletRequest request) {
+        return getLoginPrincipal(request).getUserId();
+    }
+
+    @Override
+    public User getUserProfile(long userId) {
+        return userProfileLoader.load(userId);
+    }
+
+    /**
+     * 按ID查询用户，布隆过滤器判断一定不存在时不查库，查库未找到时记入空值缓存
+     *
+     * @param userId 用户ID
+     * @return 用户，不存在时返回 null
+     */
+    private User getExistingUser(long userId) {
+        if (!idBloomFilter.mightExistUser(userId)) {
+            return null;
+        }
+        User user = entityIdentityMap.getUser(userId);
+        if (user == null) {
+            idBloomFilter.markUserMissing(userId);
+        }
+        return user;
+    }
+
+    @Override
+    public void evictUserProfile(long userId) {
+        entityIdentityMap.evictUser(userId);
+        try {
+            userProfileLoader.evict(userId);
+        } catch (Exception e) {
+            log.error("清除用户资料缓存失败, userId: {}", userId, e);
+        }
+    }
+
+    private static LoginPrincipal toPrincipal(User user) {
+        return new LoginPrincipal(user.getId(),
+                user.getUserRole() == null ? 0 : user.getUserRole(),
+                user.getUserStatus() == null ? 0 : user.getUserStatus(),
+                user.getUpdateTime() == null ? 0 : user.getUpdateTime().getTime());
+    }
+
 
 
     /**
@@ -170,33 +342,43 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public User getSafetyUser(User originUser) {
-        if (originUser == null) {
-            return null;
-        }
-        User safeUser = new User();
-        safeUser.setId(originUser.getId());
-        safeUser.setUsername(originUser.getUsername());
-        safeUser.setUserAccount(originUser.getUserAccount());
-        safeUser.setUserAvatarUrl(originUser.getUserAvatarUrl());
-        safeUser.setGender(originUser.getGender());
-        safeUser.setEmail(originUser.getEmail());
-        safeUser.setContactInfo(originUser.getContactInfo());
-        safeUser.setUserDesc(originUser.getUserDesc());
-        safeUser.setUserStatus(originUser.getUserStatus());
-        safeUser.setUserRole(originUser.getUserRole());
-        safeUser.setUserIds(originUser.getUserIds());
-        safeUser.setTags(originUser.getTags());
-        safeUser.setTeamIds(originUser.getTeamIds());
-        safeUser.setCreateTime(originUser.getCreateTime());
-        return safeUser;
+        return UserProfileLoader.toSafeUser(originUser);
     }
 
     @Override
     public Integer loginOut(HttpServletRequest request) {
-        request.getSession().removeAttribute(LOGIN_USER_STATUS);
+        if (authTokenManager.isEnabled()) {
+            // 作废刷新令牌，访问令牌由客户端丢弃，最多在有效期内仍可使用
+            authTokenManager.revoke(request.getHeader(REFRESH_TOKEN_HEADER));
+            return 1;
+        }
+        removeLoginAttributes(request);
         return 1;
     }
 
+    @Override
+    public AuthTokenVO createLoginToken(User user) {
+        if (!authTokenManager.isEnabled()) {
+            return null;
+        }
+        return authTokenManager.issue(toPrincipal(user));
+    }
+
+    @Override
+    public AuthTokenVO refreshLoginToken(String refreshToken) {
+        if (!authTokenManager.isEnabled()) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "未启用令牌登录");
+        }
+        if (StringUtils.isBlank(refreshToken)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "刷新令牌不能为空");
+        }
+        // 用最新的资料签发，角色、状态变化在刷新后生效
+        return authTokenManager.refresh(refreshToken, userId -> {
+            User profile = getUserProfile(userId);
+            return profile == null ? null : toPrincipal(profile);
+        });
+    }
+
     @Override
     public Boolean updateUser(UserUpdateRequest updateUserRequest, User currentUser) {
         // 1. 从数据库重新获取用户信息，确保数据一致性
@@ -324,6 +506,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 11. 执行更新并记录日志
         boolean result = this.updateById(userFromDb);
         if (result) {
+            authTokenManager.revokeAll(currentUser.getId());
             log.info("用户 {} 修改密码成功", currentUser.getId());
         }
 
@@ -385,42 +568,16 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (CollectionUtils.isEmpty(tagNameList)) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
-        // 查询出所有的用户
-        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-        List<User> userList = userMapper.selectList(queryWrapper);
-        log.info("标签搜索：数据库共有 {} 个用户", userList.size());
-
-        Gson gson = new Gson();
-        // 在内存中查询符合要求的标签
-        List<User> matchedUsers = userList.stream().filter(user -> {
-            String tagsStr = user.getTags();
-            if (StringUtils.isBlank(tagsStr)) {
-                return false;
-            }
-            Set<String> tempTagNameStr = gson.fromJson(tagsStr, new TypeToken<Set<String>>() {
-            }.getType());
-            // 是否为空，为空返回HashSet的默认值，否则返回数值
-            tempTagNameStr = Optional.ofNullable(tempTagNameStr).orElse(new HashSet<>());
-            // tempTagNameStr集合中每一个元素首字母转换为大写
-            tempTagNameStr = tempTagNameStr.stream().map(StringUtils::capitalize).collect(Collectors.toSet());
-
-            // 返回false会过滤掉（AND 匹配：必须包含所有标签）
-            for (String tagName : tagNameList) {
-                tagName = StringUtils.capitalize(tagName);
-                if (!tempTagNameStr.contains(tagName)) {
-                    return false;
-                }
-            }
-            log.debug("标签搜索：用户 {} 匹配成功，用户标签: {}", user.getId(), tempTagNameStr);
-            return true;
-        }).map(this::getSafetyUser).collect(Collectors.toList());
-
-        log.info("标签搜索：匹配到 {} 个用户，搜索条件: {}", matchedUsers.size(), tagNameList);
-        return matchedUsers;
+        List<Long> matchedIds = searchUserIdsByTags(tagNameList);
+        log.info("标签搜索：匹配到 {} 个用户，搜索条件: {}", matchedIds.size(), tagNameList);
+        return listByIdsInOrder(matchedIds).stream()
+                .map(this::getSafetyUser)
+                .collect(Collectors.toList());
     }
 
     /**
      * 根据标签搜索用户（分页版本）
+     * 先通过倒排索引求出匹配的用户ID，只回表查询当前页的用户
      */
     @Override
     public PageResult<UserVO> searchUserByTags(Set<String> tagNameList, int pageNum, int pageSize) {
@@ -428,36 +585,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
 
-        // 查询出所有的用户
-        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-        List<User> userList = userMapper.selectList(queryWrapper);
-        log.info("标签搜索：数据库共有 {} 个用户", userList.size());
-
-        Gson gson = new Gson();
-        // 在内存中查询符合要求的标签
-        List<User> matchedUsers = userList.stream().filter(user -> {
-            String tagsStr = user.getTags();
-            if (StringUtils.isBlank(tagsStr)) {
-                return false;
-            }
-            Set<String> tempTagNameStr = gson.fromJson(tagsStr, TAG_SET_TYPE);
-            // 是否为空，为空返回HashSet的默认值，否则返回数值
-            tempTagNameStr = Optional.ofNullable(tempTagNameStr).orElse(new HashSet<>());
-            // tempTagNameStr集合中每一个元素首字母转换为大写
-            tempTagNameStr = tempTagNameStr.stream().map(StringUtils::capitalize).collect(Collectors.toSet());
-
-            // 返回false会过滤掉（AND 匹配：必须包含所有标签）
-            for (String tagName : tagNameList) {
-                tagName = StringUtils.capitalize(tagName);
-                if (!tempTagNameStr.contains(tagName)) {
-                    return false;
-                }
-            }
-            log.debug("标签搜索：用户 {} 匹配成功，用户标签: {}", user.getId(), tempTagNameStr);
-            return true;
-        }).collect(Collectors.toList());
-
-        long total = matchedUsers.size();
+        List<Long> matchedIds = searchUserIdsByTags(tagNameList);
+        long total = matchedIds.size();
         log.info("标签搜索：匹配到 {} 个用户，搜索条件: {}", total, tagNameList);
 
         // 分页处理
@@ -466,7 +595,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         List<UserVO> pageRecords = new ArrayList<>();
         if (fromIndex < total && fromIndex >= 0) {
-            pageRecords = matchedUsers.subList(fromIndex, toIndex)
+            pageRecords = listByIdsInOrder(matchedIds.subList(fromIndex, toIndex))
                     .stream()
                     .map(this::convertToVO)
                     .collect(Collectors.toList());
@@ -475,11 +604,97 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         return new PageResult<>(pageRecords, total, pageNum, pageSize);
     }
 
+    /**
+     * 查询同时拥有全部标签的用户ID（升序）
+     * 优先走内存倒排索引，索引未就绪时按 fontal.tag.read-source 回退到 user_tag 表或全表扫描
+     */
+    private List<Long> searchUserIdsByTags(Set<String> tagNameList) {
+        if (userTagIndex.isReady()) {
+            return userTagIndex.searchAll(tagNameList);
+        }
+        if (isTagTableSource()) {
+            return userTagService.listUserIdsByAllTags(UserTagIndex.normalize(tagNameList));
+        }
+        log.warn("标签索引未就绪，回退到全表扫描");
+        return scanUserIdsByTags(tagNameList);
+    }
+
+    private boolean isTagTableSource() {
+        return TAG_SOURCE_TABLE.equalsIgnoreCase(tagReadSource);
+    }
+
+    /**
+     * 全表扫描并在内存中按标签过滤（索引未就绪时使用）
+     */
+    private List<Long> scanUserIdsByTags(Set<String> tagNameList) {
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "tags").orderByAsc("id");
+        List<User> userList = userMapper.selectList(queryWrapper);
+        log.info("标签搜索：数据库共有 {} 个用户", userList.size());
+
+        Set<String> searchTags = toCapitalize(tagNameList);
+        return userList.stream().filter(user -> {
+            String tagsStr = user.getTags();
+            if (StringUtils.isBlank(tagsStr)) {
+                return false;
+            }
+            Set<String> tempTagNameStr = GSON.fromJson(tagsStr, TAG_SET_TYPE);
+            // 是否为空，为空返回HashSet的默认值，否则返回数值
+            tempTagNameStr = Optional.ofNullable(tempTagNameStr).orElse(new HashSet<>());
+            // 返回false会过滤掉（AND 匹配：必须包含所有标签）
+            return toCapitalize(tempTagNameStr).containsAll(searchTags);
+        }).map(User::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * 按ID批量读取用户资料（走资料缓存，未命中的分批 IN 查询），并保持传入ID的顺序
+     */
+    private List<User> listByIdsInOrder(List<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> userMap = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += HYDRATE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + HYDRATE_BATCH_SIZE, ids.size()));
+            userMap.putAll(userProfileLoader.loadAll(batch));
+        }
+        return ids.stream()
+                .map(userMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public boolean isAdmin(HttpServletRequest request) {
-        Object objUser = request.getSession().getAttribute(LOGIN_USER_STATUS);
-        User user = (User) objUser;
-        return user != null && user.getUserRole() == ADMIN_ROLE;
+        LoginPrincipal principal;
+        try {
+            principal = getLoginPrincipal(request);
+        } catch (BusinessException e) {
+            return false;
+        }
+        return principal.getUserRole() == ADMIN_ROLE;
+    }
+
+    @Override
+    public boolean updateById(User entity) {
+        boolean result = super.updateById(entity);
+        if (result) {
+            evictUserProfile(entity.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            long userId = Long.parseLong(id.toString());
+            userTagIndex.refresh(userId);
+            evictUserProfile(userId);
+            authTokenManager.revokeAll(userId);
+            idBloomFilter.markUserMissing(userId);
+        }
+        return result;
     }
 
     @Override
@@ -492,6 +707,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int updateTageById(UpdateTagRequest tagRequest, User currentUser) {
         long id = tagRequest.getId();
         if (id <= 0){
@@ -504,7 +720,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (!isAdmin(currentUser) && id != currentUser.getId()) {
             throw new BusinessException(ErrorCode.NO_AUTH,"无权限");
         }
-        User user = userMapper.selectById(id);
+        // 锁定用户行，与加入、退出队伍时读取标签串行，保证队伍标签计数准确
+        QueryWrapper<User> lockWrapper = new QueryWrapper<>();
+        lockWrapper.eq("id", id).last("for update");
+        User user = userMapper.selectOne(lockWrapper);
         if (user == null) {
             throw new BusinessException(ErrorCode.NULL_ERROR, "用户不存在");
         }
@@ -517,6 +736,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 oldTags = new HashSet<>();
             }
         }
+        Set<String> previousTags = UserTagIndex.normalize(oldTags);
         Set<String> oldTagsCapitalize = toCapitalize(oldTags);
         Set<String> newTagsCapitalize = toCapitalize(newTags);
         // 添加 newTagsCapitalize 中 oldTagsCapitalize 中不存在的元素
@@ -525,23 +745,61 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         oldTagsCapitalize.removeAll(oldTagsCapitalize.stream().filter(tag -> !newTagsCapitalize.contains(tag)).collect(Collectors.toSet()));
         String tagsJson = gson.toJson(oldTagsCapitalize);
         user.setTags(tagsJson);
-        return userMapper.updateById(user);
+        int result = userMapper.updateById(user);
+        if (result > 0) {
+            evictUserProfile(id);
+            // 双写 user_tag 表
+            Set<String> normalizedTags = UserTagIndex.normalize(oldTagsCapitalize);
+            userTagService.replaceUserTags(id, normalizedTags);
+            teamTagService.changeUserTags(id, previousTags, normalizedTags);
+            userTagIndex.refresh(id);
+            // 标签影响队伍标签画像和该用户的推荐结果
+            cacheNamespace.bump(CacheConstant.NS_TEAM_TAGS, CacheConstant.NS_TEAM_RECOMMEND);
+        }
+        return result;
     }
 
     @Override
     public List<User> computeMatchUsers(User loginUser) {
+        return computeMatchUsers(loginUser, MATCH_USER_LIMIT);
+    }
+
+    /**
+     * 计算与登录用户标签最相似的用户
+     * 优先使用内存中的标签位图打分，索引未就绪时回退到 user_tag 表聚合或数据库粗筛
+     */
+    @Override
+    public List<User> computeMatchUsers(User loginUser, int limit) {
         String loginUserTags = loginUser.getTags();
         if (StringUtils.isBlank(loginUserTags)) {
             return new ArrayList<>();
         }
 
-        // 【优化】预解析并标准化登录用户标签，避免在循环中重复执行
+        // 预解析并标准化登录用户标签
         Set<String> loginTagSet = toCapitalize(GSON.fromJson(loginUserTags, TAG_SET_TYPE));
 
-        // 【优化】SQL 粗筛：只查 ID 和 Tags，且根据标签关键词筛选，减少 90% 数据量
+        List<Long> topIds;
+        if (userTagIndex.isReady()) {
+            topIds = userTagMatcher.topK(UserTagIndex.normalize(loginTagSet), loginUser.getId(), limit);
+        } else if (isTagTableSource()) {
+            topIds = userTagService.listMatchUserIds(UserTagIndex.normalize(loginTagSet), loginUser.getId(), limit);
+        } else {
+            log.warn("标签索引未就绪，相似用户回退到数据库粗筛");
+            topIds = scanMatchUserIds(loginUser.getId(), loginTagSet, limit);
+        }
+
+        // 批量回表补全完整用户信息，并保持分数顺序
+        return listByIdsInOrder(topIds);
+    }
+
+    /**
+     * 数据库粗筛 + 内存打分（索引未就绪时使用）
+     */
+    private List<Long> scanMatchUserIds(long loginUserId, Set<String> loginTagSet, int limit) {
+        // SQL 粗筛：只查 ID 和 Tags，且根据标签关键词筛选
         QueryWrapper<User> queryWrapper = new QueryWrapper<>();
         queryWrapper.select("id", "tags"); // 极简字段查询
-        queryWrapper.ne("id", loginUser.getId());
+        queryWrapper.ne("id", loginUserId);
         queryWrapper.eq("userStatus", 0);
         queryWrapper.and(qw -> {
             for (String tag : loginTagSet) {
@@ -555,7 +813,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
 
         // 【优化】使用并行流处理 CPU 密集型计算（JSON 解析 & 交集计算）
-        List<Long> topIds = allCandidates.parallelStream()
+        return allCandidates.parallelStream()
                 .map(targetUser -> {
                     String tags = targetUser.getTags();
                     if (StringUtils.isBlank(tags)) {
@@ -568,15 +826,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 })
                 .filter(entry -> entry.getValue() > 0)
                 .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue())) // 分数降序
-                .limit(20)
+                .limit(limit)
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
-
-        // 【优化】批量回表补全完整用户信息，避免在脱敏循环中多次查询数据库
-        if (CollectionUtils.isEmpty(topIds)) {
-            return new ArrayList<>();
-        }
-        return this.listByIds(topIds);
     }
 
     /**
@@ -644,7 +896,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
 
         // 3. 登录模式
-        User loginUser = this.getById(userId);
+        User loginUser = getExistingUser(userId);
         if (loginUser == null) {
             return new ArrayList<>();
         }
@@ -654,7 +906,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         // 5. 如果没有固定用户，计算并存储
         if (fixedUserId == null) {
-            List<User> topMatches = computeMatchUsers(loginUser);
+            // 只需要最匹配的一个用户
+            List<User> topMatches = computeMatchUsers(loginUser, 1);
             if (!CollectionUtils.isEmpty(topMatches)) {
                 fixedUserId = topMatches.get(0).getId();
                 request.getSession().setAttribute("FIXED_RECOMMEND_USER", fixedUserId);
@@ -668,7 +921,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         // 6.1 添加固定用户（第一位）
         if (fixedUserId != null) {
-            User fixedUser = this.getById(fixedUserId);
+            User fixedUser = getExistingUser(fixedUserId);
             if (fixedUser != null && fixedUser.getUserStatus() == 0) {
                 result.add(convertToVO(fixedUser));
             }
@@ -731,7 +984,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
 
         // 2. 查询用户
-        User user = this.getById(userId);
+        User user = getExistingUser(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.NULL_ERROR, "用户不存在");
         }
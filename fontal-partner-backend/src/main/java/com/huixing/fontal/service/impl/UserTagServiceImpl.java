@@ -0,0 +1,73 @@
+package com.huixing.fontal.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.huixing.fontal.mapper.TagMapper;
+import com.huixing.fontal.mapper.UserTagMapper;
+import com.huixing.fontal.model.entity.Tag;
+import com.huixing.fontal.model.entity.UserTag;
+import com.huixing.fontal.service.UserTagService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 用户标签关系服务实现类
+ *
+ * @author fontal
+ */
+@Service
+@Slf4j
+public class UserTagServiceImpl extends ServiceImpl<UserTagMapper, UserTag> implements UserTagService {
+
+    @Resource
+    private UserTagMapper userTagMapper;
+
+    @Resource
+    private TagMapper tagMapper;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void replaceUserTags(long userId, Set<String> tags) {
+        QueryWrapper<UserTag> deleteWrapper = new QueryWrapper<>();
+        deleteWrapper.eq("userId", userId);
+        if (CollectionUtils.isEmpty(tags)) {
+            userTagMapper.delete(deleteWrapper);
+            return;
+        }
+        // 1. 补齐标签字典
+        tagMapper.insertIgnoreBatch(tags);
+        QueryWrapper<Tag> tagWrapper = new QueryWrapper<>();
+        tagWrapper.select("id").in("tagName", tags);
+        List<Long> tagIds = tagMapper.selectList(tagWrapper).stream()
+                .map(Tag::getId)
+                .collect(Collectors.toList());
+        // 2. 删除不再拥有的标签，插入新增的标签
+        deleteWrapper.notIn("tagId", tagIds);
+        userTagMapper.delete(deleteWrapper);
+        userTagMapper.insertIgnoreBatch(userId, tagIds);
+    }
+
+    @Override
+    public List<Long> listUserIdsByAllTags(Set<String> tags) {
+        if (CollectionUtils.isEmpty(tags)) {
+            return new ArrayList<>();
+        }
+        return userTagMapper.selectUserIdsByAllTags(tags, tags.size());
+    }
+
+    @Override
+    public List<Long> listMatchUserIds(Set<String> tags, long excludeUserId, int limit) {
+        if (CollectionUtils.isEmpty(tags) || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return userTagMapper.selectMatchUserIds(tags, excludeUserId, limit);
+    }
+}
@@ -0,0 +1,37 @@
+package com.huixing.fontal.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * JDK 序列化格式（原 RedisTemplate 默认的值格式）
+ *
+ * @author fontal
+ */
+public class JdkRedisValueCodec implements RedisValueCodec {
+
+    public static final byte ID = 1;
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(value);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) throws Exception {
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return objectIn.readObject();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.huixing.fontal.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON 数组编解码
+ * 手写解析 "[1,2,3]" 形式的 id 数组和 ["Java","Python"] 形式的标签数组，
+ * 不创建 Gson/TypeToken，id 直接解析进 {@link LongHashSet}。
+ * 遇到快速路径不支持的格式（小数、嵌套等）时回退到 Gson，保持原有行为。
+ *
+ * @author fontal
+ */
+public final class JsonArrayCodec {
+
+    private static final Gson GSON = new Gson();
+
+    private static final Type LONG_SET_TYPE = new TypeToken<Set<Long>>() {
+    }.getType();
+
+    private static final Type STRING_SET_TYPE = new TypeToken<Set<String>>() {
+    }.getType();
+
+    /**
+     * 标签字符串常量池上限，标签种类有限，超过后不再驻留
+     */
+    private static final int MAX_INTERNED = 10000;
+
+    private static final Map<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    private JsonArrayCodec() {
+    }
+
+    /**
+     * 解析 long 数组，null / 空串 / "null" 返回空集合
+     */
+    public static LongHashSet parseLongSet(String json) {
+        if (json == null) {
+            return new LongHashSet();
+        }
+        LongHashSet result = new LongHashSet();
+        if (parseLongsInto(json, result)) {
+            return result;
+        }
+        // 回退到 Gson
+        result = new LongHashSet();
+        Set<Long> set = GSON.fromJson(json, LONG_SET_TYPE);
+        if (set != null) {
+            for (Long value : set) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将 long 集合写为 JSON 数组（升序）
+     */
+    public static String writeLongSet(LongHashSet set) {
+        if (set == null || set.isEmpty()) {
+            return "[]";
+        }
+        return writeLongArray(set.toSortedArray());
+    }
+
+    /**
+     * 将 long 集合写为 JSON 数组
+     */
+    public static String writeLongs(Collection<Long> values) {
+        if (values == null || values.isEmpty()) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder(values.size() * 8 + 2).append('[');
+        boolean first = true;
+        for (Long value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            sb.append(value.longValue());
+            first = false;
+        }
+        return sb.append(']').toString();
+    }
+
+    public static String writeLongArray(long[] values) {
+        StringBuilder sb = new StringBuilder(values.length * 8 + 2).append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * 解析字符串数组，元素会驻留到常量池，null / 空串 / "null" 返回空集合
+     */
+    public static Set<String> parseStringSet(String json) {
+        if (json == null) {
+            return new HashSet<>();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        if (parseStringsInto(json, result)) {
+            return result;
+        }
+        Set<String> set = GSON.fromJson(json, STRING_SET_TYPE);
+        return Optional.ofNullable(set).orElse(new HashSet<>());
+    }
+
+    /**
+     * 快速路径：只接受由整数组成的一维数组
+     *
+     * @return 格式不支持时返回 false
+     */
+    private static boolean parseLongsInto(String json, LongHashSet out) {
+        int len = json.length();
+        int i = skipWhitespace(json, 0);
+        if (i == len || isNullLiteral(json, i)) {
+            return true;
+        }
+        if (json.charAt(i) != '[') {
+            return false;
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i < len && json.charAt(i) == ']') {
+            return skipWhitespace(json, i + 1) == len;
+        }
+        while (i < len) {
+            boolean negative = false;
+            if (json.charAt(i) == '-') {
+                negative = true;
+                i++;
+            }
+            int start = i;
+            long value = 0;
+            while (i < len) {
+                char c = json.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                // 超过 18 位时交给 Gson 处理溢出
+                if (i - start >= 18) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            if (i == start) {
+                return false;
+            }
+            out.add(negative ? -value : value);
+            i = skipWhitespace(json, i);
+            if (i == len) {
+                return false;
+            }
+            char c = json.charAt(i);
+            if (c == ']') {
+                return skipWhitespace(json, i + 1) == len;
+            }
+            if (c != ',') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1);
+        }
+        return false;
+    }
+
+    /**
+     * 快速路径：只接受由字符串组成的一维数组，支持常见转义
+     *
+     * @return 格式不支持时返回 false
+     */
+    private static boolean parseStringsInto(String json, Set<String> out) {
+        int len = json.length();
+        int i = skipWhitespace(json, 0);
+        if (i == len || isNullLiteral(json, i)) {
+            return true;
+        }
+        if (json.charAt(i) != '[') {
+            return false;
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i < len && json.charAt(i) == ']') {
+            return skipWhitespace(json, i + 1) == len;
+        }
+        StringBuilder escaped = null;
+        while (i < len) {
+            if (json.charAt(i) != '"') {
+                return false;
+            }
+            int start = ++i;
+            boolean hasEscape = false;
+            while (i < len && json.charAt(i) != '"') {
+                if (json.charAt(i) == '\\') {
+                    hasEscape = true;
+                    i++;
+                }
+                i++;
+            }
+            if (i >= len) {
+                return false;
+            }
+            String value;
+            if (hasEscape) {
+                if (escaped == null) {
+                    escaped = new StringBuilder();
+                }
+                escaped.setLength(0);
+                if (!unescape(json, start, i, escaped)) {
+                    return false;
+                }
+                value = escaped.toString();
+            } else {
+                value = json.substring(start, i);
+            }
+            out.add(intern(value));
+            i = skipWhitespace(json, i + 1);
+            if (i == len) {
+                return false;
+            }
+            char c = json.charAt(i);
+            if (c == ']') {
+                return skipWhitespace(json, i + 1) == len;
+            }
+            if (c != ',') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1);
+        }
+        return false;
+    }
+
+    private static boolean unescape(String json, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = json.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char next = json.charAt(++i);
+            switch (next) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append(next);
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= end) {
+                        return false;
+                    }
+                    try {
+                        out.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static String intern(String value) {
+        String interned = INTERNED.get(value);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return value;
+        }
+        interned = INTERNED.putIfAbsent(value, value);
+        return interned == null ? value : interned;
+    }
+
+    private static boolean isNullLiteral(String json, int i) {
+        return json.startsWith("null", i) && skipWhitespace(json, i + 4) == json.length();
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        int len = json.length();
+        while (i < len && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,82 @@
+package com.huixing.fontal.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 基本类型 long 的布隆过滤器
+ * 对 id 做一次 64 位混合后拆成两个 32 位哈希，按 h1 + i * h2 生成 k 个位置（Kirsch-Mitzenmacher）。
+ * 位数组使用 AtomicLongArray，可以并发添加和查询。
+ *
+ * @author fontal
+ */
+public class LongBloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预计元素个数
+     * @param fpp                期望误判率，如 0.01
+     */
+    public LongBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(expectedInsertions, 1);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE);
+        this.bits = new AtomicLongArray(Math.max(words, 1));
+        this.bitSize = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    public void add(long value) {
+        long hash = mix(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitSize);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(long value) {
+        long hash = mix(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 位数组占用的字节数
+     */
+    public long sizeInBytes() {
+        return bitSize >>> 3;
+    }
+
+    /**
+     * MurmurHash3 的 fmix64
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,199 @@
+package com.huixing.fontal.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 基本类型 long 的哈希集合（开放寻址，线性探测）
+ * 用于解析 "[1,2,3]" 形式的 id 数组，避免 Long 装箱。非线程安全。
+ *
+ * @author fontal
+ */
+public class LongHashSet {
+
+    /**
+     * 空槽标记；值 0 单独用 hasZero 记录
+     */
+    private static final long EMPTY = 0L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+
+    private int size;
+
+    private boolean hasZero;
+
+    /**
+     * 扩容阈值
+     */
+    private int threshold;
+
+    public LongHashSet() {
+        this(8);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR));
+        table = new long[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return hasZero;
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (true) {
+            long current = table[i];
+            if (current == EMPTY) {
+                return false;
+            }
+            if (current == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 添加元素
+     *
+     * @return 集合中原本不存在该元素时返回 true
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (true) {
+            long current = table[i];
+            if (current == EMPTY) {
+                table[i] = value;
+                if (++size > threshold) {
+                    rehash(table.length << 1);
+                }
+                return true;
+            }
+            if (current == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除元素（向后移动冲突链，不使用墓碑）
+     *
+     * @return 元素存在并被删除时返回 true
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        while (true) {
+            long current = table[i];
+            if (current == EMPTY) {
+                return false;
+            }
+            if (current == value) {
+                break;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = EMPTY;
+        size--;
+        // 把后续冲突链上的元素前移，保证查找不会提前遇到空槽
+        int j = (i + 1) & mask;
+        while (table[j] != EMPTY) {
+            long moved = table[j];
+            int home = mix(moved) & mask;
+            boolean shift = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (shift) {
+                table[i] = moved;
+                table[j] = EMPTY;
+                i = j;
+            }
+            j = (j + 1) & mask;
+        }
+        return true;
+    }
+
+    /**
+     * 按升序返回全部元素
+     */
+    public long[] toSortedArray() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZero) {
+            result[n++] = 0L;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                result[n++] = value;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 转为装箱的 Set（按升序），用于需要 Collection 的 API
+     */
+    public Set<Long> toBoxedSet() {
+        Set<Long> result = new LinkedHashSet<>(size * 2);
+        for (long value : toSortedArray()) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldTable = table;
+        table = new long[newCapacity];
+        threshold = (int) (newCapacity * LOAD_FACTOR);
+        int mask = newCapacity - 1;
+        for (long value : oldTable) {
+            if (value != EMPTY) {
+                int i = mix(value) & mask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        return Math.max(n, 4);
+    }
+}
@@ -0,0 +1,19 @@
+package com.huixing.fontal.utils;
+
+/**
+ * Redis 缓存值编码格式
+ * 每种格式有一个固定的编号，写在 {@link VersionedRedisSerializer} 的头部，读取时按编号选择格式。
+ *
+ * @author fontal
+ */
+public interface RedisValueCodec {
+
+    /**
+     * 格式编号（写入头部，发布后不能修改）
+     */
+    byte id();
+
+    byte[] encode(Object value) throws Exception;
+
+    Object decode(byte[] bytes, int offset, int length) throws Exception;
+}
@@ -0,0 +1,147 @@
+package com.huixing.fontal.utils;
+
+import com.huixing.fontal.model.session.LoginPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Spring Session 属性序列化器
+ * 会话属性基本都是 Long、Integer、String 和登录身份，按类型写成定长二进制：魔数(1) + 类型(1) + 数据；
+ * 其他类型仍使用 JDK 序列化。读取时兼容旧的 JDK 序列化数据，已有会话不受影响。
+ * 不使用紧凑格式时（滚动发布期间），登录身份写成带前缀的 JDK 字符串：旧节点没有 LoginPrincipal 类，
+ * 但能正常读取字符串，加载会话不会失败。
+ *
+ * @author fontal
+ */
+@Slf4j
+public class SessionAttributeSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xF6;
+
+    private static final byte TYPE_LONG = 'L';
+
+    private static final byte TYPE_INT = 'I';
+
+    private static final byte TYPE_STRING = 'S';
+
+    private static final byte TYPE_BOOLEAN = 'B';
+
+    private static final byte TYPE_PRINCIPAL = 'P';
+
+    /**
+     * 登录身份的二进制格式版本
+     */
+    private static final byte PRINCIPAL_FORMAT = 1;
+
+    /**
+     * 非紧凑格式下登录身份字符串的前缀，后接 userId,userRole,userStatus,version
+     */
+    private static final String PRINCIPAL_TEXT_PREFIX = "\u0000fontal:principal:1:";
+
+    private final JdkRedisValueCodec jdkCodec = new JdkRedisValueCodec();
+
+    /**
+     * 为 false 时全部写成 JDK 序列化（与旧版本兼容，用于滚动发布）
+     */
+    private final boolean compact;
+
+    public SessionAttributeSerializer(boolean compact) {
+        this.compact = compact;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (compact) {
+            if (value instanceof Long) {
+                return ByteBuffer.allocate(10).put(MAGIC).put(TYPE_LONG).putLong((Long) value).array();
+            }
+            if (value instanceof Integer) {
+                return ByteBuffer.allocate(6).put(MAGIC).put(TYPE_INT).putInt((Integer) value).array();
+            }
+            if (value instanceof Boolean) {
+                return new byte[]{MAGIC, TYPE_BOOLEAN, (byte) ((Boolean) value ? 1 : 0)};
+            }
+            if (value instanceof String) {
+                byte[] data = ((String) value).getBytes(StandardCharsets.UTF_8);
+                return ByteBuffer.allocate(2 + data.length).put(MAGIC).put(TYPE_STRING).put(data).array();
+            }
+            if (value instanceof LoginPrincipal) {
+                LoginPrincipal principal = (LoginPrincipal) value;
+                return ByteBuffer.allocate(27).put(MAGIC).put(TYPE_PRINCIPAL).put(PRINCIPAL_FORMAT)
+                        .putLong(principal.getUserId())
+                        .putInt(principal.getUserRole())
+                        .putInt(principal.getUserStatus())
+                        .putLong(principal.getVersion())
+                        .array();
+            }
+        } else if (value instanceof LoginPrincipal) {
+            LoginPrincipal principal = (LoginPrincipal) value;
+            value = PRINCIPAL_TEXT_PREFIX + principal.getUserId() + "," + principal.getUserRole() + ","
+                    + principal.getUserStatus() + "," + principal.getVersion();
+        }
+        try {
+            return jdkCodec.encode(value);
+        } catch (Exception e) {
+            throw new SerializationException("会话属性序列化失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            Object value;
+            try {
+                value = jdkCodec.decode(bytes, 0, bytes.length);
+            } catch (Exception e) {
+                throw new SerializationException("会话属性反序列化失败", e);
+            }
+            if (value instanceof String && ((String) value).startsWith(PRINCIPAL_TEXT_PREFIX)) {
+                return parsePrincipal((String) value);
+            }
+            return value;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        switch (bytes[1]) {
+            case TYPE_LONG:
+                return buffer.getLong();
+            case TYPE_INT:
+                return buffer.getInt();
+            case TYPE_BOOLEAN:
+                return buffer.get() != 0;
+            case TYPE_STRING:
+                return new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_8);
+            case TYPE_PRINCIPAL:
+                byte format = buffer.get();
+                if (format != PRINCIPAL_FORMAT) {
+                    // 无法识别的登录身份按未登录处理
+                    log.warn("未知的登录身份格式: {}", format);
+                    return null;
+                }
+                return new LoginPrincipal(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+            default:
+                throw new SerializationException("未知的会话属性类型: " + bytes[1]);
+        }
+    }
+
+    private static LoginPrincipal parsePrincipal(String text) {
+        String[] fields = text.substring(PRINCIPAL_TEXT_PREFIX.length()).split(",");
+        try {
+            return new LoginPrincipal(Long.parseLong(fields[0]), Integer.parseInt(fields[1]),
+                    Integer.parseInt(fields[2]), Long.parseLong(fields[3]));
+        } catch (RuntimeException e) {
+            // 无法识别的登录身份按未登录处理
+            log.warn("无法解析的登录身份: {}", text);
+            return null;
+        }
+    }
+}
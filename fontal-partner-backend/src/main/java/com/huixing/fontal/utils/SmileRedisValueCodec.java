@@ -0,0 +1,61 @@
+package com.huixing.fontal.utils;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Smile（二进制 JSON）格式
+ * 按字段读写，不依赖 getter/setter；非 final 类型写入类名，读取时只允许本项目和 JDK 的类型。
+ * 与 JDK 序列化相比不写类描述信息，字段名和重复的短字符串在同一个值内只写一次，编解码耗时明显更小。
+ *
+ * @author fontal
+ */
+public class SmileRedisValueCodec implements RedisValueCodec {
+
+    public static final byte ID = 2;
+
+    private final ObjectMapper objectMapper;
+
+    public SmileRedisValueCodec() {
+        SmileFactory smileFactory = new SmileFactory();
+        // 类名、标签等重复字符串只写一次，后续用引用代替
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        objectMapper = new ObjectMapper(smileFactory);
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.huixing.fontal.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .allowIfSubType("java.time.")
+                .build();
+        objectMapper.activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws Exception {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) throws Exception {
+        return objectMapper.readValue(bytes, offset, length, Object.class);
+    }
+}
@@ -1,10 +1,6 @@
 package com.huixing.fontal.utils;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -21,9 +17,17 @@ public class StringUtils {
      * @return Set<Long>
      */
     public static Set<Long> stringJsonListToLongSet(String jsonList) {
-        Set<Long> set = new Gson().fromJson(jsonList, new TypeToken<Set<Long>>() {
-        }.getType());
-        return Optional.ofNullable(set).orElse(new HashSet<>());
+        return new HashSet<>(JsonArrayCodec.parseLongSet(jsonList).toBoxedSet());
+    }
+
+    /**
+     * 字符串json数组转long类型set集合（不装箱，用于 contains/add/remove 后再写回的场景）
+     *
+     * @param jsonList
+     * @return LongHashSet
+     */
+    public static LongHashSet stringJsonListToLongHashSet(String jsonList) {
+        return JsonArrayCodec.parseLongSet(jsonList);
     }
 
     /**
@@ -33,9 +37,7 @@ public class StringUtils {
      * @return Set<String>
      */
     public static Set<String> stringJsonListToStringSet(String jsonList) {
-        Set<String> set = new Gson().fromJson(jsonList, new TypeToken<Set<String>>() {
-        }.getType());
-        return Optional.ofNullable(set).orElse(new HashSet<>());
+        return JsonArrayCodec.parseStringSet(jsonList);
     }
 
     /**
@@ -45,9 +47,16 @@ public class StringUtils {
      * @return String
      */
     public static String longSetToStringJsonList(Set<Long> set) {
-        if (set == null || set.isEmpty()) {
-            return "[]";
-        }
-        return new Gson().toJson(set);
+        return JsonArrayCodec.writeLongs(set);
+    }
+
+    /**
+     * long类型set集合转字符串json数组
+     *
+     * @param set
+     * @return String
+     */
+    public static String longHashSetToStringJsonList(LongHashSet set) {
+        return JsonArrayCodec.writeLongSet(set);
     }
 }
@@ -0,0 +1,98 @@
+package com.huixing.fontal.utils;
+
+/**
+ * 定长小顶堆，保留分数最高的前 K 个 (id, score)
+ * 堆顶为当前最差的结果（分数最低，分数相同时 id 最大），输出按分数降序、id 升序。
+ * id 和分数都用基本类型数组保存，不产生装箱对象。
+ *
+ * @author fontal
+ */
+public final class TopKHeap {
+
+    private final long[] ids;
+
+    private final double[] scores;
+
+    private int size;
+
+    /**
+     * @param capacity 保留的结果数 K
+     */
+    public TopKHeap(int capacity) {
+        ids = new long[capacity];
+        scores = new double[capacity];
+    }
+
+    public void offer(long id, double score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && worse(0, id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 按分数降序、id 升序输出，输出后堆为空
+     */
+    public long[] toSortedIds() {
+        long[] sorted = new long[size];
+        while (size > 0) {
+            sorted[--size] = ids[0];
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return sorted;
+    }
+
+    /**
+     * 堆中位置 i 的元素是否比 (id, score) 更差
+     */
+    private boolean worse(int i, long id, double score) {
+        return scores[i] < score || (scores[i] == score && ids[i] > id);
+    }
+
+    private boolean worse(int i, int j) {
+        return worse(i, ids[j], scores[j]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int child = right < size && worse(right, left) ? right : left;
+            if (!worse(child, i)) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
@@ -0,0 +1,149 @@
+package com.huixing.fontal.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 带版本头的 Redis 值序列化器
+ * 格式：魔数(1) + 版本(1) + 编码格式编号(1) + 标志位(1) [+ 压缩前长度(4)] + 数据。
+ * 超过阈值的数据用 LZ4 压缩；读取时按头部选择格式，没有头部的旧数据（JDK 序列化）按原格式读取。
+ * 写入格式为 JDK 时不加头部、不压缩，与旧版本完全一致，用于滚动发布的第一步：
+ * 先让所有节点都能读新格式，再把写入格式切换为 smile。
+ * 无法解析的数据按缓存未命中处理（返回 null），不影响业务。
+ *
+ * @author fontal
+ */
+@Slf4j
+public class VersionedRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xF5;
+
+    private static final byte VERSION = 1;
+
+    private static final byte FLAG_LZ4 = 1;
+
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * JDK 序列化数据的开头（STREAM_MAGIC）
+     */
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+    private final RedisValueCodec writeCodec;
+
+    private final Map<Byte, RedisValueCodec> codecs = new HashMap<>();
+
+    private final JdkRedisValueCodec legacyCodec = new JdkRedisValueCodec();
+
+    private final int compressThreshold;
+
+    /**
+     * @param writeCodec        写入使用的格式
+     * @param compressThreshold 超过该字节数时压缩，小于等于 0 时不压缩
+     * @param readCodecs        可读取的格式（写入格式和 JDK 格式始终可读）
+     */
+    public VersionedRedisSerializer(RedisValueCodec writeCodec, int compressThreshold, RedisValueCodec... readCodecs) {
+        this.writeCodec = writeCodec;
+        this.compressThreshold = compressThreshold;
+        codecs.put(legacyCodec.id(), legacyCodec);
+        for (RedisValueCodec codec : readCodecs) {
+            codecs.put(codec.id(), codec);
+        }
+        codecs.put(writeCodec.id(), writeCodec);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] data;
+        try {
+            data = writeCodec.encode(value);
+        } catch (Exception e) {
+            throw new SerializationException("缓存值编码失败: " + value.getClass().getName(), e);
+        }
+        if (writeCodec.id() == JdkRedisValueCodec.ID) {
+            return data;
+        }
+        if (compressThreshold <= 0 || data.length <= compressThreshold) {
+            byte[] result = new byte[HEADER_LENGTH + data.length];
+            writeHeader(result, (byte) 0);
+            System.arraycopy(data, 0, result, HEADER_LENGTH, data.length);
+            return result;
+        }
+        LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+        byte[] result = new byte[HEADER_LENGTH + 4 + compressor.maxCompressedLength(data.length)];
+        writeHeader(result, FLAG_LZ4);
+        writeInt(result, HEADER_LENGTH, data.length);
+        int compressedLength = compressor.compress(data, 0, data.length, result, HEADER_LENGTH + 4);
+        int totalLength = HEADER_LENGTH + 4 + compressedLength;
+        byte[] trimmed = new byte[totalLength];
+        System.arraycopy(result, 0, trimmed, 0, totalLength);
+        return trimmed;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes.length >= 2 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+                return legacyCodec.decode(bytes, 0, bytes.length);
+            }
+            if (bytes.length < HEADER_LENGTH || bytes[0] != MAGIC || bytes[1] != VERSION) {
+                log.warn("无法识别的缓存值格式，按未命中处理");
+                return null;
+            }
+            RedisValueCodec codec = codecs.get(bytes[2]);
+            if (codec == null) {
+                log.warn("未知的缓存值编码格式: {}，按未命中处理", bytes[2]);
+                return null;
+            }
+            if ((bytes[3] & FLAG_LZ4) == 0) {
+                return codec.decode(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            }
+            int length = readInt(bytes, HEADER_LENGTH);
+            byte[] data = new byte[length];
+            LZ4FastDecompressor decompressor = LZ4_FACTORY.fastDecompressor();
+            decompressor.decompress(bytes, HEADER_LENGTH + 4, data, 0, length);
+            return codec.decode(data, 0, length);
+        } catch (Exception e) {
+            log.warn("缓存值解码失败，按未命中处理", e);
+            return null;
+        }
+    }
+
+    private void writeHeader(byte[] bytes, byte flags) {
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+        bytes[2] = writeCodec.id();
+        bytes[3] = flags;
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,250 @@
+package com.huixing.fontal.ws;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天跨节点投递
+ * 每个节点只持有自己的 WebSocket 连接，在线表（用户 -> 节点）记录在 Redis 中：
+ * 发给本节点没有连接的用户时，按在线表找到所在节点，只发布到该节点的频道（同一节点的多个接收人合并成一条）；
+ * 大厅消息发布到公共频道，各节点只推送给本机连接。
+ * 在线表带过期时间，由各节点定时续期，节点宕机后自动失效。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class ChatCluster implements MessageListener {
+
+    private static final String PRESENCE_KEY = "fontal:chat:presence:%s";
+
+    private static final String NODE_CHANNEL = "fontal:chat:node:%s";
+
+    private static final String HALL_CHANNEL = "fontal:chat:hall";
+
+    /**
+     * 在线记录过期时间（秒），续期间隔的 3 倍
+     */
+    private static final long PRESENCE_EXPIRE_SECONDS = 90;
+
+    /**
+     * 只删除仍属于本节点的在线记录（用户可能已重连到其他节点）
+     */
+    private static final RedisScript<Long> REMOVE_PRESENCE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    private static final Gson GSON = new Gson();
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisConnectionFactory redisConnectionFactory;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 转发消息的分发线程，单线程保证同一频道的消息按发布顺序入队（入队不阻塞）
+     */
+    private ExecutorService dispatchExecutor;
+
+    /**
+     * 订阅本节点频道和大厅频道（节点频道名含节点 id，因此不放在公共的监听容器配置里）
+     */
+    @PostConstruct
+    public void init() {
+        dispatchExecutor = Executors.newSingleThreadExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("chat-cluster-").setDaemon(true).build());
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.setTaskExecutor(dispatchExecutor);
+        listenerContainer.addMessageListener(this, Arrays.asList(
+                new ChannelTopic(String.format(NODE_CHANNEL, nodeId)), new ChannelTopic(HALL_CHANNEL)));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+        dispatchExecutor.shutdown();
+    }
+
+    /**
+     * 用户连接到本节点
+     */
+    public void online(Long userId) {
+        try {
+            stringRedisTemplate.opsForValue().set(presenceKey(userId), nodeId, PRESENCE_EXPIRE_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("记录用户：" + userId + "在线状态失败", e);
+        }
+    }
+
+    /**
+     * 用户与本节点断开
+     */
+    public void offline(Long userId) {
+        try {
+            stringRedisTemplate.execute(REMOVE_PRESENCE_SCRIPT, Collections.singletonList(presenceKey(userId)), nodeId);
+        } catch (Exception e) {
+            // 在线记录会自动过期
+            log.error("清除用户：" + userId + "在线状态失败", e);
+        }
+    }
+
+    /**
+     * 为本节点的所有连接续期在线记录
+     */
+    @Scheduled(fixedRate = 30000)
+    public void renewPresence() {
+        Set<Long> userIds = ChatWebSocket.getLocalUserIds();
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                    for (Long userId : userIds) {
+                        redisOperations.opsForValue().set(presenceKey(userId), nodeId,
+                                PRESENCE_EXPIRE_SECONDS, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.error("续期在线状态失败", e);
+        }
+    }
+
+    /**
+     * 发送给不在本节点的用户：按在线表分组，每个节点发布一条
+     *
+     * @param userIds 接收用户ID（本节点没有连接的）
+     * @param message 消息内容
+     * @return 在其他节点在线、已转发的用户数
+     */
+    public int sendToRemoteUsers(Collection<Long> userIds, String message) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long userId : ids) {
+            keys.add(presenceKey(userId));
+        }
+        Map<String, List<Long>> nodeUserIds = new HashMap<>();
+        int forwarded = 0;
+        try {
+            List<String> nodes = stringRedisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < ids.size(); i++) {
+                String node = nodes == null ? null : nodes.get(i);
+                // 不在线，或在线表还指向本节点但连接已断开
+                if (node != null && !nodeId.equals(node)) {
+                    nodeUserIds.computeIfAbsent(node, k -> new ArrayList<>()).add(ids.get(i));
+                }
+            }
+            for (Map.Entry<String, List<Long>> entry : nodeUserIds.entrySet()) {
+                publish(String.format(NODE_CHANNEL, entry.getKey()), entry.getValue(), message);
+                forwarded += entry.getValue().size();
+            }
+        } catch (Exception e) {
+            log.error("跨节点发送消息失败", e);
+        }
+        return forwarded;
+    }
+
+    /**
+     * 发送给其他节点的全部连接（大厅消息）
+     */
+    public void broadcast(String message) {
+        try {
+            publish(HALL_CHANNEL, null, message);
+        } catch (Exception e) {
+            log.error("广播大厅消息失败", e);
+        }
+    }
+
+    /**
+     * 收到其他节点转发的消息，只推送给本节点的连接
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Envelope envelope;
+        try {
+            envelope = GSON.fromJson(new String(message.getBody(), StandardCharsets.UTF_8), Envelope.class);
+        } catch (JsonParseException e) {
+            log.warn("无效的聊天转发消息", e);
+            return;
+        }
+        if (envelope == null || envelope.getMessage() == null || nodeId.equals(envelope.getOriginNode())) {
+            return;
+        }
+        if (envelope.getUserIds() == null) {
+            ChatWebSocket.deliverToLocalAll(envelope.getMessage());
+        } else {
+            ChatWebSocket.deliverToLocalUsers(envelope.getUserIds(), envelope.getMessage());
+        }
+    }
+
+    private void publish(String channel, List<Long> userIds, String message) {
+        Envelope envelope = new Envelope();
+        envelope.setOriginNode(nodeId);
+        envelope.setUserIds(userIds);
+        envelope.setMessage(message);
+        stringRedisTemplate.convertAndSend(channel, GSON.toJson(envelope));
+    }
+
+    private static String presenceKey(Long userId) {
+        return String.format(PRESENCE_KEY, userId);
+    }
+
+    /**
+     * 节点间转发的消息
+     */
+    @Data
+    private static class Envelope {
+
+        private String originNode;
+
+        /**
+         * 接收用户ID，为 null 时发给全部连接
+         */
+        private List<Long> userIds;
+
+        /**
+         * 推送给客户端的消息内容
+         */
+        private String message;
+    }
+}
@@ -0,0 +1,295 @@
+package com.huixing.fontal.ws;
+
+import com.huixing.fontal.config.ChatOutboundConfig;
+import com.huixing.fontal.config.ChatOutboundConfig.OverflowPolicy;
+import com.huixing.fontal.model.vo.ChatOutboundStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.websocket.CloseReason;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket 出站消息队列
+ * 每个连接一个有界队列，消息入队后立即返回，由写线程池按顺序发送；
+ * 同一连接同时最多只有一个发送任务，因此不会并发调用同一个 Session 的发送方法。
+ * 队列满时按配置丢弃最早的消息、合并同 key 的消息或断开慢客户端。
+ *
+ * @author fontal
+ */
+@Slf4j
+@Component
+public class ChatOutbound {
+
+    /**
+     * Tomcat 阻塞发送超时的会话属性（毫秒）
+     */
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    /**
+     * 一个发送任务最多连续发送的消息数，之后重新提交，避免一个连接长期占用写线程
+     */
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    @Resource
+    private ChatOutboundConfig chatOutboundConfig;
+
+    @Resource
+    private Executor chatWriterExecutor;
+
+    private final Set<OutboundQueue> queues = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder enqueuedCount = new LongAdder();
+
+    private final LongAdder sentCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder disconnectedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * 为新连接创建发送队列
+     *
+     * @param session 连接会话
+     * @param userId  用户ID（用于日志）
+     * @return 发送队列
+     */
+    public OutboundQueue open(Session session, Long userId) {
+        session.getUserProperties().put(BLOCKING_SEND_TIMEOUT, chatOutboundConfig.getSendTimeoutMillis());
+        OutboundQueue queue = new OutboundQueue(session, userId, chatOutboundConfig.getQueueCapacity(),
+                chatOutboundConfig.getOverflowPolicy(), chatWriterExecutor);
+        queues.add(queue);
+        return queue;
+    }
+
+    /**
+     * 连接关闭后释放发送队列，未发送的消息直接丢弃
+     */
+    public void close(OutboundQueue queue) {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    public ChatOutboundStatsVO stats() {
+        long queued = 0;
+        int maxDepth = 0;
+        for (OutboundQueue queue : queues) {
+            int depth = queue.depth();
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        ChatOutboundStatsVO vo = new ChatOutboundStatsVO();
+        vo.setOverflowPolicy(chatOutboundConfig.getOverflowPolicy().name());
+        vo.setConnectionCount(queues.size());
+        vo.setQueuedCount(queued);
+        vo.setMaxQueueDepth(maxDepth);
+        vo.setEnqueuedCount(enqueuedCount.sum());
+        vo.setSentCount(sentCount.sum());
+        vo.setDroppedCount(droppedCount.sum());
+        vo.setCoalescedCount(coalescedCount.sum());
+        vo.setDisconnectedCount(disconnectedCount.sum());
+        vo.setFailedCount(failedCount.sum());
+        return vo;
+    }
+
+    /**
+     * 单个连接的发送队列
+     */
+    public class OutboundQueue implements Runnable {
+
+        private final Session session;
+
+        private final Long userId;
+
+        private final int capacity;
+
+        private final OverflowPolicy overflowPolicy;
+
+        private final Executor executor;
+
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        /**
+         * 是否已提交发送任务（受 this 锁保护）
+         */
+        private boolean scheduled;
+
+        private boolean closed;
+
+        OutboundQueue(Session session, Long userId, int capacity, OverflowPolicy overflowPolicy, Executor executor) {
+            this.session = session;
+            this.userId = userId;
+            this.capacity = Math.max(1, capacity);
+            this.overflowPolicy = overflowPolicy;
+            this.executor = executor;
+        }
+
+        /**
+         * 消息入队
+         *
+         * @param text 消息内容
+         * @return 是否入队（连接已关闭或因队列满被断开时返回 false）
+         */
+        public boolean offer(String text) {
+            return offer(text, null);
+        }
+
+        /**
+         * 消息入队
+         *
+         * @param text        消息内容
+         * @param coalesceKey 合并 key，COALESCE 策略下替换队列中同 key 的未发送消息；为 null 时不合并
+         * @return 是否入队（连接已关闭或因队列满被断开时返回 false）
+         */
+        public boolean offer(String text, String coalesceKey) {
+            boolean schedule;
+            boolean disconnect = false;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                enqueuedCount.increment();
+                if (coalesceKey != null && overflowPolicy == OverflowPolicy.COALESCE && replace(coalesceKey, text)) {
+                    coalescedCount.increment();
+                    return true;
+                }
+                if (frames.size() >= capacity) {
+                    if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                        droppedCount.add(frames.size() + 1);
+                        disconnectedCount.increment();
+                        disconnect = true;
+                        closed = true;
+                        frames.clear();
+                    } else {
+                        frames.pollFirst();
+                        droppedCount.increment();
+                    }
+                }
+                if (!closed) {
+                    frames.addLast(new Frame(text, coalesceKey));
+                }
+                schedule = !closed && !scheduled;
+                if (schedule) {
+                    scheduled = true;
+                }
+            }
+            if (disconnect) {
+                log.warn("用户：" + userId + "，发送队列已满，断开慢连接");
+                queues.remove(this);
+                // 关闭帧也要经过网络发送，同样交给写线程，不阻塞当前线程
+                try {
+                    executor.execute(() -> closeSession(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER,
+                            "发送队列已满")));
+                } catch (RejectedExecutionException e) {
+                    log.warn("写线程池已关闭，未能断开用户：" + userId + "的连接");
+                }
+                return false;
+            }
+            if (schedule) {
+                submit();
+            }
+            return true;
+        }
+
+        public synchronized int depth() {
+            return frames.size();
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                Frame frame;
+                synchronized (this) {
+                    frame = closed ? null : frames.pollFirst();
+                    if (frame == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    session.getBasicRemote().sendText(frame.text);
+                    sentCount.increment();
+                } catch (IOException | RuntimeException e) {
+                    failedCount.increment();
+                    log.error("发送消息给用户：" + userId + "失败", e);
+                    shutdown();
+                    closeSession(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "发送失败"));
+                    return;
+                }
+            }
+            // 本批已发满，还有剩余时重新排队，让其他连接的发送任务先执行
+            submit();
+        }
+
+        /**
+         * 停止发送，丢弃未发送的消息
+         */
+        void shutdown() {
+            synchronized (this) {
+                closed = true;
+                frames.clear();
+            }
+            queues.remove(this);
+        }
+
+        private void submit() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // 只会在应用关闭时发生
+                log.warn("写线程池已关闭，丢弃用户：" + userId + "的待发送消息");
+                shutdown();
+            }
+        }
+
+        /**
+         * 用新消息替换队列中同 key 的旧消息，调用方持有 this 锁
+         */
+        private boolean replace(String coalesceKey, String text) {
+            for (Frame frame : frames) {
+                if (Objects.equals(coalesceKey, frame.coalesceKey)) {
+                    frame.text = text;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void closeSession(CloseReason closeReason) {
+            try {
+                if (session.isOpen()) {
+                    session.close(closeReason);
+                }
+            } catch (IOException e) {
+                log.warn("关闭用户：" + userId + "的连接失败", e);
+            }
+        }
+    }
+
+    private static final class Frame {
+
+        private String text;
+
+        private final String coalesceKey;
+
+        Frame(String text, String coalesceKey) {
+            this.text = text;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+}
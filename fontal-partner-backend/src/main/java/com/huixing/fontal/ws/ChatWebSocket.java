@@ -2,13 +2,11 @@ package com.huixing.fontal.ws;
 
 import com.google.gson.Gson;
 import com.huixing.fontal.contant.ChatConstant;
-import com.huixing.fontal.mapper.ChatMapper;
-import com.huixing.fontal.mapper.UserMapper;
+import com.huixing.fontal.manager.TeamRoster;
 import com.huixing.fontal.model.entity.Chat;
-import com.huixing.fontal.model.entity.User;
 import com.huixing.fontal.model.request.MessageRequest;
 import com.huixing.fontal.model.vo.MessageVo;
-import com.huixing.fontal.model.vo.WebSocketVo;
+import com.huixing.fontal.service.ChatService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -16,8 +14,7 @@ import javax.annotation.Resource;
 import javax.websocket.*;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
-import java.io.IOException;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -56,29 +53,60 @@ public class ChatWebSocket {
     private Long userId;
 
     /**
-     * ChatMapper注入（静态方法需要）
+     * 出站消息队列，所有发给该连接的消息都经过它异步发送
      */
-    private static ChatMapper chatMapper;
+    private ChatOutbound.OutboundQueue outboundQueue;
 
     /**
-     * UserMapper注入（静态方法需要）
+     * ChatService注入（静态方法需要）
      */
-    private static UserMapper userMapper;
+    private static ChatService chatService;
 
     /**
-     * 注入ChatMapper
+     * TeamRoster注入（静态方法需要）
+     */
+    private static TeamRoster teamRoster;
+
+    /**
+     * ChatOutbound注入（静态方法需要）
+     */
+    private static ChatOutbound chatOutbound;
+
+    /**
+     * ChatCluster注入（静态方法需要）
+     */
+    private static ChatCluster chatCluster;
+
+    /**
+     * 注入ChatService
+     */
+    @Resource
+    public void setChatService(ChatService chatService) {
+        ChatWebSocket.chatService = chatService;
+    }
+
+    /**
+     * 注入TeamRoster
      */
     @Resource
-    public void setChatMapper(ChatMapper chatMapper) {
-        ChatWebSocket.chatMapper = chatMapper;
+    public void setTeamRoster(TeamRoster teamRoster) {
+        ChatWebSocket.teamRoster = teamRoster;
     }
 
     /**
-     * 注入UserMapper
+     * 注入ChatOutbound
      */
     @Resource
-    public void setUserMapper(UserMapper userMapper) {
-        ChatWebSocket.userMapper = userMapper;
+    public void setChatOutbound(ChatOutbound chatOutbound) {
+        ChatWebSocket.chatOutbound = chatOutbound;
+    }
+
+    /**
+     * 注入ChatCluster
+     */
+    @Resource
+    public void setChatCluster(ChatCluster chatCluster) {
+        ChatWebSocket.chatCluster = chatCluster;
     }
 
     /**
@@ -88,6 +116,7 @@ public class ChatWebSocket {
     public void onOpen(Session session, @PathParam("userId") Long userId) {
         this.session = session;
         this.userId = userId;
+        this.outboundQueue = chatOutbound.open(session, userId);
         if (webSocketMap.containsKey(userId)) {
             webSocketMap.remove(userId);
             webSocketMap.put(userId, this);
@@ -95,12 +124,9 @@ public class ChatWebSocket {
             webSocketMap.put(userId, this);
             addOnlineCount();
         }
+        chatCluster.online(userId);
         log.info("用户连接：" + userId + "，当前在线人数为：" + getOnlineCount());
-        try {
-            sendMessage("连接成功");
-        } catch (IOException e) {
-            log.error("用户：" + userId + "，网络异常！！！！");
-        }
+        sendMessage("连接成功");
     }
 
     /**
@@ -108,9 +134,11 @@ public class ChatWebSocket {
      */
     @OnClose
     public void onClose() {
-        if (webSocketMap.containsKey(userId)) {
-            webSocketMap.remove(userId);
+        chatOutbound.close(outboundQueue);
+        // 同一用户重连时旧连接后关闭，不能把新连接移除
+        if (webSocketMap.remove(userId, this)) {
             subOnlineCount();
+            chatCluster.offline(userId);
         }
         log.info("用户退出：" + userId + "，当前在线人数为：" + getOnlineCount());
     }
@@ -164,31 +192,55 @@ public class ChatWebSocket {
     }
 
     /**
-     * 发送消息
+     * 发送消息（放入出站队列后立即返回，由写线程异步发送）
      *
      * @param message 消息内容
-     * @throws IOException 发送异常
+     * @return 是否已入队，连接已关闭或因队列满被断开时返回 false
      */
-    public void sendMessage(String message) throws IOException {
-        this.session.getBasicRemote().sendText(message);
+    public boolean sendMessage(String message) {
+        return this.outboundQueue.offer(message);
     }
 
     /**
-     * 发送消息给指定用户
+     * 发送消息给指定用户，用户连接在其他节点时转发到该节点
      *
      * @param message 消息内容
      * @param userId  接收用户ID
      */
     public static void sendMessage(String message, Long userId) {
-        try {
-            ChatWebSocket chatWebSocket = webSocketMap.get(userId);
+        ChatWebSocket chatWebSocket = webSocketMap.get(userId);
+        if (chatWebSocket != null) {
+            chatWebSocket.sendMessage(message);
+        } else if (chatCluster.sendToRemoteUsers(Collections.singletonList(userId), message) == 0) {
+            log.warn("用户：" + userId + "，不在线");
+        }
+    }
+
+    /**
+     * 本节点在线的用户ID
+     */
+    public static Set<Long> getLocalUserIds() {
+        return new HashSet<>(webSocketMap.keySet());
+    }
+
+    /**
+     * 推送其他节点转发来的消息给本节点的指定用户
+     */
+    public static void deliverToLocalUsers(Collection<Long> userIds, String message) {
+        for (Long toId : userIds) {
+            ChatWebSocket chatWebSocket = webSocketMap.get(toId);
             if (chatWebSocket != null) {
                 chatWebSocket.sendMessage(message);
-            } else {
-                log.warn("用户：" + userId + "，不在线");
             }
-        } catch (IOException e) {
-            log.error("发送消息给用户：" + userId + "失败", e);
+        }
+    }
+
+    /**
+     * 推送其他节点转发来的消息给本节点的全部连接
+     */
+    public static void deliverToLocalAll(String message) {
+        for (ChatWebSocket chatWebSocket : webSocketMap.values()) {
+            chatWebSocket.sendMessage(message);
         }
     }
 
@@ -205,13 +257,13 @@ public class ChatWebSocket {
             return;
         }
 
-        // 保存聊天记录到数据库
+        // 保存聊天记录（分配 id 后异步批量写库）
         Chat chat = new Chat();
         chat.setFromId(userId);
         chat.setToId(toId);
         chat.setText(text);
         chat.setChatType(ChatConstant.PRIVATE_CHAT);
-        chatMapper.insert(chat);
+        chatService.saveMessage(chat);
 
         // 构建消息VO
         MessageVo messageVo = buildMessageVo(chat);
@@ -237,22 +289,27 @@ public class ChatWebSocket {
             return;
         }
 
-        // 保存聊天记录到数据库
+        // 只有队伍成员才能在队伍内发言
+        Set<Long> memberIds = teamRoster.getMemberIds(teamId);
+        if (!memberIds.contains(userId)) {
+            log.warn("用户：" + userId + "，不是队伍：" + teamId + "的成员，消息已丢弃");
+            return;
+        }
+
+        // 保存聊天记录（分配 id 后异步批量写库）
         Chat chat = new Chat();
         chat.setFromId(userId);
         chat.setTeamId(teamId);
         chat.setText(text);
         chat.setChatType(ChatConstant.TEAM_CHAT);
-        chatMapper.insert(chat);
+        chatService.saveMessage(chat);
 
         // 构建消息VO
         MessageVo messageVo = buildMessageVo(chat);
         String messageJson = gson.toJson(messageVo);
 
-        // 发送消息给队伍内所有成员
-        // TODO: 需要查询队伍成员列表，并发送给所有在线成员
-        // 这里简化处理，发送给所有在线用户（实际应该只发送给队伍成员）
-        sendToAll(messageJson);
+        // 发送消息给队伍内所有在线成员（包括发送方自己，作为发送确认）
+        sendToUsers(messageJson, memberIds);
     }
 
     /**
@@ -267,12 +324,12 @@ public class ChatWebSocket {
             return;
         }
 
-        // 保存聊天记录到数据库
+        // 保存聊天记录（分配 id 后异步批量写库）
         Chat chat = new Chat();
         chat.setFromId(userId);
         chat.setText(text);
         chat.setChatType(ChatConstant.HALL_CHAT);
-        chatMapper.insert(chat);
+        chatService.saveMessage(chat);
 
         // 构建消息VO
         MessageVo messageVo = buildMessageVo(chat);
@@ -283,19 +340,32 @@ public class ChatWebSocket {
     }
 
     /**
-     * 发送消息给所有在线用户
+     * 发送消息给所有在线用户：本节点直接入队，其他节点通过大厅频道转发
      *
      * @param message 消息内容
      */
     private void sendToAll(String message) {
-        for (Map.Entry<Long, ChatWebSocket> entry : webSocketMap.entrySet()) {
-            ChatWebSocket chatWebSocket = entry.getValue();
-            try {
+        deliverToLocalAll(message);
+        chatCluster.broadcast(message);
+    }
+
+    /**
+     * 发送消息给指定用户中在线的用户：本节点的连接直接入队，其余用户按在线表转发到所在节点
+     *
+     * @param message 消息内容
+     * @param userIds 接收用户ID
+     */
+    private void sendToUsers(String message, Set<Long> userIds) {
+        List<Long> remoteUserIds = new ArrayList<>();
+        for (Long toId : userIds) {
+            ChatWebSocket chatWebSocket = webSocketMap.get(toId);
+            if (chatWebSocket != null) {
                 chatWebSocket.sendMessage(message);
-            } catch (IOException e) {
-                log.error("发送消息给用户：" + entry.getKey() + "失败", e);
+            } else {
+                remoteUserIds.add(toId);
             }
         }
+        chatCluster.sendToRemoteUsers(remoteUserIds, message);
     }
 
     /**
@@ -305,30 +375,7 @@ public class ChatWebSocket {
      * @return 消息VO
      */
     private MessageVo buildMessageVo(Chat chat) {
-        MessageVo messageVo = new MessageVo();
-        messageVo.setTeamId(chat.getTeamId());
-        messageVo.setText(chat.getText());
-        messageVo.setChatType(chat.getChatType());
-        messageVo.setIsMy(false);
-        messageVo.setIsAdmin(false);
-        
-        // 将Date类型的createTime转换为String
-        if (chat.getCreateTime() != null) {
-            messageVo.setCreateTime(chat.getCreateTime().toString());
-        }
-
-        // 设置发送人信息（注意：MessageVo中的字段名是formUser，不是fromUser）
-        User fromUser = userMapper.selectById(chat.getFromId());
-        if (fromUser != null) {
-            WebSocketVo webSocketVo = new WebSocketVo();
-            webSocketVo.setId(fromUser.getId());
-            webSocketVo.setUsername(fromUser.getUsername());
-            webSocketVo.setUserAccount(fromUser.getUserAccount());
-            webSocketVo.setUserAvatarUrl(fromUser.getUserAvatarUrl());
-            messageVo.setFormUser(webSocketVo);
-        }
-
-        return messageVo;
+        return chatService.toMessageVo(chat);
     }
 
     /**
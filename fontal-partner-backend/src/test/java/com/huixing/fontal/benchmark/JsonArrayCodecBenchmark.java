@@ -0,0 +1,81 @@
+package com.huixing.fontal.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.huixing.fontal.utils.JsonArrayCodec;
+import com.huixing.fontal.utils.LongHashSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON 数组解析基准：原 Gson + TypeToken 写法 vs 手写解析
+ * 运行：在 IDE 中直接执行 main 方法
+ *
+ * @author fontal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonArrayCodecBenchmark {
+
+    @Param({"10", "200"})
+    private int size;
+
+    private String idJson;
+
+    private String tagJson;
+
+    @Setup
+    public void setup() {
+        StringBuilder ids = new StringBuilder("[");
+        StringBuilder tags = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                ids.append(',');
+                tags.append(',');
+            }
+            ids.append(100000 + i * 7L);
+            tags.append("\"Tag").append(i % 50).append('"');
+        }
+        idJson = ids.append(']').toString();
+        tagJson = tags.append(']').toString();
+    }
+
+    @Benchmark
+    public Set<Long> gsonLongSet() {
+        return new Gson().fromJson(idJson, new TypeToken<Set<Long>>() {
+        }.getType());
+    }
+
+    @Benchmark
+    public LongHashSet codecLongSet() {
+        return JsonArrayCodec.parseLongSet(idJson);
+    }
+
+    @Benchmark
+    public Set<String> gsonStringSet() {
+        return new Gson().fromJson(tagJson, new TypeToken<Set<String>>() {
+        }.getType());
+    }
+
+    @Benchmark
+    public Set<String> codecStringSet() {
+        return JsonArrayCodec.parseStringSet(tagJson);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JsonArrayCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.huixing.fontal.benchmark;
+
+import com.huixing.fontal.model.entity.User;
+import com.huixing.fontal.model.vo.TeamUserVo;
+import com.huixing.fontal.model.vo.TeamVo;
+import com.huixing.fontal.utils.JdkRedisValueCodec;
+import com.huixing.fontal.utils.SmileRedisValueCodec;
+import com.huixing.fontal.utils.VersionedRedisSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 值编码基准：JDK 序列化 vs Smile vs Smile + LZ4
+ * 数据为发现页使用的 TeamUserVo（队伍 + 队长 + 成员），编码后的字节数在 setup 时打印
+ * 运行：在 IDE 中直接执行 main 方法
+ *
+ * @author fontal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisValueCodecBenchmark {
+
+    /**
+     * 队伍数，每个队伍 5 名成员
+     */
+    @Param({"1", "20", "200"})
+    private int teamCount;
+
+    @Param({"jdk", "smile", "smileLz4"})
+    private String codec;
+
+    private VersionedRedisSerializer serializer;
+
+    private TeamUserVo teamUserVo;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        SmileRedisValueCodec smileCodec = new SmileRedisValueCodec();
+        switch (codec) {
+            case "jdk":
+                serializer = new VersionedRedisSerializer(new JdkRedisValueCodec(), 0, smileCodec);
+                break;
+            case "smile":
+                serializer = new VersionedRedisSerializer(smileCodec, 0);
+                break;
+            default:
+                serializer = new VersionedRedisSerializer(smileCodec, 1024);
+        }
+        teamUserVo = buildTeamUserVo(teamCount, 5);
+        encoded = serializer.serialize(teamUserVo);
+        System.out.printf("%n[payload] codec=%s teamCount=%d bytes=%d%n", codec, teamCount, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(teamUserVo);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    private static TeamUserVo buildTeamUserVo(int teamCount, int memberCount) {
+        Random random = new Random(42);
+        Set<TeamVo> teamSet = new LinkedHashSet<>();
+        long userId = 1;
+        for (int i = 0; i < teamCount; i++) {
+            TeamVo teamVo = new TeamVo();
+            teamVo.setId((long) i + 1);
+            teamVo.setTeamName("队伍" + i);
+            teamVo.setTeamAvatarUrl("https://fontal-1300000000.cos.ap-shanghai.myqcloud.com/team_avatar/" + i + ".png");
+            teamVo.setTeamDesc("每周一起刷题、做项目，欢迎喜欢 Java 和 Spring Boot 的同学加入 " + i);
+            teamVo.setMaxNum(10);
+            teamVo.setTeamStatus(random.nextInt(3));
+            teamVo.setAnnounce("本周六晚八点线上讨论");
+            teamVo.setCreateTime(new Date(1700000000000L + random.nextInt(1000000)));
+            teamVo.setExpireTime(new Date(1800000000000L + random.nextInt(1000000)));
+            Set<User> members = new HashSet<>();
+            for (int j = 0; j < memberCount; j++) {
+                User user = new User();
+                user.setId(userId);
+                user.setUsername("用户" + userId);
+                user.setUserAccount("account" + userId);
+                user.setUserAvatarUrl("https://fontal-1300000000.cos.ap-shanghai.myqcloud.com/user_avatar/" + userId + ".png");
+                user.setGender(random.nextInt(2));
+                user.setUserDesc("喜欢编程，也喜欢打篮球");
+                user.setUserStatus(0);
+                user.setUserRole(0);
+                user.setTags("[\"Java\",\"Python\",\"篮球\",\"大二\"]");
+                user.setCreateTime(new Date(1690000000000L + random.nextInt(1000000)));
+                userId++;
+                if (j == 0) {
+                    teamVo.setUser(user);
+                }
+                members.add(user);
+            }
+            teamVo.setUserSet(members);
+            teamSet.add(teamVo);
+        }
+        TeamUserVo result = new TeamUserVo();
+        result.setTeamSet(teamSet);
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RedisValueCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
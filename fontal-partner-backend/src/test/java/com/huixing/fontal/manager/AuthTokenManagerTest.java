@@ -0,0 +1,53 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.model.session.LoginPrincipal;
+import com.huixing.fontal.model.vo.AuthTokenVO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 登录令牌签发与本地校验测试（不涉及 Redis）
+ *
+ * @author fontal
+ */
+class AuthTokenManagerTest {
+
+    private final AuthTokenManager authTokenManager = new AuthTokenManager();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(authTokenManager, "mode", AuthTokenManager.MODE_TOKEN);
+        ReflectionTestUtils.setField(authTokenManager, "tokenSecret", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(authTokenManager, "accessTokenSeconds", 900L);
+        ReflectionTestUtils.setField(authTokenManager, "refreshTokenDays", 30L);
+        authTokenManager.init();
+    }
+
+    @Test
+    void accessTokenRoundTrip() {
+        LoginPrincipal principal = new LoginPrincipal(42L, 1, 0, 1700000000000L);
+        AuthTokenVO token = authTokenManager.issue(principal);
+        Assertions.assertEquals(principal, authTokenManager.verifyAccessToken(token.getAccessToken()));
+        // 刷新令牌不能当访问令牌使用
+        Assertions.assertNull(authTokenManager.verifyAccessToken(token.getRefreshToken()));
+    }
+
+    @Test
+    void rejectTamperedToken() {
+        String accessToken = authTokenManager.issue(new LoginPrincipal(42L, 0, 0, 0L)).getAccessToken();
+        char[] chars = accessToken.toCharArray();
+        chars[3] = chars[3] == 'A' ? 'B' : 'A';
+        Assertions.assertNull(authTokenManager.verifyAccessToken(new String(chars)));
+        Assertions.assertNull(authTokenManager.verifyAccessToken("not-a-token"));
+        Assertions.assertNull(authTokenManager.verifyAccessToken(null));
+    }
+
+    @Test
+    void rejectExpiredToken() {
+        ReflectionTestUtils.setField(authTokenManager, "accessTokenSeconds", -1L);
+        String accessToken = authTokenManager.issue(new LoginPrincipal(42L, 0, 0, 0L)).getAccessToken();
+        Assertions.assertNull(authTokenManager.verifyAccessToken(accessToken));
+    }
+}
@@ -0,0 +1,141 @@
+package com.huixing.fontal.manager;
+
+import com.baomidou.mybatisplus.core.incrementer.DefaultIdentifierGenerator;
+import com.huixing.fontal.mapper.ChatMapper;
+import com.huixing.fontal.model.entity.Chat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 聊天记录异步写库测试（数据库用内存集合代替）
+ *
+ * @author fontal
+ */
+class ChatWriteBehindTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final Set<Long> table = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean databaseDown;
+
+    private ChatWriteBehind create() throws Exception {
+        ChatMapper chatMapper = Mockito.mock(ChatMapper.class);
+        Mockito.when(chatMapper.insertIgnoreBatch(Mockito.anyCollection())).thenAnswer(invocation -> {
+            if (databaseDown) {
+                throw new IllegalStateException("database down");
+            }
+            Collection<Chat> chats = invocation.getArgument(0);
+            chats.forEach(chat -> table.add(chat.getId()));
+            return chats.size();
+        });
+        ChatWriteBehind chatWriteBehind = new ChatWriteBehind();
+        ReflectionTestUtils.setField(chatWriteBehind, "batchSize", 10);
+        ReflectionTestUtils.setField(chatWriteBehind, "flushIntervalMillis", 20L);
+        ReflectionTestUtils.setField(chatWriteBehind, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(chatWriteBehind, "chatMapper", chatMapper);
+        ReflectionTestUtils.setField(chatWriteBehind, "identifierGenerator", new DefaultIdentifierGenerator(1, 1));
+        chatWriteBehind.init();
+        return chatWriteBehind;
+    }
+
+    private static Chat chat(String text) {
+        Chat chat = new Chat();
+        chat.setFromId(1L);
+        chat.setText(text);
+        chat.setChatType(3);
+        return chat;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    private long journalFileCount() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void assignsIdsAndPersistsInBatches() throws Exception {
+        ChatWriteBehind chatWriteBehind = create();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Chat chat = chat("m" + i);
+            chatWriteBehind.submit(chat);
+            Assertions.assertNotNull(chat.getId());
+            Assertions.assertNotNull(chat.getCreateTime());
+            ids.add(chat.getId());
+        }
+        // 雪花 id 单调递增
+        Assertions.assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+        await(() -> table.size() == 25);
+        chatWriteBehind.destroy();
+        // 已写库的日志段被删除，只剩当前（空的）段
+        Assertions.assertEquals(1, journalFileCount());
+    }
+
+    @Test
+    void replaysJournalAfterDatabaseFailure() throws Exception {
+        databaseDown = true;
+        ChatWriteBehind first = create();
+        for (int i = 0; i < 5; i++) {
+            first.submit(chat("m" + i));
+        }
+        await(() -> first.stats().getFailedFlushCount() > 0);
+        // 模拟进程退出时数据库仍不可用
+        first.destroy();
+        Assertions.assertTrue(table.isEmpty());
+
+        databaseDown = false;
+        ChatWriteBehind second = create();
+        await(() -> table.size() == 5);
+        Assertions.assertEquals(5L, second.stats().getReplayedCount());
+        second.destroy();
+    }
+
+    @Test
+    void sealedSegmentsStayOnDiskWhileDatabaseIsDown() throws Exception {
+        databaseDown = true;
+        ChatWriteBehind chatWriteBehind = create();
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 0; i < 5; i++) {
+                chatWriteBehind.submit(chat("m" + round + i));
+            }
+            long failed = round;
+            await(() -> chatWriteBehind.stats().getFailedFlushCount() >= failed);
+        }
+        Deque<?> sealedSegments = (Deque<?>) ReflectionTestUtils.getField(chatWriteBehind, "sealedSegments");
+        Assertions.assertEquals(3, sealedSegments.size());
+        // 写库失败后内存中不保留任何已封存段的消息
+        for (Object segment : sealedSegments) {
+            Assertions.assertNull(ReflectionTestUtils.getField(segment, "chats"));
+        }
+
+        databaseDown = false;
+        await(() -> table.size() == 15);
+        chatWriteBehind.destroy();
+    }
+}
@@ -0,0 +1,72 @@
+package com.huixing.fontal.manager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花机器号租约测试（Redis 用 Mock 代替）
+ *
+ * @author fontal
+ */
+class IdWorkerLeaseTest {
+
+    private final StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = Mockito.mock(ValueOperations.class);
+
+    private IdWorkerLease create() {
+        Mockito.when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        IdWorkerLease idWorkerLease = new IdWorkerLease();
+        ReflectionTestUtils.setField(idWorkerLease, "fixedWorkerId", -1L);
+        ReflectionTestUtils.setField(idWorkerLease, "stringRedisTemplate", stringRedisTemplate);
+        return idWorkerLease;
+    }
+
+    @Test
+    void skipsWorkerIdsLeasedByOtherNodes() {
+        Mockito.when(valueOperations.increment("fontal:id:worker-seq")).thenReturn(1023L + 1024);
+        Mockito.when(valueOperations.setIfAbsent(Mockito.anyString(), Mockito.anyString(),
+                Mockito.eq(30L), Mockito.eq(TimeUnit.SECONDS))).thenReturn(false);
+        Mockito.when(valueOperations.setIfAbsent(Mockito.eq("fontal:id:worker:1"), Mockito.anyString(),
+                Mockito.eq(30L), Mockito.eq(TimeUnit.SECONDS))).thenReturn(true);
+        IdWorkerLease idWorkerLease = create();
+        idWorkerLease.init();
+        // 从 1023 开始，1023、0 已被占用
+        Assertions.assertEquals(1, idWorkerLease.getWorkerId());
+        Assertions.assertTrue(idWorkerLease.nextId() < idWorkerLease.nextId());
+    }
+
+    @Test
+    void failsWhenEveryWorkerIdIsLeased() {
+        Mockito.when(valueOperations.increment("fontal:id:worker-seq")).thenReturn(7L);
+        Mockito.when(valueOperations.setIfAbsent(Mockito.anyString(), Mockito.anyString(),
+                Mockito.eq(30L), Mockito.eq(TimeUnit.SECONDS))).thenReturn(false);
+        IdWorkerLease idWorkerLease = create();
+        Assertions.assertThrows(IllegalStateException.class, idWorkerLease::init);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void movesToAFreeWorkerIdWhenTheLeaseIsLost() {
+        Mockito.when(valueOperations.increment("fontal:id:worker-seq")).thenReturn(3L, 4L);
+        Mockito.when(valueOperations.setIfAbsent(Mockito.anyString(), Mockito.anyString(),
+                Mockito.eq(30L), Mockito.eq(TimeUnit.SECONDS))).thenReturn(true);
+        IdWorkerLease idWorkerLease = create();
+        idWorkerLease.init();
+        Assertions.assertEquals(3, idWorkerLease.getWorkerId());
+
+        // 续期时发现机器号已被其他节点占用
+        Mockito.when(stringRedisTemplate.execute(Mockito.any(RedisScript.class), Mockito.anyList(),
+                Mockito.any(), Mockito.any())).thenReturn(0L);
+        idWorkerLease.renew();
+        Assertions.assertEquals(4, idWorkerLease.getWorkerId());
+    }
+}
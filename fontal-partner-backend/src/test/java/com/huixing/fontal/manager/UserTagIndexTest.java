@@ -0,0 +1,99 @@
+package com.huixing.fontal.manager;
+
+import com.huixing.fontal.mapper.UserMapper;
+import com.huixing.fontal.model.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户标签索引测试：重建期间的增量更新、其他节点的变化通知（数据库用 Mock 代替）
+ *
+ * @author fontal
+ */
+class UserTagIndexTest {
+
+    private static User user(long id, String tags) {
+        User user = new User();
+        user.setId(id);
+        user.setTags(tags);
+        user.setUserStatus(0);
+        return user;
+    }
+
+    @Test
+    void updatesDuringRebuildAreReplayed() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        Mockito.when(userMapper.selectList(Mockito.any()))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    Assertions.assertTrue(release.await(5, TimeUnit.SECONDS));
+                    // 重建读到的是更新之前的数据
+                    return Arrays.asList(user(1, "[\"java\"]"), user(2, "[\"java\",\"go\"]"));
+                })
+                .thenReturn(Collections.emptyList());
+
+        UserTagMatcher userTagMatcher = new UserTagMatcher();
+        ReflectionTestUtils.setField(userTagMatcher, "tagDictionary", new TagDictionary());
+        UserTagIndex userTagIndex = new UserTagIndex();
+        ReflectionTestUtils.setField(userTagIndex, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userTagIndex, "userTagMatcher", userTagMatcher);
+        // 旧索引中已有用户 3
+        userTagIndex.update(3, 0, Collections.singleton("go"));
+
+        Thread rebuild = new Thread(userTagIndex::rebuild);
+        rebuild.start();
+        Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // 重建期间旧索引仍然可查
+        Assertions.assertEquals(Collections.singletonList(3L), userTagIndex.searchAll(Collections.singleton("go")));
+        userTagIndex.update(1, 0, Arrays.asList("python", "go"));
+        userTagIndex.remove(2);
+        release.countDown();
+        rebuild.join(TimeUnit.SECONDS.toMillis(5));
+
+        Assertions.assertTrue(userTagIndex.isReady());
+        Assertions.assertEquals(Collections.singletonList(1L), userTagIndex.searchAll(Collections.singleton("go")));
+        Assertions.assertTrue(userTagIndex.searchAll(Collections.singleton("java")).isEmpty());
+        Assertions.assertNull(userTagIndex.getTags(2));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("Python", "Go")), userTagIndex.getTags(1));
+        Assertions.assertEquals(Collections.singletonList(1L),
+                userTagMatcher.topK(Collections.singleton("Python"), 0, 10));
+        Assertions.assertTrue(userTagMatcher.topK(Collections.singleton("Java"), 0, 10).isEmpty());
+    }
+
+    @Test
+    void changesOnOtherNodesAreReloadedFromDatabase() {
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        Mockito.when(userMapper.selectOne(Mockito.any()))
+                .thenReturn(user(7, "[\"java\"]"))
+                .thenReturn(null);
+        StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        UserTagMatcher userTagMatcher = new UserTagMatcher();
+        ReflectionTestUtils.setField(userTagMatcher, "tagDictionary", new TagDictionary());
+        UserTagIndex userTagIndex = new UserTagIndex();
+        ReflectionTestUtils.setField(userTagIndex, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userTagIndex, "userTagMatcher", userTagMatcher);
+        ReflectionTestUtils.setField(userTagIndex, "stringRedisTemplate", stringRedisTemplate);
+
+        // 本节点修改：更新索引并通知其他节点
+        userTagIndex.refresh(7);
+        Assertions.assertEquals(Collections.singleton("Java"), userTagIndex.getTags(7));
+        Mockito.verify(stringRedisTemplate).convertAndSend(UserTagIndex.CHANGE_CHANNEL, "7");
+
+        // 其他节点删除了该用户
+        userTagIndex.onMessage(new DefaultMessage(UserTagIndex.CHANGE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "7".getBytes(StandardCharsets.UTF_8)), null);
+        Assertions.assertNull(userTagIndex.getTags(7));
+        Assertions.assertTrue(userTagIndex.searchAll(Collections.singleton("java")).isEmpty());
+    }
+}
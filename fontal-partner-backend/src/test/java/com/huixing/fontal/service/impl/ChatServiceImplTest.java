@@ -0,0 +1,132 @@
+package com.huixing.fontal.service.impl;
+
+import com.huixing.fontal.contant.ChatConstant;
+import com.huixing.fontal.manager.ChatWriteBehind;
+import com.huixing.fontal.manager.UserProfileLoader;
+import com.huixing.fontal.mapper.ChatMapper;
+import com.huixing.fontal.model.entity.Chat;
+import com.huixing.fontal.model.vo.ChatHistoryVO;
+import com.huixing.fontal.model.vo.MessageVo;
+import com.huixing.fontal.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 聊天记录分页测试：最近消息列表 id 101-105，数据库中更早的消息 id 1-100
+ *
+ * @author fontal
+ */
+class ChatServiceImplTest {
+
+    private static final long LOGIN_USER_ID = 1L;
+
+    private static final long OTHER_USER_ID = 2L;
+
+    private final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+    private ChatMapper chatMapper;
+
+    private ChatServiceImpl chatService;
+
+    @BeforeEach
+    void setUp() {
+        List<String> recent = new ArrayList<>();
+        for (long id = 105; id > 100; id--) {
+            recent.add(ChatWriteBehind.toJson(chat(id)));
+        }
+        @SuppressWarnings("unchecked")
+        ListOperations<String, String> listOperations = Mockito.mock(ListOperations.class);
+        Mockito.when(listOperations.range(String.format(ChatConstant.CACHE_CHAT_PRIVATE, LOGIN_USER_ID, OTHER_USER_ID), 0, -1))
+                .thenReturn(recent);
+        StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(stringRedisTemplate.opsForList()).thenReturn(listOperations);
+
+        chatMapper = Mockito.mock(ChatMapper.class);
+        Mockito.when(chatMapper.selectPrivateBefore(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(), Mockito.anyInt()))
+                .thenAnswer(invocation -> {
+                    Long beforeId = invocation.getArgument(2);
+                    int limit = invocation.getArgument(3);
+                    List<Chat> chats = new ArrayList<>();
+                    for (long id = Math.min(beforeId == null ? 101 : beforeId, 101) - 1; id > 0 && chats.size() < limit; id--) {
+                        chats.add(chat(id));
+                    }
+                    return chats;
+                });
+
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.getLoginUserId(request)).thenReturn(LOGIN_USER_ID);
+
+        chatService = new ChatServiceImpl();
+        ReflectionTestUtils.setField(chatService, "chatMapper", chatMapper);
+        ReflectionTestUtils.setField(chatService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(chatService, "userService", userService);
+        ReflectionTestUtils.setField(chatService, "userProfileLoader", Mockito.mock(UserProfileLoader.class));
+    }
+
+    private static Chat chat(long id) {
+        Chat chat = new Chat();
+        chat.setId(id);
+        chat.setFromId(id % 2 == 0 ? OTHER_USER_ID : LOGIN_USER_ID);
+        chat.setToId(id % 2 == 0 ? LOGIN_USER_ID : OTHER_USER_ID);
+        chat.setText("m" + id);
+        chat.setChatType(ChatConstant.PRIVATE_CHAT);
+        return chat;
+    }
+
+    private static List<String> ids(ChatHistoryVO history) {
+        return history.getMessages().stream().map(MessageVo::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void latestPageIsServedFromRecentList() {
+        ChatHistoryVO history = chatService.getPrivateHistory(OTHER_USER_ID, null, 3, request);
+        Assertions.assertEquals(Arrays.asList("103", "104", "105"), ids(history));
+        Assertions.assertTrue(history.getHasMore());
+        Assertions.assertEquals("103", history.getNextCursor());
+        Assertions.assertTrue(history.getMessages().get(0).getIsMy());
+        Mockito.verifyNoInteractions(chatMapper);
+    }
+
+    @Test
+    void olderPagesContinueFromDatabase() {
+        ChatHistoryVO history = chatService.getPrivateHistory(OTHER_USER_ID, "103", 5, request);
+        Assertions.assertEquals(Arrays.asList("98", "99", "100", "101", "102"), ids(history));
+        Assertions.assertEquals("98", history.getNextCursor());
+        // 从列表中最早的一条往前查，只查不够的部分
+        Mockito.verify(chatMapper).selectPrivateBefore(LOGIN_USER_ID, OTHER_USER_ID, 101L, 4);
+
+        ChatHistoryVO last = chatService.getPrivateHistory(OTHER_USER_ID, "3", 5, request);
+        Assertions.assertEquals(Arrays.asList("1", "2"), ids(last));
+        Assertions.assertFalse(last.getHasMore());
+        Assertions.assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void failedRecentWriteDropsTheList() {
+        StringRedisTemplate stringRedisTemplate =
+                (StringRedisTemplate) ReflectionTestUtils.getField(chatService, "stringRedisTemplate");
+        Mockito.when(stringRedisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("timeout"));
+        ChatWriteBehind chatWriteBehind = Mockito.mock(ChatWriteBehind.class);
+        ReflectionTestUtils.setField(chatService, "chatWriteBehind", chatWriteBehind);
+
+        Chat chat = chat(106);
+        chatService.saveMessage(chat);
+        Mockito.verify(chatWriteBehind).submit(chat);
+        // 列表缺了一条消息，删除后查询从数据库补齐
+        Mockito.verify(stringRedisTemplate).delete(String.format(ChatConstant.CACHE_CHAT_PRIVATE, LOGIN_USER_ID, OTHER_USER_ID));
+    }
+}
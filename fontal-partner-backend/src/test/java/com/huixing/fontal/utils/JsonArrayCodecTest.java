@@ -0,0 +1,72 @@
+package com.huixing.fontal.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JSON 数组编解码测试
+ *
+ * @author fontal
+ */
+class JsonArrayCodecTest {
+
+    @Test
+    void parseLongSet() {
+        LongHashSet set = JsonArrayCodec.parseLongSet(" [3, 1,2 ,0,-5, 3] ");
+        Assertions.assertEquals(5, set.size());
+        Assertions.assertArrayEquals(new long[]{-5, 0, 1, 2, 3}, set.toSortedArray());
+        Assertions.assertTrue(JsonArrayCodec.parseLongSet(null).isEmpty());
+        Assertions.assertTrue(JsonArrayCodec.parseLongSet("").isEmpty());
+        Assertions.assertTrue(JsonArrayCodec.parseLongSet("null").isEmpty());
+        Assertions.assertTrue(JsonArrayCodec.parseLongSet("[]").isEmpty());
+        // 快速路径不支持的格式回退到 Gson
+        Assertions.assertArrayEquals(new long[]{1, 2}, JsonArrayCodec.parseLongSet("[1.0,2]").toSortedArray());
+        Assertions.assertArrayEquals(new long[]{Long.MAX_VALUE},
+                JsonArrayCodec.parseLongSet("[" + Long.MAX_VALUE + "]").toSortedArray());
+    }
+
+    @Test
+    void writeLongs() {
+        LongHashSet set = new LongHashSet();
+        Assertions.assertEquals("[]", JsonArrayCodec.writeLongSet(set));
+        set.add(10);
+        set.add(0);
+        set.add(7);
+        Assertions.assertEquals("[0,7,10]", JsonArrayCodec.writeLongSet(set));
+        Assertions.assertEquals("[1,2]", JsonArrayCodec.writeLongs(Arrays.asList(1L, 2L)));
+        Assertions.assertEquals(set.toBoxedSet(),
+                JsonArrayCodec.parseLongSet(JsonArrayCodec.writeLongSet(set)).toBoxedSet());
+    }
+
+    @Test
+    void longHashSetAddRemove() {
+        LongHashSet set = new LongHashSet(2);
+        for (long i = 0; i < 1000; i++) {
+            Assertions.assertTrue(set.add(i * 31));
+        }
+        Assertions.assertFalse(set.add(0));
+        for (long i = 0; i < 1000; i += 2) {
+            Assertions.assertTrue(set.remove(i * 31));
+        }
+        Assertions.assertEquals(500, set.size());
+        for (long i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i % 2 == 1, set.contains(i * 31));
+        }
+    }
+
+    @Test
+    void parseStringSet() {
+        Set<String> tags = JsonArrayCodec.parseStringSet("[\"Java\", \"C\\\"++\", \"\\u4e2d\\n\"]");
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("Java", "C\"++", "中\n")), tags);
+        Assertions.assertTrue(JsonArrayCodec.parseStringSet(null).isEmpty());
+        Assertions.assertTrue(JsonArrayCodec.parseStringSet("[]").isEmpty());
+        // 相同标签返回同一个实例
+        String a = JsonArrayCodec.parseStringSet("[\"Python\"]").iterator().next();
+        String b = JsonArrayCodec.parseStringSet("[\"Python\"]").iterator().next();
+        Assertions.assertSame(a, b);
+    }
+}
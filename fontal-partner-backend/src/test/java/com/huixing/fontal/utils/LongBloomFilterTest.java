@@ -0,0 +1,39 @@
+package com.huixing.fontal.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 布隆过滤器测试
+ *
+ * @author fontal
+ */
+class LongBloomFilterTest {
+
+    @Test
+    void noFalseNegatives() {
+        LongBloomFilter filter = new LongBloomFilter(10000, 0.01);
+        for (long id = 1; id <= 10000; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= 10000; id++) {
+            Assertions.assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void falsePositiveRateNearExpected() {
+        LongBloomFilter filter = new LongBloomFilter(10000, 0.01);
+        for (long id = 1; id <= 10000; id++) {
+            filter.add(id);
+        }
+        int falsePositives = 0;
+        for (long id = 1000001; id <= 1100000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        // 期望约 1%，留出余量
+        Assertions.assertTrue(falsePositives < 2000, "误判数: " + falsePositives);
+    }
+}
@@ -0,0 +1,33 @@
+package com.huixing.fontal.utils;
+
+import com.huixing.fontal.model.session.LoginPrincipal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+/**
+ * 会话属性序列化测试：两种写入格式互相可读，非紧凑格式旧节点（默认 JDK 序列化）也能读取
+ *
+ * @author fontal
+ */
+class SessionAttributeSerializerTest {
+
+    private final LoginPrincipal principal = new LoginPrincipal(42L, 1, 0, 1700000000000L);
+
+    @Test
+    void principalRoundTripsInBothFormats() {
+        SessionAttributeSerializer compact = new SessionAttributeSerializer(true);
+        SessionAttributeSerializer legacy = new SessionAttributeSerializer(false);
+        Assertions.assertEquals(principal, legacy.deserialize(compact.serialize(principal)));
+        Assertions.assertEquals(principal, compact.deserialize(legacy.serialize(principal)));
+        Assertions.assertEquals(7L, compact.deserialize(legacy.serialize(7L)));
+    }
+
+    @Test
+    void legacyFormatIsReadableWithoutLoginPrincipalClass() {
+        byte[] bytes = new SessionAttributeSerializer(false).serialize(principal);
+        // 旧节点读到的是字符串，不会因为缺少 LoginPrincipal 类而加载会话失败
+        Object value = new JdkSerializationRedisSerializer().deserialize(bytes);
+        Assertions.assertTrue(value instanceof String);
+    }
+}
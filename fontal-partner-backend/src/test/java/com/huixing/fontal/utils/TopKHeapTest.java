@@ -0,0 +1,33 @@
+package com.huixing.fontal.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 定长小顶堆测试
+ *
+ * @author fontal
+ */
+class TopKHeapTest {
+
+    @Test
+    void keepsHighestScoresWithSmallerIdFirstOnTies() {
+        TopKHeap heap = new TopKHeap(3);
+        heap.offer(5, 1.0);
+        heap.offer(9, 3.0);
+        heap.offer(2, 2.0);
+        heap.offer(7, 3.0);
+        heap.offer(1, 0.5);
+        heap.offer(4, 2.0);
+        Assertions.assertArrayEquals(new long[]{7, 9, 2}, heap.toSortedIds());
+    }
+
+    @Test
+    void returnsFewerThanCapacity() {
+        TopKHeap heap = new TopKHeap(5);
+        heap.offer(3, 1.0);
+        heap.offer(1, 1.0);
+        Assertions.assertArrayEquals(new long[]{1, 3}, heap.toSortedIds());
+        Assertions.assertEquals(0, new TopKHeap(2).toSortedIds().length);
+    }
+}
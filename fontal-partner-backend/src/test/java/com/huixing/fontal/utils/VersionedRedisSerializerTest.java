@@ -0,0 +1,127 @@
+package com.huixing.fontal.utils;
+
+import com.huixing.fontal.model.entity.User;
+import com.huixing.fontal.model.vo.TeamUserVo;
+import com.huixing.fontal.model.vo.TeamVo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Constructor;
+
+import java.util.*;
+
+/**
+ * Redis 值序列化测试
+ *
+ * @author fontal
+ */
+class VersionedRedisSerializerTest {
+
+    private final SmileRedisValueCodec smileCodec = new SmileRedisValueCodec();
+
+    @Test
+    void smileRoundTrip() {
+        VersionedRedisSerializer serializer = new VersionedRedisSerializer(smileCodec, 0);
+        TeamUserVo teamUserVo = buildTeamUserVo(3, 4);
+        Assertions.assertEquals(teamUserVo, serializer.deserialize(serializer.serialize(teamUserVo)));
+        List<TeamVo> teamList = new ArrayList<>(teamUserVo.getTeamSet());
+        Assertions.assertEquals(teamList, serializer.deserialize(serializer.serialize(teamList)));
+        Assertions.assertEquals("text", serializer.deserialize(serializer.serialize("text")));
+    }
+
+    @Test
+    void refreshableValueRoundTrip() throws Exception {
+        // TwoLevelCache.getOrRefresh 写入二级缓存的包装类型
+        Class<?> type = Class.forName("com.huixing.fontal.manager.TwoLevelCache$RefreshableValue");
+        Constructor<?> constructor = type.getDeclaredConstructor(Object.class, long.class, long.class);
+        constructor.setAccessible(true);
+        List<TeamVo> teamList = new ArrayList<>(buildTeamUserVo(2, 2).getTeamSet());
+        Object entry = constructor.newInstance(teamList, 1800000000000L, 35L);
+
+        VersionedRedisSerializer serializer = new VersionedRedisSerializer(smileCodec, 0);
+        Object decoded = serializer.deserialize(serializer.serialize(entry));
+        Assertions.assertNotNull(decoded);
+        Assertions.assertEquals(type, decoded.getClass());
+        Assertions.assertEquals(teamList, ReflectionTestUtils.getField(decoded, "value"));
+        Assertions.assertEquals(1800000000000L, ReflectionTestUtils.getField(decoded, "softExpireAt"));
+        Assertions.assertEquals(35L, ReflectionTestUtils.getField(decoded, "computeMillis"));
+    }
+
+    @Test
+    void compressAboveThreshold() {
+        TeamUserVo teamUserVo = buildTeamUserVo(20, 5);
+        byte[] plain = new VersionedRedisSerializer(smileCodec, 0).serialize(teamUserVo);
+        VersionedRedisSerializer compressing = new VersionedRedisSerializer(smileCodec, 256);
+        byte[] compressed = compressing.serialize(teamUserVo);
+        Assertions.assertTrue(compressed.length < plain.length);
+        Assertions.assertEquals(teamUserVo, compressing.deserialize(compressed));
+        // 未压缩的数据同样可以读取
+        Assertions.assertEquals(teamUserVo, compressing.deserialize(plain));
+    }
+
+    @Test
+    void readBothFormats() {
+        TeamUserVo teamUserVo = buildTeamUserVo(2, 3);
+        VersionedRedisSerializer jdkWriter = new VersionedRedisSerializer(new JdkRedisValueCodec(), 1024, smileCodec);
+        VersionedRedisSerializer smileWriter = new VersionedRedisSerializer(smileCodec, 1024);
+        byte[] legacy = jdkWriter.serialize(teamUserVo);
+        // JDK 写入格式不加头部，与旧版本一致
+        Assertions.assertEquals((byte) 0xAC, legacy[0]);
+        Assertions.assertEquals(teamUserVo, smileWriter.deserialize(legacy));
+        Assertions.assertEquals(teamUserVo, jdkWriter.deserialize(smileWriter.serialize(teamUserVo)));
+    }
+
+    @Test
+    void unreadableValueIsMiss() {
+        VersionedRedisSerializer serializer = new VersionedRedisSerializer(smileCodec, 1024);
+        Assertions.assertNull(serializer.deserialize(null));
+        Assertions.assertNull(serializer.deserialize(new byte[0]));
+        Assertions.assertNull(serializer.deserialize(new byte[]{1, 2, 3, 4, 5}));
+        Assertions.assertNull(serializer.deserialize(new byte[]{(byte) 0xF5, 1, 99, 0, 1}));
+    }
+
+    static TeamUserVo buildTeamUserVo(int teamCount, int memberCount) {
+        Set<TeamVo> teamSet = new LinkedHashSet<>();
+        long userId = 1;
+        for (int i = 0; i < teamCount; i++) {
+            TeamVo teamVo = new TeamVo();
+            teamVo.setId((long) i + 1);
+            teamVo.setTeamName("队伍" + i);
+            teamVo.setTeamAvatarUrl("https://example.com/team/" + i + ".png");
+            teamVo.setTeamDesc("一起学习 Java 和 Spring Boot 的队伍 " + i);
+            teamVo.setMaxNum(10);
+            teamVo.setTeamStatus(0);
+            teamVo.setCreateTime(new Date(1700000000000L + i));
+            teamVo.setExpireTime(new Date(1800000000000L + i));
+            Set<User> members = new HashSet<>();
+            for (int j = 0; j < memberCount; j++) {
+                User user = buildUser(userId++);
+                if (j == 0) {
+                    teamVo.setUser(user);
+                }
+                members.add(user);
+            }
+            teamVo.setUserSet(members);
+            teamSet.add(teamVo);
+        }
+        TeamUserVo teamUserVo = new TeamUserVo();
+        teamUserVo.setTeamSet(teamSet);
+        return teamUserVo;
+    }
+
+    private static User buildUser(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("用户" + id);
+        user.setUserAccount("account" + id);
+        user.setUserAvatarUrl("https://example.com/avatar/" + id + ".png");
+        user.setGender((int) (id % 2));
+        user.setUserDesc("喜欢编程");
+        user.setUserStatus(0);
+        user.setUserRole(0);
+        user.setTags("[\"Java\",\"Python\",\"篮球\"]");
+        user.setCreateTime(new Date(1700000000000L + id));
+        return user;
+    }
+}
@@ -0,0 +1,102 @@
+package com.huixing.fontal.ws;
+
+import com.huixing.fontal.config.ChatOutboundConfig;
+import com.huixing.fontal.config.ChatOutboundConfig.OverflowPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * WebSocket 出站队列测试（写线程用手动执行的任务队列代替）
+ *
+ * @author fontal
+ */
+class ChatOutboundTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private final List<String> sent = new ArrayList<>();
+
+    private final Session session = Mockito.mock(Session.class);
+
+    private ChatOutbound.OutboundQueue open(OverflowPolicy overflowPolicy) throws Exception {
+        ChatOutboundConfig config = new ChatOutboundConfig();
+        config.setQueueCapacity(3);
+        config.setOverflowPolicy(overflowPolicy);
+        ChatOutbound chatOutbound = new ChatOutbound();
+        ReflectionTestUtils.setField(chatOutbound, "chatOutboundConfig", config);
+        ReflectionTestUtils.setField(chatOutbound, "chatWriterExecutor", (Executor) tasks::add);
+
+        RemoteEndpoint.Basic basic = Mockito.mock(RemoteEndpoint.Basic.class);
+        Mockito.doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(basic).sendText(Mockito.anyString());
+        Mockito.when(session.getBasicRemote()).thenReturn(basic);
+        Mockito.when(session.getUserProperties()).thenReturn(new HashMap<>());
+        Mockito.when(session.isOpen()).thenReturn(true);
+        return chatOutbound.open(session, 1L);
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    void sendsInOrderWithSingleTask() throws Exception {
+        ChatOutbound.OutboundQueue queue = open(OverflowPolicy.DROP_OLDEST);
+        queue.offer("a");
+        queue.offer("b");
+        // 同一连接只提交一个发送任务
+        Assertions.assertEquals(1, tasks.size());
+        drain();
+        Assertions.assertEquals(Arrays.asList("a", "b"), sent);
+    }
+
+    @Test
+    void dropOldestWhenFull() throws Exception {
+        ChatOutbound.OutboundQueue queue = open(OverflowPolicy.DROP_OLDEST);
+        for (String text : Arrays.asList("1", "2", "3", "4", "5")) {
+            Assertions.assertTrue(queue.offer(text));
+        }
+        Assertions.assertEquals(3, queue.depth());
+        drain();
+        Assertions.assertEquals(Arrays.asList("3", "4", "5"), sent);
+    }
+
+    @Test
+    void coalesceReplacesPendingMessageWithSameKey() throws Exception {
+        ChatOutbound.OutboundQueue queue = open(OverflowPolicy.COALESCE);
+        queue.offer("online-1", "presence:7");
+        queue.offer("hello");
+        queue.offer("offline-1", "presence:7");
+        Assertions.assertEquals(2, queue.depth());
+        drain();
+        Assertions.assertEquals(Arrays.asList("offline-1", "hello"), sent);
+    }
+
+    @Test
+    void disconnectSlowConsumer() throws Exception {
+        ChatOutbound.OutboundQueue queue = open(OverflowPolicy.DISCONNECT);
+        queue.offer("1");
+        queue.offer("2");
+        queue.offer("3");
+        Assertions.assertFalse(queue.offer("4"));
+        Assertions.assertFalse(queue.offer("5"));
+        drain();
+        Assertions.assertTrue(sent.isEmpty());
+        Mockito.verify(session).close(Mockito.any(CloseReason.class));
+    }
+}